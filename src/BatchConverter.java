@@ -0,0 +1,150 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.Problem;
+
+import converter.Utf8Writer;
+
+/**
+ * ディレクトリの下の全ての .java ファイルを、1つのJVMでまとめて変換するクラス
+ *
+ * ファイルごとの解析と変換を fork-join プール(ワークスティーリング)で同時に実行し、
+ * 入力と同じディレクトリ構成で、出力ディレクトリに .nako ファイルを書く。
+ * 大きなファイルは ConversionEngine がさらにメソッドごとに分けて同じプールで変換するので、
+ * 最後に大きなファイルが1つ残っても他のスレッドが手伝う。
+ * 終わったら、ファイル数・バイト数・1秒あたりのファイル数と、変換できなかったファイルとその理由を表示する。
+ * <pre>
+ * java -jar java-to-nadeshiko-converter.jar --batch &lt;入力ディレクトリ&gt; &lt;出力ディレクトリ&gt; [スレッド数]
+ * </pre>
+ */
+public class BatchConverter {
+
+    private final Path inputRoot;
+    private final Path outputRoot;
+    private final int threads;
+
+    // JavaParser はスレッドセーフでないので、スレッドごとに作って使い回す
+    private final ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(JavaToNadeshikoConverter::createParser);
+
+    private final AtomicLong converted = new AtomicLong();
+    private final AtomicLong inputBytes = new AtomicLong();
+    private final AtomicLong outputBytes = new AtomicLong();
+    private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param threads 同時に変換するスレッドの数
+     */
+    public BatchConverter(Path inputRoot, Path outputRoot, int threads) {
+        this.inputRoot = inputRoot;
+        this.outputRoot = outputRoot;
+        this.threads = threads;
+    }
+
+    /**
+     * 全てのファイルを変換し、結果を標準出力へ、変換できなかったファイルを標準エラーへ表示する
+     * @return 全てのファイルを変換できた場合は true
+     */
+    public boolean run() throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(inputRoot)) {
+            files = walk.filter(file -> file.toString().endsWith(".java") && Files.isRegularFile(file))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(files.size());
+            for (Path file : files) {
+                tasks.add(pool.submit(() -> convertFile(file)));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%,d ファイル中 %,d ファイルを変換しました (失敗 %,d)%n",
+                files.size(), converted.get(), failures.size());
+        System.out.printf("入力 %,d バイト / 出力 %,d バイト / %.2f 秒 (%,.1f ファイル/秒, %d スレッド)%n",
+                inputBytes.get(), outputBytes.get(), seconds, files.size() / seconds, threads);
+
+        List<Failure> sorted = new ArrayList<>(failures);
+        sorted.sort(Comparator.comparing(failure -> failure.file));
+        for (Failure failure : sorted) {
+            System.err.println(inputRoot.relativize(failure.file) + ": " + failure.message);
+        }
+        return sorted.isEmpty();
+    }
+
+    /**
+     * 1つのファイルを変換して書き出す。失敗した場合は failures に記録する (例外は投げない)
+     */
+    private void convertFile(Path file) {
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            inputBytes.addAndGet(bytes.length);
+            // UTF-8 として正しくないファイルは、文字化けしたまま変換せずに失敗とする
+            String javaCode = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes)).toString();
+
+            StringBuilder result = new StringBuilder();
+            List<Problem> problems = JavaToNadeshikoConverter.convertSource(parsers.get(), javaCode, result);
+            if (!problems.isEmpty()) {
+                failures.add(new Failure(file, "構文木作成に失敗しました " + problems.stream()
+                        .map(Problem::getMessage)
+                        .collect(Collectors.joining(" / "))));
+                return;
+            }
+
+            Path target = outputFile(file);
+            Files.createDirectories(target.getParent());
+            try (Utf8Writer out = Utf8Writer.open(target)) {
+                out.append(result);
+            }
+            outputBytes.addAndGet(Files.size(target));
+            converted.incrementAndGet();
+        } catch (StackOverflowError e) {
+            failures.add(new Failure(file, "入れ子が深すぎるため変換できません"));
+        } catch (IOException | RuntimeException e) {
+            // 読めないファイルや想定外の例外があっても、他のファイルの変換は続ける
+            failures.add(new Failure(file, e.toString()));
+        }
+    }
+
+    /**
+     * 入力ディレクトリからの相対パスを出力ディレクトリの下に写し、拡張子を .nako にする
+     */
+    private Path outputFile(Path file) {
+        Path relative = inputRoot.relativize(file);
+        String name = relative.getFileName().toString();
+        String nakoName = name.substring(0, name.length() - ".java".length()) + ".nako";
+        return outputRoot.resolve(relative).resolveSibling(nakoName);
+    }
+
+    private static final class Failure {
+        final Path file;
+        final String message;
+
+        Failure(Path file, String message) {
+            this.file = file;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.Problem;
+import com.github.javaparser.ast.CompilationUnit;
+
+import converter.DeepStack;
+import converter.Utf8Writer;
+
+/**
+ * 常駐して変換要求を受け付けるデーモン
+ *
+ * 拡張機能から一度だけ起動され、標準入力から要求を読み、標準出力へ結果を返す。
+ * パーサーと変換クラスは要求をまたいで使い回すため、2回目以降はJVMの起動や
+ * クラスの読み込みを待たずに変換できる。
+ *
+ * フレーム形式(ヘッダーはASCII、本体はUTF-8):
+ * <pre>
+ * 要求: &lt;id&gt; &lt;本体のバイト数&gt;\n&lt;Javaコード&gt;
+ * 応答: &lt;id&gt; OK|ERROR &lt;本体のバイト数&gt;\n&lt;なでしこコード または エラーメッセージ&gt;
+ * </pre>
+ * 標準入力が閉じられると終了する。
+ */
+public class ConverterDaemon {
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final JavaParser parser = JavaToNadeshikoConverter.createParser();
+
+    // 応答の本体。ヘッダーにバイト数を書くため、一度ここにUTF-8でためてから送る (要求をまたいで使い回す)
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final Utf8Writer converted = new Utf8Writer(Channels.newChannel(body));
+
+    public ConverterDaemon(InputStream in, OutputStream out) {
+        this.in = new BufferedInputStream(in);
+        this.out = new BufferedOutputStream(out);
+    }
+
+    /**
+     * 標準入力が閉じられるまで要求を処理し続ける
+     */
+    public void run() throws IOException {
+        while (true) {
+            String header = readHeader();
+            if (header == null) {
+                return; // 入力終了
+            }
+
+            String[] fields = header.trim().split(" ");
+            if (fields.length != 2) {
+                throw new IOException("不正なヘッダーです: " + header);
+            }
+            String id = fields[0];
+            int length = Integer.parseInt(fields[1]);
+            String javaCode = new String(readBody(length), StandardCharsets.UTF_8);
+
+            body.reset();
+            String status;
+            try {
+                convert(javaCode);
+                status = "OK";
+            } catch (ConversionException e) {
+                writeError(e.getMessage());
+                status = "ERROR";
+            } catch (StackOverflowError e) {
+                // 最も大きなスタックでも溢れるほど入れ子が深い
+                writeError("入れ子が深すぎるため変換できません");
+                status = "ERROR";
+            } catch (RuntimeException e) {
+                // 変換中の想定外の例外でもデーモンは止めない
+                writeError(e.toString());
+                status = "ERROR";
+            }
+            writeResponse(id, status);
+        }
+    }
+
+    private void convert(String javaCode) throws ConversionException, IOException {
+        // 入れ子の深いコードでスタックが溢れたら、解析からやり直す (DeepStack を参照)
+        List<Problem> problems = new ArrayList<>();
+        DeepStack.run(() -> {
+            ParseResult<CompilationUnit> result = parser.parse(javaCode);
+            if (!result.isSuccessful()) {
+                problems.addAll(result.getProblems());
+                return;
+            }
+            JavaToNadeshikoConverter.convert(result.getResult().get(), javaCode, converted);
+        });
+        if (!problems.isEmpty()) {
+            StringBuilder message = new StringBuilder("構文木作成に失敗しました");
+            problems.forEach(problem -> message.append('\n').append(problem.getMessage()));
+            throw new ConversionException(message.toString());
+        }
+        converted.flush();
+    }
+
+    /**
+     * 途中まで書いた変換結果を捨て、本体をエラーメッセージにする
+     */
+    private void writeError(String message) throws IOException {
+        converted.discard();
+        body.reset();
+        converted.append(message).flush();
+    }
+
+    /**
+     * 改行までのヘッダーを読む。入力が終了していれば null を返す
+     */
+    private String readHeader() throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                if (header.size() == 0) {
+                    return null;
+                }
+                throw new EOFException("ヘッダーの途中で入力が終了しました");
+            }
+            header.write(b);
+        }
+        return header.toString(StandardCharsets.US_ASCII);
+    }
+
+    private byte[] readBody(int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("本体の途中で入力が終了しました");
+        }
+        return bytes;
+    }
+
+    private void writeResponse(String id, String status) throws IOException {
+        String header = id + " " + status + " " + body.size() + "\n";
+        out.write(header.getBytes(StandardCharsets.US_ASCII));
+        body.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * 構文エラーなど、要求単位で利用者に返すエラー
+     */
+    private static class ConversionException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        ConversionException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * AppCDS(クラスデータ共有)アーカイブを作るための学習実行
+ *
+ * 代表的なJavaコードを常駐モードと同じ経路で変換し、変換に必要なクラスを
+ * すべて読み込ませる。-XX:ArchiveClassesAtExit を付けて実行すると、
+ * 終了時に読み込んだクラスがアーカイブに書き出される。
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=converter.jsa -cp converter.jar ConverterTraining [ファイルまたはディレクトリ...]
+ * </pre>
+ * 引数を省略すると、jarに同梱した training/ のコードを使う。
+ */
+public class ConverterTraining {
+
+    private static final String BUNDLED_CORPUS = "/training/";
+
+    // 同じコードを数回変換し、初回だけ通る経路以外のクラスも読み込ませる
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        List<byte[]> sources = args.length == 0 ? readBundledCorpus() : readFiles(args);
+
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        int id = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (byte[] source : sources) {
+                requests.write((id++ + " " + source.length + "\n").getBytes(StandardCharsets.US_ASCII));
+                requests.write(source);
+            }
+        }
+        new ConverterDaemon(new ByteArrayInputStream(requests.toByteArray()), OutputStream.nullOutputStream()).run();
+    }
+
+    private static List<byte[]> readBundledCorpus() throws IOException {
+        List<byte[]> sources = new ArrayList<>();
+        try (InputStream index = ConverterTraining.class.getResourceAsStream(BUNDLED_CORPUS + "index.txt")) {
+            if (index == null) {
+                throw new IOException("学習用のコードがjarに含まれていません");
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(index, StandardCharsets.UTF_8));
+            String name;
+            while ((name = reader.readLine()) != null) {
+                if (name.isBlank()) continue;
+                try (InputStream source = ConverterTraining.class.getResourceAsStream(BUNDLED_CORPUS + name.trim())) {
+                    if (source == null) {
+                        throw new IOException("学習用のコードが見つかりません: " + name);
+                    }
+                    sources.add(source.readAllBytes());
+                }
+            }
+        }
+        return sources;
+    }
+
+    private static List<byte[]> readFiles(String[] args) throws IOException {
+        List<byte[]> sources = new ArrayList<>();
+        for (String arg : args) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(Paths.get(arg))) {
+                files = walk.filter(p -> p.toString().endsWith(".java")).sorted().toList();
+            }
+            for (Path file : files) {
+                sources.add(Files.readAllBytes(file));
+            }
+        }
+        return sources;
+    }
+}
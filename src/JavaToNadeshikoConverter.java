@@ -1,56 +1,77 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
 import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Problem;
 import com.github.javaparser.ast.CompilationUnit;
 
-import converter.ArrayConverter;
-import converter.ClassConverter;
-import converter.CommentConverter;
-import converter.ConditionConverter;
-import converter.ExpressionConverter;
-import converter.FieldConverter;
-import converter.ForStatementConverter;
-import converter.IfStatementConverter;
-import converter.ImportConverter;
-import converter.IndentManager;
-import converter.MethodConverter;
-import converter.PackageConverter;
-import converter.PrintlnConverter;
-import converter.SwitchStatementConverter;
-import converter.ThrowStatementConverter;
-import converter.TryCatchConverter;
-import converter.VariableInitConverter;
-import converter.WhileStatementConverter;
+import converter.ConversionContext;
+import converter.ConversionEngine;
+import converter.DeepStack;
+import converter.OutputBuffer;
+import converter.Utf8Writer;
 
 public class JavaToNadeshikoConverter {
     public static void main(String[] args) throws Exception {
-        // コンパイル時に間接的に参照されるクラスを確実に含めるためのダミー参照
-        try {
-            Class.forName(ExpressionConverter.class.getName());
-            Class.forName(ConditionConverter.class.getName());
-            Class.forName(IndentManager.class.getName());
-        } catch (ClassNotFoundException e) {
+        if (args.length == 0) {
+            System.out.println("Javaファイル名、--stdin、--daemon、--batch または --jsonl を指定してください");
+            return;
         }
 
-        if (args.length == 0) {
-            System.out.println("Javaファイル名を指定してください");
+        // 一括変換モード: ディレクトリの下の全ての .java ファイルを1つのJVMで同時に変換する
+        if ("--batch".equals(args[0])) {
+            if (args.length < 3) {
+                System.out.println("--batch <入力ディレクトリ> <出力ディレクトリ> [スレッド数] を指定してください");
+                return;
+            }
+            int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            boolean succeeded = new BatchConverter(Paths.get(args[1]), Paths.get(args[2]), threads).run();
+            if (!succeeded) {
+                System.exit(1);
+            }
             return;
         }
 
-        String javaCode = new String(Files.readAllBytes(Paths.get(args[0])));
+        // 常駐モード: 標準入出力で変換要求を受け付ける
+        if ("--daemon".equals(args[0])) {
+            new ConverterDaemon(System.in, System.out).run();
+            return;
+        }
 
-        ParserConfiguration config = new ParserConfiguration();
-        // Java 16以上に設定（instanceof パターンマッチング対応）
-        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_16);
-        JavaParser parser = new JavaParser(config);
+        // JSON Lines モード: 標準入力の1行1件の JSON を同時に変換し、終わった順に1行1件の JSON で結果を返す
+        if ("--jsonl".equals(args[0])) {
+            int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+            new JsonLinesConverter(System.in, threads).run();
+            return;
+        }
+
+        // 標準入力モード: UTF-8のJavaコードを標準入力から読み、結果をUTF-8で標準出力へ書く
+        // 一時ファイルを介さないので、複数のウィンドウから同時に呼び出しても衝突しない
+        // ファイル名を指定した場合は、UTF-8のファイルを読んで同じく標準出力へ書く
+        String javaCode = "--stdin".equals(args[0])
+                ? new String(System.in.readAllBytes(), StandardCharsets.UTF_8)
+                : Files.readString(Paths.get(args[0]), StandardCharsets.UTF_8);
+
+        // 変換結果はUTF-8のままバッファにため、まとめて標準出力へ書く
+        Utf8Writer out = Utf8Writer.toStandardOutput();
+        // 入れ子の深いコードでスタックが溢れたら、大きなスタックでやり直す
+        DeepStack.run(() -> run(javaCode, out));
+        out.flush();
+    }
+
+    /**
+     * Javaコードを解析して変換し、結果を out に書く
+     * 構文エラーの場合は標準エラーへ問題点を出力する
+     */
+    private static void run(String javaCode, Appendable out) throws IOException {
+
+        JavaParser parser = createParser();
         ParseResult<CompilationUnit> result = parser.parse(javaCode);
         if (!result.isSuccessful()) {
             System.err.println("構文木作成に失敗しました");
@@ -59,98 +80,67 @@ public class JavaToNadeshikoConverter {
         }
         CompilationUnit cu = result.getResult().get();
 
-        // インデントマネージャーを初期化
-        IndentManager.clear();
+        convert(cu, javaCode, out);
+    }
 
-        // --- 変換処理 ---
-        // 1. 最初にクラスとメソッドを処理し、インデントの骨格を作る
-        List<ClassConverter.Item> classes = ClassConverter.convert(cu);
-        List<MethodConverter.Item> methods = MethodConverter.convert(cu);
-
-        // 2. その他の要素を変換
-        //    コメントはインデント情報が記録された後に処理する必要があるため、MethodConverterの後に呼び出す
-        List<ForStatementConverter.Item> forStatements = ForStatementConverter.convert(cu);
-        List<WhileStatementConverter.Item> whileStatements = WhileStatementConverter.convert(cu);
-        List<IfStatementConverter.Item> ifStatements = IfStatementConverter.convert(cu);
-        List<SwitchStatementConverter.Item> switchStatements = SwitchStatementConverter.convert(cu);
-        List<TryCatchConverter.Item> trys = TryCatchConverter.convert(cu);
-        List<FieldConverter.Item> fields = FieldConverter.convert(cu);
-        List<ArrayConverter.Item> arrays = ArrayConverter.convert(cu);
-        List<CommentConverter.Item> comments = CommentConverter.convert(cu);
-        List<VariableInitConverter.Item> variables = VariableInitConverter.convert(cu);
-        List<PrintlnConverter.Item> prints = PrintlnConverter.convert(cu);
-        List<PackageConverter.Item> packages = PackageConverter.convert(cu);
-        List<ImportConverter.Item> imports = ImportConverter.convert(cu);
-        List<ThrowStatementConverter.Item> throwes = ThrowStatementConverter.convert(cu);
-
-        List<Item> all = new ArrayList<>();
-        for (ForStatementConverter.Item f : forStatements)
-            all.add(new Item(f.line, f.content, 50));
-        for (WhileStatementConverter.Item w : whileStatements)
-            all.add(new Item(w.line, w.content, 50));
-        for (IfStatementConverter.Item i : ifStatements)
-            all.add(new Item(i.line, i.content, i.priority));
-        for (SwitchStatementConverter.Item i : switchStatements)
-            all.add(new Item(i.line, i.content, 50));
-        for (FieldConverter.Item p : fields)
-            all.add(new Item(p.line, p.content, 50));
-        for (ArrayConverter.Item a : arrays) // 優先度をコメントより低く設定
-            all.add(new Item(a.line, a.content, 50));
-        for (CommentConverter.Item c : comments)
-            all.add(new Item(c.line, c.content, c.priority)); // コメントの優先度を高く設定
-        for (VariableInitConverter.Item v : variables)
-            all.add(new Item(v.line, v.content, 50));
-        for (MethodConverter.Item m : methods)
-            all.add(new Item(m.line, m.content, m.priority));
-        for (PrintlnConverter.Item p : prints)
-            all.add(new Item(p.line, p.content, 50));
-        for (PackageConverter.Item p : packages)
-            all.add(new Item(p.line, p.content, 50));
-        for (ImportConverter.Item p : imports)
-            all.add(new Item(p.line, p.content, 50));
-        for (ClassConverter.Item p : classes)
-            all.add(new Item(p.line, p.content, 50));
-        for (ThrowStatementConverter.Item p : throwes)
-            all.add(new Item(p.line, p.content, 50));
-        for (TryCatchConverter.Item p : trys)
-            all.add(new Item(p.line, p.content, 50));
-        // for (TestConverter.Item p : tests)
-        // all.add(new Item(p.line, p.content, 50));
-
-        // 行番号ごとに変換結果をグループ化
-        Map<Integer, List<Item>> itemsByLine = new TreeMap<>();
-        for (Item item : all) {
-            itemsByLine.computeIfAbsent(item.line, k -> new ArrayList<>()).add(item);
-        }
+    /**
+     * Javaコードを解析して変換し、結果を result に書く
+     * 入れ子の深いコードでスタックが溢れたら、result を空にして大きなスタックでやり直す (DeepStack を参照)
+     * 最も大きなスタックでも溢れた場合は StackOverflowError を投げる
+     * @return 構文エラーの問題点。解析できた場合は空
+     */
+    static List<Problem> convertSource(JavaParser parser, String javaCode, StringBuilder result) throws IOException {
+        List<Problem> problems = new ArrayList<>();
+        DeepStack.run(() -> {
+            result.setLength(0);
+            ParseResult<CompilationUnit> parsed = parser.parse(javaCode);
+            if (!parsed.isSuccessful()) {
+                problems.addAll(parsed.getProblems());
+                return;
+            }
+            convert(parsed.getResult().get(), javaCode, result);
+        });
+        return problems;
+    }
 
-        // 元のコードを行に分割
+    /**
+     * 変換に使うパーサーを生成する
+     * 常駐モードでは一度だけ生成して使い回す
+     */
+    static JavaParser createParser() {
+        ParserConfiguration config = new ParserConfiguration();
+        // Java 16以上に設定（instanceof パターンマッチング対応）
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_16);
+        return new JavaParser(config);
+    }
+
+    /**
+     * 構文木をなでしこコードに変換し、1行ずつ out に追記する
+     * @param cu 構文木
+     * @param javaCode 元のJavaコード(空行の判定に使用)
+     * @param out 出力先 (StringBuilder や Utf8Writer)
+     */
+    static void convert(CompilationUnit cu, String javaCode, Appendable out) throws IOException {
+        // 元のコードを行に分割 (インデント表の大きさにも使う)
         String[] sourceLines = javaCode.split("\r\n|\r|\n", -1);
 
+        // --- 変換処理 ---
+        // 構文木を1回だけ走査し、全ての変換クラスに振り分ける (実行順は ConversionEngine を参照)
+        // インデントなどの状態は変換ごとのコンテキストに持つので、複数の変換を同時に実行できる
+        OutputBuffer result = ConversionEngine.convert(cu, new ConversionContext(sourceLines.length));
+
+        // 行番号ごとに並べ、同じ行の中は優先度順にする (ConversionEngine の GROUP_* も参照)
+        result.sortByLine(sourceLines.length);
+
         // 1行目から最終行までループ
         for (int i = 1; i <= sourceLines.length; i++) {
-            if (itemsByLine.containsKey(i)) {
+            if (result.hasLine(i)) {
                 // この行に変換されたコンテンツがある場合
-                List<Item> lineItems = itemsByLine.get(i);
-                lineItems.sort(Comparator.comparingInt(item -> item.priority));
-                for (Item item : lineItems) {
-                    System.out.println(item.content);
-                }
+                result.appendLine(i, out);
             } else if (sourceLines[i - 1].trim().isEmpty()) {
                 // 変換されたコンテンツがなく、元の行が空行の場合
-                System.out.println();
+                out.append('\n');
             }
         }
     }
-
-    static class Item {
-        int line;
-        String content;
-        int priority;
-
-        Item(int line, String content, int priority) {
-            this.line = line;
-            this.content = content;
-            this.priority = priority;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,420 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.Problem;
+
+import converter.Utf8Writer;
+
+/**
+ * 1行1件の JSON (JSON Lines) で受け取った多数の短いコードを、1つのJVMで同時に変換するクラス
+ *
+ * 採点などで大量の提出を一度に変換するときに、提出ごとに一時ファイルとJVMを用意しなくて済むようにする。
+ * 標準入力の各行の "id" と "source" を読み、fork-join プールで変換して、終わった順に標準出力へ1行ずつ書く。
+ * 同時に抱える要求の数に上限を設け、読み込みが変換を追い越さないようにするので、入力がいくら多くてもメモリは増えない。
+ * <pre>
+ * 要求: {"id": "a1", "source": "class A { ... }"}
+ * 応答: {"id":"a1","output":"...","problems":[],"elapsedMicros":1234}
+ * </pre>
+ * id は文字列・数値のどちらでもよく、受け取った形のまま返す。他のキーは無視する。
+ * 構文エラーや JSON として読めない行は problems に理由を入れて返す (読めない行の id は null)。
+ * 空行は読み飛ばす。標準入力が閉じられ、全ての結果を書いたら終了する。
+ */
+public class JsonLinesConverter {
+
+    // スレッドごとに、同時に抱える要求の数
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    private final BufferedReader in;
+    private final int threads;
+    private final Utf8Writer out = Utf8Writer.toStandardOutput();
+
+    // JavaParser はスレッドセーフでないので、スレッドごとに作って使い回す
+    private final ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(JavaToNadeshikoConverter::createParser);
+
+    /**
+     * @param threads 同時に変換するスレッドの数
+     */
+    public JsonLinesConverter(InputStream in, int threads) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.threads = threads;
+    }
+
+    /**
+     * 標準入力が閉じられるまで要求を読み、全ての結果を書き終えたら戻る
+     */
+    public void run() throws IOException, InterruptedException {
+        int maxInFlight = threads * IN_FLIGHT_PER_THREAD;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                inFlight.acquire();
+                String request = line;
+                pool.execute(() -> {
+                    try {
+                        respond(request);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            // 全ての要求の結果を書き終えるまで待つ
+            inFlight.acquire(maxInFlight);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 1件の要求を変換して結果を書く。例外は投げない
+     */
+    private void respond(String request) {
+        long start = System.nanoTime();
+        Request parsed;
+        try {
+            parsed = Request.parse(request);
+        } catch (IllegalArgumentException e) {
+            // JSON として読めない行は id も分からないので null で返す
+            write(response("null", "", List.of("不正なJSONです: " + e.getMessage()), start));
+            return;
+        }
+
+        String output = "";
+        List<String> problems = new ArrayList<>();
+        try {
+            StringBuilder result = new StringBuilder();
+            for (Problem problem : JavaToNadeshikoConverter.convertSource(parsers.get(), parsed.source, result)) {
+                problems.add(problem.getMessage());
+            }
+            if (problems.isEmpty()) {
+                output = result.toString();
+            } else {
+                problems.add(0, "構文木作成に失敗しました");
+            }
+        } catch (StackOverflowError e) {
+            problems.add("入れ子が深すぎるため変換できません");
+        } catch (IOException | RuntimeException e) {
+            // 変換中の想定外の例外 (IllegalArgumentException も含む) でも、他の要求の変換は続ける
+            problems.add(e.toString());
+        }
+        write(response(parsed.id, output, problems, start));
+    }
+
+    /**
+     * 1行の結果の JSON を作る
+     * @param id 受け取った JSON のままの id
+     * @param start 要求の処理を始めた時刻 (System.nanoTime)
+     */
+    private static StringBuilder response(String id, String output, List<String> problems, long start) {
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+        StringBuilder response = new StringBuilder(output.length() + 64);
+        response.append("{\"id\":").append(id).append(",\"output\":");
+        appendString(response, output);
+        response.append(",\"problems\":[");
+        for (int i = 0; i < problems.size(); i++) {
+            if (i > 0) {
+                response.append(',');
+            }
+            appendString(response, problems.get(i));
+        }
+        response.append("],\"elapsedMicros\":").append(elapsedMicros).append("}\n");
+        return response;
+    }
+
+    /**
+     * 1行の結果を書き出す。行が混ざらないように、書き出しは1スレッドずつ行う
+     */
+    private synchronized void write(CharSequence response) {
+        try {
+            out.append(response).flush();
+        } catch (IOException e) {
+            // 標準出力に書けなければ結果を返す先がない
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * JSON の文字列として、引用符で囲み必要な文字をエスケープして追記する
+     */
+    static void appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * 1行の要求。JSON のオブジェクトから id と source だけを読む
+     * 読めない場合は IllegalArgumentException を投げる
+     */
+    static final class Request {
+        // 受け取った JSON のまま (文字列なら引用符とエスケープも含む)
+        final String id;
+        final String source;
+
+        private final String text;
+        private int pos;
+
+        private Request(String text) {
+            this.text = text;
+            String idValue = null;
+            String sourceValue = null;
+            skipSpaces();
+            expect('{');
+            skipSpaces();
+            if (!consume('}')) {
+                do {
+                    skipSpaces();
+                    String key = readString();
+                    skipSpaces();
+                    expect(':');
+                    skipSpaces();
+                    if ("id".equals(key)) {
+                        int begin = pos;
+                        char c = peek();
+                        if (c == '"') {
+                            readString();
+                        } else if (c == '-' || (c >= '0' && c <= '9')) {
+                            skipNumber();
+                        } else {
+                            throw error("id は文字列か数値にしてください");
+                        }
+                        idValue = text.substring(begin, pos);
+                    } else if ("source".equals(key)) {
+                        sourceValue = readString();
+                    } else {
+                        skipValue();
+                    }
+                    skipSpaces();
+                } while (consume(','));
+                expect('}');
+            }
+            skipSpaces();
+            if (pos != text.length()) {
+                throw error("オブジェクトの後ろに余分な文字があります");
+            }
+            if (idValue == null) {
+                throw error("id がありません");
+            }
+            if (sourceValue == null) {
+                throw error("source がありません");
+            }
+            this.id = idValue;
+            this.source = sourceValue;
+        }
+
+        static Request parse(String line) {
+            return new Request(line);
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw error("文字列が閉じられていません");
+                }
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c < 0x20) {
+                    throw error("文字列の中に制御文字があります");
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    throw error("文字列が閉じられていません");
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        sb.append(escaped);
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("\\u の後ろに16進数4桁がありません");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("\\u の後ろに16進数4桁がありません");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        throw error("不正なエスケープ \\" + escaped + " です");
+                }
+            }
+        }
+
+        private void skipNumber() {
+            int begin = pos;
+            consume('-');
+            while (pos < text.length() && "0123456789.eE+-".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            String number = text.substring(begin, pos);
+            if (!number.matches("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?")) {
+                throw error("不正な数値 " + number + " です");
+            }
+        }
+
+        /**
+         * 使わないキーの値を読み飛ばす
+         * 入れ子の深い配列・オブジェクトでもスタックが溢れないよう、再帰せずに閉じ括弧を積んでたどる
+         */
+        private void skipValue() {
+            // まだ閉じていない配列・オブジェクトの閉じ括弧
+            StringBuilder closes = new StringBuilder();
+            while (true) {
+                // 値を1つ読む。空でない配列・オブジェクトなら開いて、最初の要素へ進む
+                char c = peek();
+                if (c == '{' || c == '[') {
+                    char close = c == '{' ? '}' : ']';
+                    pos++;
+                    skipSpaces();
+                    if (!consume(close)) {
+                        closes.append(close);
+                        skipKey(close);
+                        continue;
+                    }
+                } else {
+                    skipScalar();
+                }
+                // 値の後ろ: 次の要素があればそこへ進み、なければ閉じられるだけ閉じる
+                while (true) {
+                    if (closes.length() == 0) {
+                        return;
+                    }
+                    char close = closes.charAt(closes.length() - 1);
+                    skipSpaces();
+                    if (consume(',')) {
+                        skipSpaces();
+                        skipKey(close);
+                        break;
+                    }
+                    expect(close);
+                    closes.setLength(closes.length() - 1);
+                }
+            }
+        }
+
+        /**
+         * オブジェクトの要素なら、値の前のキーと ':' を読み飛ばす
+         */
+        private void skipKey(char close) {
+            if (close == '}') {
+                readString();
+                skipSpaces();
+                expect(':');
+                skipSpaces();
+            }
+        }
+
+        private void skipScalar() {
+            char c = peek();
+            if (c == '"') {
+                readString();
+            } else if (c == '-' || (c >= '0' && c <= '9')) {
+                skipNumber();
+            } else if (text.startsWith("true", pos)) {
+                pos += 4;
+            } else if (text.startsWith("false", pos)) {
+                pos += 5;
+            } else if (text.startsWith("null", pos)) {
+                pos += 4;
+            } else {
+                throw error("値がありません");
+            }
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && " \t\r\n".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+        }
+
+        private char peek() {
+            if (pos >= text.length()) {
+                throw error("行の途中で終わっています");
+            }
+            return text.charAt(pos);
+        }
+
+        private boolean consume(char c) {
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("'" + c + "' がありません");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " (" + (pos + 1) + "文字目)");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package bench;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+
+/**
+ * 大きな固定長配列の宣言を変換しても、出力の長さと変換時間が宣言された要素数に比例しないことを確かめる
+ *
+ * 要素数 10^6 と 10^8 の配列を1次元・2次元・3次元で宣言したコードを変換し、
+ * 出力の長さと変換時間を表示する。出力が一定の長さを超えた場合は失敗する。
+ * <pre>
+ * mvn -B compile exec:java -Dexec.mainClass=bench.ArrayScalingCheck
+ * </pre>
+ */
+public class ArrayScalingCheck {
+
+    // 配列宣言1つあたりの出力の上限 (要素を書き出していればこれを大きく超える)
+    private static final int MAX_OUTPUT_PER_ARRAY = 100;
+    private static final int RUNS = 200;
+
+    public static void main(String[] args) {
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_16);
+        JavaParser parser = new JavaParser(config);
+
+        for (long elements : new long[] {1_000_000L, 100_000_000L}) {
+            CompilationUnit cu = parser.parse(source(elements)).getResult().orElseThrow();
+
+            String output = FusedTraversalBenchmark.convertFused(cu);
+            if (output.length() > MAX_OUTPUT_PER_ARRAY * 4) {
+                throw new IllegalStateException(elements + "要素: 出力が長すぎます (" + output.length() + "文字)");
+            }
+
+            for (int i = 0; i < RUNS; i++) {
+                FusedTraversalBenchmark.convertFused(cu); // ウォームアップ
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < RUNS; i++) {
+                FusedTraversalBenchmark.convertFused(cu);
+            }
+            double micros = (System.nanoTime() - start) / 1e3 / RUNS;
+            System.out.printf("%,d要素: 出力 %d文字 / 変換 %.1f μs%n", elements, output.length(), micros);
+        }
+    }
+
+    /**
+     * 指定した要素数の配列を、フィールド・ローカル変数・代入の形で宣言するコードを作る
+     */
+    private static String source(long elements) {
+        return "public class Arrays {\n"
+                + "    int[] flat = new int[" + elements + "];\n"
+                + "    void f() {\n"
+                + "        long[][] grid = new long[1000][" + elements / 1000 + "];\n"
+                + "        boolean[][][] cube;\n"
+                + "        cube = new boolean[100][100][" + elements / 10_000 + "];\n"
+                + "        double[][] rows = new double[" + elements / 10 + "][10];\n"
+                + "    }\n"
+                + "}\n";
+    }
+}
@@ -0,0 +1,81 @@
+package bench;
+
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.EnclosedExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+
+import converter.ExpressionConverter;
+
+/**
+ * 項が非常に多い文字列連結(a + b + c + ... が左に深く入れ子になった式)を、スタックを溢れさせずに変換できることを確かめる
+ *
+ * 10万項の連結の構文木を組み立てて変換し、結果が項ごとに期待した「…{x}…」の形になっているかと、
+ * 変換時間を表示する。文字列リテラルが括弧の中にしかない、数値の + の連なりが文字列連結と判定されないことも確かめる。
+ * (JavaParser の解析は深い入れ子のコメント処理で再帰するので、構文木は直接組み立てる)
+ * <pre>
+ * mvn -B compile exec:java -Dexec.mainClass=bench.ConcatenationDepthCheck [-Dexec.args="項の数"]
+ * </pre>
+ */
+public class ConcatenationDepthCheck {
+
+    public static void main(String[] args) {
+        int operands = args.length == 0 ? 100_000 : Integer.parseInt(args[0]);
+
+        StringBuilder expected = new StringBuilder("「");
+        Expression chain = null;
+        for (int i = 0; i < operands; i++) {
+            Expression term = term(i, expected);
+            chain = chain == null ? term : new BinaryExpr(chain, term, BinaryExpr.Operator.PLUS);
+        }
+        expected.append("」");
+
+        long start = System.nanoTime();
+        String actual = ExpressionConverter.convertExpression(chain);
+        double millis = (System.nanoTime() - start) / 1e6;
+        if (!expected.toString().equals(actual)) {
+            throw new IllegalStateException(operands + "項: 変換結果が期待と異なります");
+        }
+        System.out.printf("%,d項: 出力 %,d文字 / 変換 %.1f ms%n", operands, actual.length(), millis);
+
+        // 文字列リテラルが括弧の中にしかなければ、文字列連結ではない
+        Expression numeric = new NameExpr("n");
+        for (int i = 0; i < operands; i++) {
+            Expression right = i == operands / 2
+                    ? new EnclosedExpr(new BinaryExpr(new NameExpr("x"), new StringLiteralExpr("y"), BinaryExpr.Operator.PLUS))
+                    : new IntegerLiteralExpr(String.valueOf(i));
+            numeric = new BinaryExpr(numeric, right, BinaryExpr.Operator.PLUS);
+        }
+        if (ExpressionConverter.containsStringLiteral(numeric)) {
+            throw new IllegalStateException(operands + "項: 括弧の中の文字列リテラルで文字列連結と判定されました");
+        }
+        System.out.printf("%,d項: 括弧の中だけに文字列リテラルがある連なりは文字列連結ではない%n", operands);
+    }
+
+    /**
+     * i 番目の項を作り、期待する変換結果を expected に追記する
+     */
+    private static Expression term(int i, StringBuilder expected) {
+        switch (i % 5) {
+            case 0:
+                expected.append("行").append(i).append("{タブ}");
+                return new StringLiteralExpr("行" + i + "\\t");
+            case 1:
+                expected.append("{v").append(i).append('}');
+                return new NameExpr("v" + i);
+            case 2:
+                expected.append('{').append(i).append('}');
+                return new IntegerLiteralExpr(String.valueOf(i));
+            case 3:
+                expected.append("{objのf").append(i).append('}');
+                return new FieldAccessExpr(new NameExpr("obj"), "f" + i);
+            default:
+                // ( ... ) の中の連結も展開する
+                expected.append("{a}(").append(i).append(')');
+                return new EnclosedExpr(new BinaryExpr(new NameExpr("a"), new StringLiteralExpr("(" + i + ")"), BinaryExpr.Operator.PLUS));
+        }
+    }
+}
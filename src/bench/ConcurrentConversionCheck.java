@@ -0,0 +1,72 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+
+/**
+ * 1つのJVMで複数のファイルを同時に変換しても、1つずつ変換したときと同じ結果になることを確かめる
+ *
+ * 大きさの違うコードを用意し、まず1スレッドで変換して期待値を作る。
+ * その後、複数のスレッドから同時に変換を繰り返し、結果を期待値と比べる。
+ * <pre>
+ * mvn -B compile exec:java -Dexec.mainClass=bench.ConcurrentConversionCheck [-Dexec.args="スレッド数 繰り返し回数"]
+ * </pre>
+ */
+public class ConcurrentConversionCheck {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        List<String> sources = new ArrayList<>();
+        for (int lines = 200; lines <= 2_000; lines += 300) {
+            sources.add(JavaSourceGenerator.generate(lines));
+        }
+        List<String> expected = new ArrayList<>();
+        for (String source : sources) {
+            expected.add(convert(source));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                results.add(pool.submit(() -> {
+                    int mismatches = 0;
+                    for (int round = 0; round < rounds; round++) {
+                        // スレッドごとに違う順番で変換し、別々のファイルが同時に変換されるようにする
+                        int index = (offset + round) % sources.size();
+                        if (!convert(sources.get(index)).equals(expected.get(index))) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+            int mismatches = 0;
+            for (Future<Integer> result : results) {
+                mismatches += result.get();
+            }
+            System.out.printf("%dスレッド x %d回: 不一致 %d件%n", threads, rounds, mismatches);
+            if (mismatches > 0) {
+                System.exit(1);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // JavaParser はスレッドセーフではないので、変換ごとに生成する
+    private static String convert(String source) {
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_16);
+        return FusedTraversalBenchmark.convertFused(new JavaParser(config).parse(source).getResult().orElseThrow());
+    }
+}
@@ -0,0 +1,182 @@
+package bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+
+import converter.ConversionContext;
+import converter.ConversionEngine;
+import converter.DeepStack;
+import converter.IndentManager;
+import converter.OutputBuffer;
+
+/**
+ * 入れ子の深いコードを、スタックを溢れさせずに変換できることを確かめるストレステスト
+ *
+ * ブロック(if/for/while/try)、return を含む if、else if の連鎖、メソッド呼び出しと括弧、三項演算子、+ の連なりを
+ * それぞれ 100段・1,000段・10,000段 入れ子にしたコードを生成し、変換器と同じく DeepStack の中で解析・変換する。
+ * ブロックは最も内側の文が入れ子の深さどおりにインデントされているか、
+ * return を含む if は if の外の return が出力されているか、
+ * 他は最も内側の項まで出力されているかを確かめ、変換時間を表示する。
+ * <pre>
+ * mvn -B compile exec:java -Dexec.mainClass=bench.DeepNestingCheck [-Dexec.args="段数..."]
+ * </pre>
+ */
+public class DeepNestingCheck {
+
+    public static void main(String[] args) {
+        int[] depths = args.length == 0 ? new int[] {100, 1_000, 10_000} : parseDepths(args);
+        for (int depth : depths) {
+            check("ブロック", depth, DeepNestingCheck::blocks,
+                    // クラスが0段、メソッド本体が2段目なので、最も内側の文は depth + 2 段
+                    (out, n) -> out.startsWith(IndentManager.indentOf(n + 2) + "a は (a + " + (n - 1) + ")"),
+                    n -> n + 3);
+            check("if と return", depth, DeepNestingCheck::returns,
+                    (out, n) -> out.startsWith(IndentManager.indentOf(2) + "-1を戻す。"), n -> 3 * n + 4);
+            check("else if", depth, DeepNestingCheck::elseIfChain,
+                    (out, n) -> out.contains("(a = " + (n - 1) + ")ならば"), n -> -1);
+            check("呼び出しと括弧", depth, DeepNestingCheck::calls,
+                    (out, n) -> out.contains("f(a)"), n -> -1);
+            check("三項演算子", depth, DeepNestingCheck::conditionals,
+                    (out, n) -> out.contains("ならば(" + (n - 1) + ")"), n -> -1);
+            check("+ の連なり", depth, DeepNestingCheck::plusChain,
+                    (out, n) -> out.contains(" + " + (n - 1)), n -> -1);
+        }
+    }
+
+    private interface Expectation {
+        boolean test(String output, int depth);
+    }
+
+    /**
+     * @param line 確かめる行 (depth から求める)。-1 なら出力全体を確かめる
+     */
+    private static void check(String name, int depth, IntFunction<String> generator, Expectation expectation,
+            IntUnaryOperator line) {
+        String source = generator.apply(depth);
+        String[] output = new String[1];
+        long start = System.nanoTime();
+        DeepStack.run(() -> output[0] = convert(source, line.applyAsInt(depth)));
+        double millis = (System.nanoTime() - start) / 1e6;
+        if (!expectation.test(output[0], depth)) {
+            throw new IllegalStateException(name + " " + depth + "段: 変換結果が期待と異なります");
+        }
+        System.out.printf("%s %,d段: %.1f ms%n", name, depth, millis);
+    }
+
+    private static String convert(String source, int line) {
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_16);
+        CompilationUnit cu = new JavaParser(config).parse(source).getResult().orElseThrow();
+        int lineCount = cu.getEnd().map(p -> p.line).orElse(0);
+        OutputBuffer out = ConversionEngine.convert(cu, new ConversionContext(lineCount));
+        out.sortByLine(lineCount);
+
+        // 入れ子の深いブロックの出力は段数の2乗に比例して大きいので、指定した行だけを取り出す
+        StringBuilder sb = new StringBuilder();
+        try {
+            if (line != -1) {
+                out.appendLine(line, sb);
+            } else {
+                for (int i = 1; i <= lineCount; i++) {
+                    if (out.hasLine(i)) {
+                        out.appendLine(i, sb);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    // 最も内側の文は depth + 3 行目
+    private static String blocks(int depth) {
+        StringBuilder sb = new StringBuilder("public class Blocks {\n    void f(int a) {\n");
+        for (int i = 0; i < depth; i++) {
+            switch (i % 4) {
+                case 0:
+                    sb.append("if (a > ").append(i).append(") {\n");
+                    break;
+                case 1:
+                    sb.append("for (int i").append(i).append(" = 0; i").append(i).append(" < a; i").append(i).append("++) {\n");
+                    break;
+                case 2:
+                    sb.append("while (a < ").append(i).append(") {\n");
+                    break;
+                default:
+                    sb.append("try {\n");
+                    break;
+            }
+        }
+        sb.append("a = a + ").append(depth - 1).append(";\n");
+        for (int i = depth - 1; i >= 0; i--) {
+            sb.append(i % 4 == 3 ? "} catch (Exception e" + i + ") {\n}\n" : "}\n");
+        }
+        return sb.append("    }\n}\n").toString();
+    }
+
+    // 各段の if の後ろに return があり、if の外の return は 3 * depth + 4 行目
+    private static String returns(int depth) {
+        StringBuilder sb = new StringBuilder("public class Returns {\n    int f(int a) {\n");
+        for (int i = 0; i < depth; i++) {
+            sb.append("if (a > ").append(i).append(") {\n");
+        }
+        sb.append("a = ").append(depth).append(";\n");
+        for (int i = depth - 1; i >= 0; i--) {
+            sb.append("return ").append(i).append(";\n}\n");
+        }
+        return sb.append("return -1;\n    }\n}\n").toString();
+    }
+
+    private static String elseIfChain(int depth) {
+        StringBuilder sb = new StringBuilder("public class ElseIf {\n    void f(int a) {\n");
+        for (int i = 0; i < depth; i++) {
+            sb.append(i == 0 ? "if" : "} else if").append(" (a == ").append(i).append(") {\na = ").append(i).append(";\n");
+        }
+        return sb.append("}\n    }\n}\n").toString();
+    }
+
+    private static String calls(int depth) {
+        StringBuilder sb = new StringBuilder("a");
+        for (int i = 0; i < depth; i++) {
+            if (i % 2 == 0) {
+                sb.insert(0, "f(").append(')');
+            } else {
+                sb.insert(0, '(').append(" + ").append(i).append(')');
+            }
+        }
+        return "public class Calls {\n    int f(int x) { return x; }\n    void g(int a) {\n        int b = "
+                + sb + ";\n    }\n}\n";
+    }
+
+    private static String conditionals(int depth) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sb.append("a > ").append(i).append(" ? ").append(i).append(" : ");
+        }
+        sb.append("-1");
+        return "public class Conditionals {\n    void f(int a) {\n        int b = " + sb + ";\n    }\n}\n";
+    }
+
+    private static String plusChain(int depth) {
+        StringBuilder sb = new StringBuilder("a");
+        for (int i = 0; i < depth; i++) {
+            sb.append(" + ").append(i);
+        }
+        return "public class Plus {\n    void f(int a) {\n        int b = " + sb + ";\n    }\n}\n";
+    }
+
+    private static int[] parseDepths(String[] args) {
+        int[] depths = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            depths[i] = Integer.parseInt(args[i]);
+        }
+        return depths;
+    }
+}
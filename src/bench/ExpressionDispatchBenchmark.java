@@ -0,0 +1,59 @@
+package bench;
+
+import java.util.List;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.Expression;
+
+import converter.ExpressionConverter;
+
+/**
+ * ExpressionConverter.convertExpression の、式1つあたりの変換時間を測るマイクロベンチマーク
+ *
+ * 生成したJavaコード(既定で1万行)の全ての式(部分式も含む)を1つずつ変換し、式1つあたりの時間を表示する。
+ * 公開されている convertExpression だけを使うので、変更の前後の木で同じように動かして比べられる。
+ * 変換結果のハッシュ値も表示するので、前後で結果が変わっていないことも確かめられる。
+ * <pre>
+ * mvn -B compile exec:java -Dexec.mainClass=bench.ExpressionDispatchBenchmark [-Dexec.args="行数"]
+ * </pre>
+ */
+public class ExpressionDispatchBenchmark {
+
+    private static final int WARMUP = 20;
+    private static final int RUNS = 30;
+
+    public static void main(String[] args) {
+        int lines = args.length == 0 ? 10_000 : Integer.parseInt(args[0]);
+
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_16);
+        JavaParser parser = new JavaParser(config);
+        CompilationUnit cu = parser.parse(JavaSourceGenerator.generate(lines)).getResult().orElseThrow();
+        List<Expression> expressions = cu.findAll(Expression.class);
+
+        int checksum = convertAll(expressions);
+        for (int i = 0; i < WARMUP; i++) {
+            convertAll(expressions);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            if (convertAll(expressions) != checksum) {
+                throw new IllegalStateException("変換結果が実行ごとに変わります");
+            }
+        }
+        double perExpression = (double) (System.nanoTime() - start) / RUNS / expressions.size();
+        System.out.printf("%,d行 / 式 %,d個: 式1つあたり %.1f ns (結果のハッシュ値 %08x)%n",
+                lines, expressions.size(), perExpression, checksum);
+    }
+
+    private static int convertAll(List<Expression> expressions) {
+        int hash = 0;
+        for (Expression expr : expressions) {
+            String result = ExpressionConverter.convertExpression(expr);
+            hash = 31 * hash + (result == null ? 0 : result.hashCode());
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,151 @@
+package bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+
+import converter.ArrayConverter;
+import converter.ClassConverter;
+import converter.CommentConverter;
+import converter.ConversionContext;
+import converter.ConversionEngine;
+import converter.FieldConverter;
+import converter.ForStatementConverter;
+import converter.IfStatementConverter;
+import converter.ImportConverter;
+import converter.MethodConverter;
+import converter.OutputBuffer;
+import converter.PackageConverter;
+import converter.PrintlnConverter;
+import converter.SwitchStatementConverter;
+import converter.ThrowStatementConverter;
+import converter.TryCatchConverter;
+import converter.VariableInitConverter;
+import converter.WhileStatementConverter;
+
+/**
+ * 変換クラスごとに構文木を走査する方法と、ConversionEngine で1回だけ走査する方法を比べるベンチマーク
+ *
+ * 生成した大きなJavaコード(既定で1万行と5万行)を一度だけ解析し、変換だけの時間を測る。
+ * 測定の前に、両者の変換結果が完全に一致することを確かめる。
+ * <pre>
+ * mvn -B compile exec:java -Dexec.mainClass=bench.FusedTraversalBenchmark [-Dexec.args="行数..."]
+ * </pre>
+ */
+public class FusedTraversalBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[] {10_000, 50_000} : parseSizes(args);
+
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_16);
+        JavaParser parser = new JavaParser(config);
+
+        for (int lines : sizes) {
+            CompilationUnit cu = parser.parse(JavaSourceGenerator.generate(lines)).getResult().orElseThrow();
+
+            String expected = convertPerConverter(cu);
+            String actual = convertFused(cu);
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException(lines + "行: 変換結果が一致しません");
+            }
+
+            for (int i = 0; i < WARMUP; i++) {
+                convertPerConverter(cu);
+                convertFused(cu);
+            }
+            double perConverter = measure(() -> convertPerConverter(cu));
+            double fused = measure(() -> convertFused(cu));
+            System.out.printf("%,d行: 変換クラスごとに走査 %.1f ms / 1回の走査 %.1f ms (%.2f倍)%n",
+                    lines, perConverter, fused, perConverter / fused);
+        }
+    }
+
+    private static int[] parseSizes(String[] args) {
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        return sizes;
+    }
+
+    private static double measure(Runnable conversion) {
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            conversion.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+
+    /**
+     * 以前と同じく、変換クラスごとに cu.accept(...) で走査する
+     */
+    private static String convertPerConverter(CompilationUnit cu) {
+        ConversionContext context = new ConversionContext(lineCount(cu));
+        OutputBuffer out = new OutputBuffer();
+        out.beginGroup(ConversionEngine.GROUP_CLASS);
+        ClassConverter.convert(cu, context, out);
+        out.beginGroup(ConversionEngine.GROUP_METHOD);
+        MethodConverter.convert(cu, context, out);
+        out.beginGroup(ConversionEngine.GROUP_FOR);
+        ForStatementConverter.convert(cu, context, out);
+        out.beginGroup(ConversionEngine.GROUP_WHILE);
+        WhileStatementConverter.convert(cu, context, out);
+        out.beginGroup(ConversionEngine.GROUP_IF);
+        IfStatementConverter.convert(cu, context, out);
+        out.beginGroup(ConversionEngine.GROUP_SWITCH);
+        SwitchStatementConverter.convert(cu, context, out);
+        out.beginGroup(ConversionEngine.GROUP_TRY);
+        TryCatchConverter.convert(cu, context, out);
+        out.beginGroup(ConversionEngine.GROUP_FIELD);
+        FieldConverter.convert(cu, context, out);
+        out.beginGroup(ConversionEngine.GROUP_ARRAY);
+        ArrayConverter.convert(cu, context, out);
+        out.beginGroup(ConversionEngine.GROUP_COMMENT);
+        CommentConverter.convert(cu, context, out);
+        out.beginGroup(ConversionEngine.GROUP_VARIABLE);
+        VariableInitConverter.convert(cu, context, out);
+        out.beginGroup(ConversionEngine.GROUP_PRINT);
+        PrintlnConverter.convert(cu, context, out);
+        out.beginGroup(ConversionEngine.GROUP_PACKAGE);
+        PackageConverter.convert(cu, out);
+        out.beginGroup(ConversionEngine.GROUP_IMPORT);
+        ImportConverter.convert(cu, out);
+        out.beginGroup(ConversionEngine.GROUP_THROW);
+        ThrowStatementConverter.convert(cu, context, out);
+        return canonical(out, lineCount(cu));
+    }
+
+    static String convertFused(CompilationUnit cu) {
+        return canonical(ConversionEngine.convert(cu, new ConversionContext(lineCount(cu))), lineCount(cu));
+    }
+
+    /**
+     * 行番号順に並べた変換結果を、行ごとに「行番号:」に続けてつなげる
+     */
+    static String canonical(OutputBuffer out, int lineCount) {
+        out.sortByLine(lineCount);
+        StringBuilder sb = new StringBuilder();
+        for (int line = 1; line <= lineCount; line++) {
+            if (out.hasLine(line)) {
+                sb.append(line).append(':');
+                try {
+                    out.appendLine(line, sb);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    static int lineCount(CompilationUnit cu) {
+        return cu.getEnd().map(p -> p.line).orElse(0);
+    }
+}
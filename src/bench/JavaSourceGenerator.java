@@ -0,0 +1,92 @@
+package bench;
+
+/**
+ * ベンチマーク用に、変換器が扱う構文をひととおり含む大きなJavaコードを生成する
+ *
+ * 生成するコードは毎回同じ(乱数を使わない)なので、結果を比べることができる。
+ */
+public class JavaSourceGenerator {
+
+    /**
+     * おおよそ指定した行数のJavaコードを生成する
+     * @param targetLines 目標の行数
+     */
+    public static String generate(int targetLines) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package bench.generated;\n\n");
+        sb.append("import java.util.ArrayList;\n");
+        sb.append("import java.util.List;\n\n");
+        sb.append("/**\n * 生成されたクラス\n */\n");
+        sb.append("public class Generated {\n");
+        sb.append("    private int count;\n");
+        sb.append("    private String name = \"generated\";\n");
+        sb.append("    private final int[] table = {1, 2, 3};\n\n");
+        sb.append("    public Generated(int count) {\n");
+        sb.append("        this.count = count;\n");
+        sb.append("    }\n\n");
+
+        int lines = countLines(sb, 0);
+        int method = 0;
+        while (lines < targetLines - 2) {
+            int start = sb.length();
+            appendMethod(sb, method++);
+            lines += countLines(sb, start);
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static void appendMethod(StringBuilder sb, int n) {
+        sb.append("    // メソッド").append(n).append('\n');
+        sb.append("    public int method").append(n).append("(int a, int b) {\n");
+        sb.append("        int total = 0;\n");
+        sb.append("        int[] values = new int[10];\n");
+        sb.append("        List<String> names = new ArrayList<>();\n");
+        sb.append("        for (int i = 0; i < values.length; i++) {\n");
+        sb.append("            values[i] = i * a + b;\n");
+        sb.append("            total += values[i];\n");
+        sb.append("        }\n");
+        sb.append("        for (String s : names) {\n");
+        sb.append("            System.out.println(\"名前: \" + s);\n");
+        sb.append("        }\n");
+        sb.append("        if (total > 100) {\n");
+        sb.append("            System.out.println(\"大きい\");\n");
+        sb.append("        } else if (total > 10) {\n");
+        sb.append("            total = total - 1;\n");
+        sb.append("        } else {\n");
+        sb.append("            total++;\n");
+        sb.append("        }\n");
+        sb.append("        while (a < b) {\n");
+        sb.append("            a = a + 2;\n");
+        sb.append("        }\n");
+        sb.append("        switch (a % 3) {\n");
+        sb.append("            case 0:\n");
+        sb.append("                total = total * 2;\n");
+        sb.append("                break;\n");
+        sb.append("            case 1:\n");
+        sb.append("                System.out.print(total);\n");
+        sb.append("                break;\n");
+        sb.append("            default:\n");
+        sb.append("                total = 0;\n");
+        sb.append("        }\n");
+        sb.append("        try {\n");
+        sb.append("            names.add(\"x\" + total);\n");
+        sb.append("        } catch (IllegalArgumentException e) {\n");
+        sb.append("            throw new IllegalStateException(\"失敗: \" + e.getMessage());\n");
+        sb.append("        } finally {\n");
+        sb.append("            count++;\n");
+        sb.append("        }\n");
+        sb.append("        String message = \"結果は\" + total + \"です\";\n");
+        sb.append("        System.out.println(message.length());\n");
+        sb.append("        return total + count;\n");
+        sb.append("    }\n\n");
+    }
+
+    private static int countLines(StringBuilder sb, int start) {
+        int lines = 0;
+        for (int i = start; i < sb.length(); i++) {
+            if (sb.charAt(i) == '\n') lines++;
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,97 @@
+package bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * --jsonl モードが、どんな行にも1行ずつ応答を返すことを確かめるチェック
+ *
+ * 変換器を別のJVMで --jsonl モードで起動し、正しい要求・構文エラー・JSON として読めない行・
+ * 使わないキーの下に配列を非常に深く入れ子にした行を送る。
+ * 全ての要求に、期待した id と problems の応答が1行ずつ返り、正常に終了するかを確かめる。
+ * (今のJVMのクラスパスをそのまま使うので、変換器のクラスと同じ場所から実行する)
+ * <pre>
+ * mvn -B compile exec:java -Dexec.mainClass=bench.JsonLinesCheck [-Dexec.args="入れ子の段数"]
+ * </pre>
+ */
+public class JsonLinesCheck {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int depth = args.length == 0 ? 200_000 : Integer.parseInt(args[0]);
+
+        List<String> requests = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        requests.add("{\"id\":\"a\",\"source\":\"class A { void f() { int x = 1; } }\"}");
+        expected.add("{\"id\":\"a\",\"output\":\"関数 fとは\\n　x は 1。\\nここまで。\\nクラス A\\nここまで。\\n\",\"problems\":[]");
+        requests.add("{\"id\":2,\"source\":\"class {\"}");
+        expected.add("{\"id\":2,\"output\":\"\",\"problems\":[\"構文木作成に失敗しました\"");
+        requests.add("{\"id\":3,\"source\":");
+        expected.add("{\"id\":null,\"output\":\"\",\"problems\":[\"不正なJSONです: ");
+        // 使わないキーの値は読み飛ばすだけなので、どれだけ深く入れ子にしても正しい要求として扱う
+        requests.add("{\"id\":4,\"x\":" + "[".repeat(depth) + "{\"k\":[1,\"s\",true,null,{}]}" + "]".repeat(depth)
+                + ",\"source\":\"class B{}\"}");
+        expected.add("{\"id\":4,\"output\":\"クラス B\\nここまで。\\n\",\"problems\":[]");
+        // 深く入れ子にした上で閉じていない行は、JSON として読めない行として応答する
+        requests.add("{\"id\":5,\"x\":" + "[".repeat(depth) + ",\"source\":\"class C{}\"}");
+        expected.add("{\"id\":null,\"output\":\"\",\"problems\":[\"不正なJSONです: ");
+        requests.add("{\"id\":6,\"source\":\"class D{}\"}");
+        expected.add("{\"id\":6,\"output\":\"クラス D\\nここまで。\\n\",\"problems\":[]");
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "JavaToNadeshikoConverter", "--jsonl", "2")
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        // 応答を読みながら送らないと、出力が詰まって止まることがあるので、送るのは別のスレッドで行う
+        Thread writer = new Thread(() -> {
+            try (OutputStream in = process.getOutputStream()) {
+                for (String request : requests) {
+                    in.write((request + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("要求を送れません", e);
+            }
+        });
+        writer.start();
+        String output;
+        try (InputStream out = process.getInputStream()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            out.transferTo(bytes);
+            output = bytes.toString(StandardCharsets.UTF_8);
+        }
+        writer.join();
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("変換器が異常終了しました (code " + exitCode + ")");
+        }
+
+        // 応答は終わった順に返るので、順番は問わず、期待した応答がちょうど1行ずつあるかを確かめる
+        List<String> responses = new ArrayList<>(List.of(output.split("\n")));
+        if (responses.size() != requests.size()) {
+            throw new IllegalStateException(requests.size() + "件の要求に " + responses.size() + "行の応答が返りました");
+        }
+        for (String prefix : expected) {
+            int index = indexOfPrefix(responses, prefix);
+            if (index < 0) {
+                throw new IllegalStateException("応答がありません: " + prefix);
+            }
+            responses.remove(index);
+        }
+        System.out.printf("%d件の要求に1行ずつ応答しました (入れ子 %,d段を含む)%n", requests.size(), depth);
+    }
+
+    private static int indexOfPrefix(List<String> responses, String prefix) {
+        for (int i = 0; i < responses.size(); i++) {
+            if (responses.get(i).startsWith(prefix)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,148 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.LongLiteralExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+
+import converter.LiteralNormalizer;
+import converter.NameResolver;
+
+/**
+ * LiteralNormalizer と、以前使っていた String.replaceAll を比べるベンチマーク
+ *
+ * 数値リテラルの多いコード(生成した参照表)から、変換時に正規化する文字列を集めて両方で処理する。
+ * 測定の前に、集めた文字列と乱数で作った文字列の全てで、両者の結果が一致することを確かめる。
+ * <pre>
+ * mvn -B compile exec:java -Dexec.mainClass=bench.LiteralNormalizerBenchmark [-Dexec.args="表の行数"]
+ * </pre>
+ */
+public class LiteralNormalizerBenchmark {
+
+    private static final int WARMUP = 10;
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) {
+        int rows = args.length == 0 ? 5_000 : Integer.parseInt(args[0]);
+
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_16);
+        JavaParser parser = new JavaParser(config);
+        CompilationUnit cu = parser.parse(lookupTable(rows)).getResult().orElseThrow();
+
+        List<String> texts = new ArrayList<>();
+        List<String> longs = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        for (Expression expr : cu.findAll(Expression.class)) {
+            texts.add(NameResolver.text(expr));
+        }
+        cu.findAll(LongLiteralExpr.class).forEach(literal -> longs.add(literal.getValue()));
+        cu.findAll(ObjectCreationExpr.class).forEach(creation -> types.add(creation.getTypeAsString()));
+
+        List<String> samples = randomSamples(100_000);
+        verify(texts, LiteralNormalizerBenchmark::numericSuffixesRegex, LiteralNormalizer::stripNumericSuffixes);
+        verify(samples, LiteralNormalizerBenchmark::numericSuffixesRegex, LiteralNormalizer::stripNumericSuffixes);
+        verify(longs, value -> value.replaceAll("[Ll]$", ""), LiteralNormalizer::stripLongSuffix);
+        verify(samples, value -> value.replaceAll("[Ll]$", ""), LiteralNormalizer::stripLongSuffix);
+        verify(types, type -> type.replaceAll("<.*?>", ""), LiteralNormalizer::stripTypeArguments);
+        verify(samples, type -> type.replaceAll("<.*?>", ""), LiteralNormalizer::stripTypeArguments);
+        verify(samples, line -> line.replaceAll("[ 　\t]+$", ""), LiteralNormalizer::stripTrailingBlanks);
+
+        report("数値の接尾辞 (式 " + texts.size() + "個)", texts,
+                LiteralNormalizerBenchmark::numericSuffixesRegex, LiteralNormalizer::stripNumericSuffixes);
+        report("long の接尾辞 (" + longs.size() + "個)", longs,
+                value -> value.replaceAll("[Ll]$", ""), LiteralNormalizer::stripLongSuffix);
+        report("型引数 (" + types.size() + "個)", types,
+                type -> type.replaceAll("<.*?>", ""), LiteralNormalizer::stripTypeArguments);
+    }
+
+    private static String numericSuffixesRegex(String value) {
+        value = value.replaceAll("([0-9]+)[Ll]", "$1");
+        return value.replaceAll("([0-9]*\\.?[0-9]+)[FfDd]", "$1");
+    }
+
+    /**
+     * 数値リテラルの表と、型引数付きのオブジェクト生成を並べたクラス
+     */
+    static String lookupTable(int rows) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("import java.util.*;\n\n");
+        sb.append("public class LookupTable {\n");
+        sb.append("    static final long[] LONGS = {\n");
+        for (int i = 0; i < rows; i++) {
+            sb.append("        ").append(i * 7919L).append("L, ").append(i).append("l, 0x").append(Integer.toHexString(i)).append("L,\n");
+        }
+        sb.append("    };\n");
+        sb.append("    static final double[] DOUBLES = {\n");
+        for (int i = 0; i < rows; i++) {
+            sb.append("        ").append(i).append(".25d, ").append(i).append(".5f, .").append(i).append("F, 1e").append(i % 30).append("D,\n");
+        }
+        sb.append("    };\n");
+        sb.append("    void fill() {\n");
+        for (int i = 0; i < rows; i++) {
+            sb.append("        Map<String, List<Integer>> m").append(i).append(" = new HashMap<String, List<Integer>>();\n");
+            sb.append("        long v").append(i).append(" = LONGS[").append(i % 100).append("] * 3L + ").append(i).append("L;\n");
+            sb.append("        float f").append(i).append(" = (float) DOUBLES[").append(i % 100).append("] + 1.5f;\n");
+        }
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    // 接尾辞になる文字、数字、型引数の括弧、空白、改行を組み合わせた文字列
+    private static List<String> randomSamples(int count) {
+        String alphabet = "0123456789.LlFfDdx<>, 　\t\r\nA";
+        Random random = new Random(1);
+        List<String> samples = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            char[] chars = new char[random.nextInt(12)];
+            for (int k = 0; k < chars.length; k++) {
+                chars[k] = alphabet.charAt(random.nextInt(alphabet.length()));
+            }
+            samples.add(new String(chars));
+        }
+        return samples;
+    }
+
+    private static void verify(List<String> inputs, UnaryOperator<String> expected, UnaryOperator<String> actual) {
+        for (String input : inputs) {
+            if (!expected.apply(input).equals(actual.apply(input))) {
+                throw new IllegalStateException("結果が一致しません: \"" + input + "\"");
+            }
+        }
+    }
+
+    private static void report(String name, List<String> inputs, UnaryOperator<String> regex, UnaryOperator<String> normalizer) {
+        for (int i = 0; i < WARMUP; i++) {
+            run(inputs, regex);
+            run(inputs, normalizer);
+        }
+        double regexTime = measure(inputs, regex);
+        double normalizerTime = measure(inputs, normalizer);
+        System.out.printf("%s: replaceAll %.2f ms / LiteralNormalizer %.2f ms (%.1f倍)%n",
+                name, regexTime, normalizerTime, regexTime / normalizerTime);
+    }
+
+    private static double measure(List<String> inputs, UnaryOperator<String> operation) {
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            run(inputs, operation);
+        }
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+
+    private static int run(List<String> inputs, UnaryOperator<String> operation) {
+        int length = 0;
+        for (String input : inputs) {
+            length += operation.apply(input).length();
+        }
+        return length;
+    }
+}
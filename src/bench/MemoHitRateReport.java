@@ -0,0 +1,105 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+
+import converter.ConversionContext;
+import converter.ConversionEngine;
+import converter.ConversionMemo;
+import converter.OutputBuffer;
+
+/**
+ * 式の変換結果の表(ConversionMemo)がどれだけ当たっているかを表示する
+ *
+ * 既定では training ディレクトリのJavaコードと、生成した1万行のコードを変換する。
+ * 表を使わない場合と変換結果が同じであることも確かめる。
+ * <pre>
+ * mvn -B compile exec:java -Dexec.mainClass=bench.MemoHitRateReport [-Dexec.args="ファイルまたはディレクトリ..."]
+ * </pre>
+ */
+public class MemoHitRateReport {
+
+    public static void main(String[] args) throws IOException {
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_16);
+        JavaParser parser = new JavaParser(config);
+
+        List<String> names = new ArrayList<>();
+        List<String> sources = new ArrayList<>();
+        for (Path file : javaFiles(args.length == 0 ? new String[] {"training"} : args)) {
+            names.add(file.toString());
+            sources.add(Files.readString(file, StandardCharsets.UTF_8));
+        }
+        if (args.length == 0) {
+            names.add("生成コード(1万行)");
+            sources.add(JavaSourceGenerator.generate(10_000));
+        }
+
+        long[] total = new long[6];
+        for (int i = 0; i < sources.size(); i++) {
+            CompilationUnit cu = parser.parse(sources.get(i)).getResult().orElseThrow();
+            ConversionContext context = new ConversionContext(cu.getEnd().map(p -> p.line).orElse(0));
+            ConversionMemo memo = context.enableMemo();
+            String memoized = text(ConversionEngine.convert(cu, context));
+            String plain = text(ConversionEngine.convert(cu, new ConversionContext(cu.getEnd().map(p -> p.line).orElse(0))));
+            if (!memoized.equals(plain)) {
+                throw new IllegalStateException(names.get(i) + ": 表を使うと変換結果が変わります");
+            }
+
+            long[] counts = {
+                memo.expressionHits(), memo.expressionMisses(),
+                memo.conditionHits(), memo.conditionMisses(),
+                memo.methodCallHits(), memo.methodCallMisses(),
+            };
+            report(names.get(i), counts);
+            for (int k = 0; k < counts.length; k++) {
+                total[k] += counts[k];
+            }
+        }
+        report("合計", total);
+    }
+
+    private static List<Path> javaFiles(String[] args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(p -> p.toString().endsWith(".java")).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+
+    private static String text(OutputBuffer out) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < out.size(); i++) {
+            sb.append(out.lineAt(i)).append(':').append(out.priorityAt(i)).append(':').append(out.contentAt(i)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void report(String name, long[] counts) {
+        System.out.printf("%s: 式 %s / 条件 %s / メソッド呼び出し %s%n",
+                name, rate(counts[0], counts[1]), rate(counts[2], counts[3]), rate(counts[4], counts[5]));
+    }
+
+    private static String rate(long hits, long misses) {
+        long calls = hits + misses;
+        double percent = calls == 0 ? 0 : 100.0 * hits / calls;
+        return String.format("%,d/%,d回 (%.1f%%)", hits, calls, percent);
+    }
+}
@@ -0,0 +1,203 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+
+import converter.OutputBuffer;
+
+/**
+ * 1行に多くの変換結果がある場合の OutputBuffer.sortByLine を測るベンチマーク
+ *
+ * 1行に全ての内容を入れたバッファを、以前の行ごとの挿入ソートと sortByLine で並べて比べる。
+ * また、全ての文を1行に書いたJavaコードを変換して、文の数に対して時間がどう増えるかを表示する。
+ * 測定の前に、乱数で作ったバッファで sortByLine の順番が List.sort (安定) と一致することを確かめる。
+ * <pre>
+ * mvn -B compile exec:java -Dexec.mainClass=bench.OutputBufferSortBenchmark [-Dexec.args="件数..."]
+ * </pre>
+ */
+public class OutputBufferSortBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    // 変換クラスが使う優先度・グループと同じくらいの種類
+    private static final int PRIORITIES = 8;
+    private static final int GROUPS = 16;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[] {1_000, 10_000, 30_000} : parseSizes(args);
+
+        verify();
+
+        for (int size : sizes) {
+            Entries entries = Entries.random(size, 1, new Random(size));
+            for (int i = 0; i < WARMUP; i++) {
+                entries.insertionSort();
+                entries.toBuffer().sortByLine(1);
+            }
+            double insertion = measure(entries::insertionSort);
+            OutputBuffer buffer = entries.toBuffer();
+            double sortByLine = measure(() -> buffer.sortByLine(1));
+            System.out.printf("1行に%,d件: 挿入ソート %.2f ms / sortByLine %.2f ms (%.1f倍)%n",
+                    size, insertion, sortByLine, insertion / sortByLine);
+        }
+
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_16);
+        JavaParser parser = new JavaParser(config);
+        for (int size : sizes) {
+            CompilationUnit cu = parser.parse(oneLineClass(size)).getResult().orElseThrow();
+            for (int i = 0; i < WARMUP; i++) {
+                FusedTraversalBenchmark.convertFused(cu);
+            }
+            double time = measure(() -> FusedTraversalBenchmark.convertFused(cu));
+            System.out.printf("1行に文%,d個のコードの変換: %.2f ms (1文あたり %.2f µs)%n",
+                    size, time, time * 1_000 / size);
+        }
+    }
+
+    /**
+     * 行の件数が挿入ソートの範囲のもの・マージソートの範囲のものを混ぜて、順番が List.sort と一致するかを確かめる
+     */
+    private static void verify() {
+        Random random = new Random(1);
+        for (int i = 0; i < 200; i++) {
+            int lineCount = 1 + random.nextInt(5);
+            Entries entries = Entries.random(random.nextInt(2_000), lineCount, random);
+            String expected = entries.stableSorted();
+            String actual = FusedTraversalBenchmark.canonical(entries.toBuffer(), lineCount);
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("並べた順番が一致しません (" + entries.size + "件, " + lineCount + "行)");
+            }
+        }
+    }
+
+    /**
+     * 全ての文を1行に書いたクラス
+     */
+    static String oneLineClass(int statements) {
+        StringBuilder sb = new StringBuilder("public class OneLine { void run() { int a = 0;");
+        for (int i = 0; i < statements; i++) {
+            switch (i % 3) {
+                case 0:
+                    sb.append(" a = a + ").append(i).append(';');
+                    break;
+                case 1:
+                    sb.append(" System.out.println(a);");
+                    break;
+                default:
+                    sb.append(" if (a > ").append(i).append(") { a = 0; }");
+                    break;
+            }
+        }
+        return sb.append(" } }").toString();
+    }
+
+    private static int[] parseSizes(String[] args) {
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        return sizes;
+    }
+
+    private static double measure(Runnable sort) {
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            sort.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+
+    /**
+     * OutputBuffer に入れる内容。内容の文字列は追加した順番にする
+     */
+    private static final class Entries {
+        final int size;
+        final int[] lines;
+        final int[] priorities;
+        final int[] groups;
+
+        private Entries(int size) {
+            this.size = size;
+            lines = new int[size];
+            priorities = new int[size];
+            groups = new int[size];
+        }
+
+        static Entries random(int size, int lineCount, Random random) {
+            Entries entries = new Entries(size);
+            for (int i = 0; i < size; i++) {
+                entries.lines[i] = 1 + random.nextInt(lineCount);
+                entries.priorities[i] = random.nextInt(PRIORITIES) * 10;
+                entries.groups[i] = random.nextInt(GROUPS);
+            }
+            return entries;
+        }
+
+        OutputBuffer toBuffer() {
+            OutputBuffer buffer = new OutputBuffer(size);
+            for (int i = 0; i < size; i++) {
+                buffer.beginGroup(groups[i]);
+                buffer.add(lines[i], Integer.toString(i), priorities[i]);
+            }
+            return buffer;
+        }
+
+        /**
+         * 行・優先度・グループの順に List.sort (安定) で並べ、canonical と同じ形にする
+         */
+        String stableSorted() {
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                order.add(i);
+            }
+            order.sort(Comparator.<Integer>comparingInt(i -> lines[i])
+                    .thenComparingInt(i -> priorities[i])
+                    .thenComparingInt(i -> groups[i]));
+            StringBuilder sb = new StringBuilder();
+            int previousLine = 0;
+            for (int i : order) {
+                if (lines[i] != previousLine) {
+                    sb.append(lines[i]).append(':');
+                    previousLine = lines[i];
+                }
+                sb.append(i).append('\n');
+            }
+            return sb.toString();
+        }
+
+        /**
+         * 以前の sortByLine と同じく、全体を1つの行として挿入ソートで並べる
+         */
+        int[] insertionSort() {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            for (int k = 1; k < size; k++) {
+                int index = order[k];
+                int j = k - 1;
+                while (j >= 0 && comesAfter(order[j], index)) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = index;
+            }
+            return order;
+        }
+
+        private boolean comesAfter(int a, int b) {
+            if (priorities[a] != priorities[b]) {
+                return priorities[a] > priorities[b];
+            }
+            return groups[a] > groups[b];
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package bench;
+
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+
+import converter.ConversionContext;
+import converter.ConversionEngine;
+
+/**
+ * ConversionEngine の走査後の段を、順番に実行する場合と、互いに依存しない段を同時に実行する場合を比べるベンチマーク
+ *
+ * 生成した大きなJavaコード(既定で1万行と5万行)を一度だけ解析し、変換だけの時間を測る。
+ * 同時に実行すると段の終わる順番は毎回変わるので、測定の前に何度か変換し、毎回順番に実行した結果と一致することを確かめる。
+ * 段の同時実行だけを比べるため、メソッドごとに分けた変換 (ParallelUnitsBenchmark を参照) は両方とも行わない。
+ * JIT やGCの状態の差が片方にだけ出ないよう、準備運動の後、1回ごとに2つの方法を交互に(先に実行する方も入れ替えて)測る。
+ * プールの並列度が1なら、ConversionEngine は段を同時に実行しないので、両者はほぼ同じ時間になる。
+ * <pre>
+ * mvn -B compile exec:java -Dexec.mainClass=bench.ParallelStagesBenchmark [-Dexec.args="行数..."]
+ * </pre>
+ */
+public class ParallelStagesBenchmark {
+
+    private static final int CHECKS = 20;
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[] {10_000, 50_000} : parseSizes(args);
+
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_16);
+        JavaParser parser = new JavaParser(config);
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        System.out.printf("fork-join プールの並列度: %d%s%n", parallelism,
+                parallelism > 1 ? "" : " (段は同時に実行されません)");
+
+        for (int lines : sizes) {
+            CompilationUnit cu = parser.parse(JavaSourceGenerator.generate(lines)).getResult().orElseThrow();
+
+            String expected = convert(cu, false);
+            for (int i = 0; i < CHECKS; i++) {
+                if (!expected.equals(convert(cu, true))) {
+                    throw new IllegalStateException(lines + "行: 段を同時に実行した変換結果が一致しません");
+                }
+            }
+
+            for (int i = 0; i < WARMUP; i++) {
+                convert(cu, i % 2 == 0);
+                convert(cu, i % 2 != 0);
+            }
+            long serialNanos = 0;
+            long parallelNanos = 0;
+            for (int i = 0; i < RUNS; i++) {
+                if (i % 2 == 0) {
+                    serialNanos += time(cu, false);
+                    parallelNanos += time(cu, true);
+                } else {
+                    parallelNanos += time(cu, true);
+                    serialNanos += time(cu, false);
+                }
+            }
+            double serial = serialNanos / 1e6 / RUNS;
+            double parallel = parallelNanos / 1e6 / RUNS;
+            System.out.printf("%,d行: 順番に実行 %.1f ms / 同時に実行 %.1f ms (%.2f倍)%n",
+                    lines, serial, parallel, serial / parallel);
+        }
+    }
+
+    private static int[] parseSizes(String[] args) {
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        return sizes;
+    }
+
+    private static long time(CompilationUnit cu, boolean parallel) {
+        long start = System.nanoTime();
+        convert(cu, parallel);
+        return System.nanoTime() - start;
+    }
+
+    private static String convert(CompilationUnit cu, boolean parallel) {
+        int lineCount = FusedTraversalBenchmark.lineCount(cu);
+        ConversionContext context = new ConversionContext(lineCount);
+        context.setParallel(parallel);
+        context.setSplitUnits(false);
+        return FusedTraversalBenchmark.canonical(ConversionEngine.convert(cu, context), lineCount);
+    }
+}
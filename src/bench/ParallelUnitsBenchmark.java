@@ -0,0 +1,70 @@
+package bench;
+
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+
+import converter.ConversionContext;
+import converter.ConversionEngine;
+
+/**
+ * 1つの大きなファイルを、メソッドごとに同時に変換したときの速さを、使うコアの数を変えて測るベンチマーク
+ *
+ * 生成したJavaコード(既定で5万行、数百のメソッド)を一度だけ解析し、並列度を1から N まで変えた
+ * fork-join プールの中で変換して時間を測る。N は既定でこのマシンのコア数。
+ * 測定の前に、それぞれの並列度で何度か変換し、順番に変換した結果と一致することを確かめる。
+ * <pre>
+ * mvn -B compile exec:java -Dexec.mainClass=bench.ParallelUnitsBenchmark [-Dexec.args="行数 最大の並列度"]
+ * </pre>
+ */
+public class ParallelUnitsBenchmark {
+
+    private static final int CHECKS = 5;
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int maxParallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_16);
+        CompilationUnit cu = new JavaParser(config).parse(JavaSourceGenerator.generate(lines)).getResult().orElseThrow();
+        String expected = convert(cu, false);
+
+        double single = 0;
+        for (int parallelism = 1; parallelism <= maxParallelism; parallelism++) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                for (int i = 0; i < CHECKS; i++) {
+                    if (!expected.equals(pool.submit(() -> convert(cu, true)).get())) {
+                        throw new IllegalStateException("並列度 " + parallelism + ": 変換結果が一致しません");
+                    }
+                }
+                for (int i = 0; i < WARMUP; i++) {
+                    pool.submit(() -> convert(cu, true)).get();
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < RUNS; i++) {
+                    pool.submit(() -> convert(cu, true)).get();
+                }
+                double millis = (System.nanoTime() - start) / 1e6 / RUNS;
+                if (parallelism == 1) {
+                    single = millis;
+                }
+                System.out.printf("%,d行 並列度 %d: %.1f ms (並列度1の %.2f倍)%n", lines, parallelism, millis, single / millis);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static String convert(CompilationUnit cu, boolean parallel) {
+        int lineCount = FusedTraversalBenchmark.lineCount(cu);
+        ConversionContext context = new ConversionContext(lineCount);
+        context.setParallel(parallel);
+        return FusedTraversalBenchmark.canonical(ConversionEngine.convert(cu, context), lineCount);
+    }
+}
@@ -0,0 +1,76 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 変換器の起動時間を、AppCDSアーカイブの有無で比べるベンチマーク
+ *
+ * 毎回新しいJVMで jar を起動し、1ファイルを変換して終了するまでの時間を測る。
+ * mvn package で dist に jar とアーカイブを作ってから実行する。
+ * <pre>
+ * mvn -B package
+ * mvn -B exec:java -Dexec.mainClass=bench.StartupBenchmark [-Dexec.args="変換するファイル 回数"]
+ * </pre>
+ */
+public class StartupBenchmark {
+
+    private static final Path JAR = Paths.get("dist", "java-to-nadeshiko-converter.jar");
+    private static final Path ARCHIVE = Paths.get("dist", "java-to-nadeshiko-converter.jsa");
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path source = args.length > 0 ? Paths.get(args[0]) : Paths.get("training", "Hero.java");
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        if (!Files.exists(JAR) || !Files.exists(ARCHIVE)) {
+            System.err.println("先に mvn package で " + JAR + " と " + ARCHIVE + " を作成してください");
+            System.exit(1);
+        }
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> plain = List.of(java, "-Xshare:auto", "-jar", JAR.toString(), source.toString());
+        List<String> shared = List.of(java, "-Xshare:auto", "-XX:SharedArchiveFile=" + ARCHIVE,
+                "-Xlog:disable", "-Xlog:all=warning:stderr", "-jar", JAR.toString(), source.toString());
+
+        // 最初の数回はファイルキャッシュの影響が大きいので捨てる
+        measure(plain, 2);
+        measure(shared, 2);
+
+        report("アーカイブなし", measure(plain, runs));
+        report("アーカイブあり", measure(shared, runs));
+    }
+
+    private static long[] measure(List<String> command, int runs) throws IOException, InterruptedException {
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            int exitCode = process.waitFor();
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+            if (exitCode != 0) {
+                throw new IOException("変換器が異常終了しました (code " + exitCode + "): " + command);
+            }
+        }
+        return millis;
+    }
+
+    private static void report(String label, long[] millis) {
+        long[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        List<Long> values = new ArrayList<>();
+        long total = 0;
+        for (long value : millis) {
+            values.add(value);
+            total += value;
+        }
+        System.out.printf("%s: 平均 %d ms / 中央値 %d ms / 最小 %d ms %s%n",
+                label, total / millis.length, sorted[sorted.length / 2], sorted[0], values);
+    }
+}
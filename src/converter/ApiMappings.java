@@ -0,0 +1,168 @@
+package converter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+
+/**
+ * Java のライブラリ呼び出しと、なでしこの出力の対応表(api-mappings.tsv)を読み込むクラス
+ *
+ * 表の各行は読み込むときに MethodCallRules の規則へ変換し、出力のひな形も
+ * 固定の文字列と差し込む位置の配列に分けておく。変換のたびに表やひな形を解析し直さないので、
+ * 対応を増やしても1回の呼び出しの変換にかかる時間は変わらない。書式は表の先頭のコメントを参照。
+ */
+final class ApiMappings {
+
+    /** クラスパス上の対応表 (converter/api-mappings.tsv) */
+    static final String RESOURCE = "api-mappings.tsv";
+
+    // ひな形の {scope} を表す差し込み位置
+    private static final int SCOPE = -1;
+
+    private ApiMappings() {
+    }
+
+    /**
+     * クラスパス上の対応表を読み込み、上の行から順に rules に登録する
+     *
+     * @param convertOperand 引数・スコープを変換する関数
+     */
+    static void load(MethodCallRules rules, Function<Expression, String> convertOperand) {
+        try (InputStream in = ApiMappings.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException(RESOURCE + " が見つかりません");
+            }
+            load(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), rules, convertOperand);
+        } catch (IOException e) {
+            throw new UncheckedIOException(RESOURCE + " を読み込めません", e);
+        }
+    }
+
+    /**
+     * 対応表を読み込み、上の行から順に rules に登録する。書式の誤りは行番号付きの IllegalArgumentException
+     */
+    static void load(BufferedReader reader, MethodCallRules rules, Function<Expression, String> convertOperand) throws IOException {
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split("\t", -1);
+            if (columns.length != 4) {
+                throw new IllegalArgumentException(RESOURCE + " " + lineNumber + "行目: タブ区切りの4列で書いてください");
+            }
+            try {
+                String scope = parseScope(columns[0]);
+                String name = columns[1];
+                int arity = "*".equals(columns[2]) ? MethodCallRules.ANY_ARITY : Integer.parseInt(columns[2]);
+                rules.add(scope, name, arity, new Template(columns[3], arity, convertOperand));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(RESOURCE + " " + lineNumber + "行目: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static String parseScope(String column) {
+        switch (column) {
+            case "-":
+                return MethodCallRules.ANY_SCOPE;
+            case "*":
+                return MethodCallRules.SOME_SCOPE;
+            default:
+                return column;
+        }
+    }
+
+    /**
+     * 読み込み済みの出力のひな形
+     *
+     * "{0}と{1}の最大値" は literals = {"", "と", "の最大値"}、slots = {0, 1} になり、
+     * literals[0] slots[0] literals[1] slots[1] ... literals[n] の順に書き出す。
+     */
+    private static final class Template implements MethodCallRules.Rule {
+        private final String[] literals;
+        private final int[] slots;
+        private final int literalLength;
+        private final Function<Expression, String> convertOperand;
+
+        Template(String template, int arity, Function<Expression, String> convertOperand) {
+            List<String> literalList = new ArrayList<>();
+            List<Integer> slotList = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            int i = 0;
+            while (i < template.length()) {
+                char c = template.charAt(i);
+                if ((c == '{' || c == '}') && i + 1 < template.length() && template.charAt(i + 1) == c) {
+                    literal.append(c);
+                    i += 2;
+                } else if (c == '{') {
+                    int close = template.indexOf('}', i);
+                    if (close < 0) {
+                        throw new IllegalArgumentException("} がありません: " + template);
+                    }
+                    slotList.add(parseSlot(template.substring(i + 1, close), arity));
+                    literalList.add(literal.toString());
+                    literal.setLength(0);
+                    i = close + 1;
+                } else if (c == '}') {
+                    throw new IllegalArgumentException("対応する { がありません: " + template);
+                } else {
+                    literal.append(c);
+                    i++;
+                }
+            }
+            literalList.add(literal.toString());
+
+            this.literals = literalList.toArray(new String[0]);
+            this.slots = slotList.stream().mapToInt(Integer::intValue).toArray();
+            this.literalLength = literalList.stream().mapToInt(String::length).sum();
+            this.convertOperand = convertOperand;
+        }
+
+        private static int parseSlot(String placeholder, int arity) {
+            if ("scope".equals(placeholder)) {
+                return SCOPE;
+            }
+            int index;
+            try {
+                index = Integer.parseInt(placeholder);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("{" + placeholder + "} は使えません ({scope} か引数の番号)");
+            }
+            // 引数の数を問わない対応では、足りない引数を変換時に調べられないので番号を使えない
+            if (index < 0 || arity == MethodCallRules.ANY_ARITY || index >= arity) {
+                throw new IllegalArgumentException("{" + index + "} は引数の数 " + (arity == MethodCallRules.ANY_ARITY ? "*" : arity) + " の範囲外です");
+            }
+            return index;
+        }
+
+        @Override
+        public String convert(MethodCallExpr mc) {
+            StringBuilder sb = new StringBuilder(literalLength + 16 * slots.length);
+            sb.append(literals[0]);
+            for (int i = 0; i < slots.length; i++) {
+                int slot = slots[i];
+                if (slot == SCOPE) {
+                    if (mc.getScope().isPresent()) {
+                        sb.append(convertOperand.apply(mc.getScope().get()));
+                    }
+                } else {
+                    sb.append(convertOperand.apply(mc.getArgument(slot)));
+                }
+                sb.append(literals[i + 1]);
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -8,69 +8,85 @@ import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.ArrayCreationExpr;
 import com.github.javaparser.ast.expr.ArrayInitializerExpr;
 import com.github.javaparser.ast.expr.Expression;
-import com.github.javaparser.ast.expr.IntegerLiteralExpr;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 public class ArrayConverter { //配列をなでしこ形式に変換するクラス
-    public static List<Item> convert(CompilationUnit cu) {
-        List<Item> items = new ArrayList<>(); //変換結果を格納するリスト
+    public static void convert(CompilationUnit cu, ConversionContext context, OutputBuffer out) {
         cu.accept(new VoidVisitorAdapter<Void>() {
             @Override
             public void visit(VariableDeclarator variable, Void arg) { //変数宣言の場合
-                if (variable.getInitializer().isPresent()) { //初期化式の場合
-                    Expression initializer = variable.getInitializer().get(); //初期化式取得
-                    if (initializer instanceof ArrayCreationExpr) { //配列の生成式の場合(例: int[] arr = new int[5];)
-                        ArrayCreationExpr arrayCreation = (ArrayCreationExpr) initializer; //配列生成式取得
-                        int line = variable.getBegin().map(p -> p.line).orElse(-1); //行番号取得
-                        String variableName = variable.getNameAsString(); //変数名取得
-                        String arrayContent = convertArrayCreation(arrayCreation); //なでしこ形式に変換
-                        if (arrayContent != null) { //変換できた場合
-                            String indent = IndentManager.getIndentForLine(line); //行のインデントを取得
-                            String text = variableName + "は" + arrayContent + "。"; //なでしこ形式のテキスト生成
-                            items.add(new Item(line, indent + text)); //変換結果をリストに追加
-                        }
-                    } else if (initializer instanceof ArrayInitializerExpr) { //配列初期化式の場合(例:int[] arr = {1,2,3};）
-                        ArrayInitializerExpr arrayInit = (ArrayInitializerExpr) initializer; //配列初期化式取得
-                        int line = variable.getBegin().map(p -> p.line).orElse(-1); //行番号取得
-                        String variableName = variable.getNameAsString(); //変数名取得
-                        String arrayContent = convertArrayInitializer(arrayInit); //なでしこ形式に変換
-                        if (arrayContent != null) { //変換できた場合
-                            String indent = IndentManager.getIndentForLine(line); //行のインデントを取得
-                            String text = variableName + "は" + arrayContent + "。"; //なでしこ形式のテキスト生成
-                            items.add(new Item(line, indent + text)); //変換結果をリストに追加
-                        }
-                    }
-                }
+                convert(variable, out, context);
                 super.visit(variable, arg);
             }
             
             @Override
             public void visit(com.github.javaparser.ast.expr.AssignExpr assignExpr, Void arg) { //代入式の場合(例: arr = {1,2,3};)
-                if (assignExpr.getOperator() == com.github.javaparser.ast.expr.AssignExpr.Operator.ASSIGN) { //=の場合
-                    Expression value = assignExpr.getValue(); //代入部分(右辺)取得
-                    if (value instanceof ArrayCreationExpr || value instanceof ArrayInitializerExpr) { //配列の場合
-                        int line = assignExpr.getBegin().map(p -> p.line).orElse(-1); //行番号取得
-                        String variableName = assignExpr.getTarget().toString(); //変数名取得
-                        String arrayContent = null; //なでしこ形式に変換結果格納用
-                        if (value instanceof ArrayCreationExpr) { //配列生成式の場合
-                            arrayContent = convertArrayCreation((ArrayCreationExpr) value); //なでしこ形式に変換
-                        } else if (value instanceof ArrayInitializerExpr) { //配列初期化式の場合
-                            arrayContent = convertArrayInitializer((ArrayInitializerExpr) value); //なでしこ形式に変換
-                        }
-                        if (arrayContent != null) { //変換できた場合
-                            String indent = IndentManager.getIndentForLine(line); //行のインデントを取得
-                            String text = variableName + "は" + arrayContent + "。"; //なでしこ形式のテキスト生成
-                            items.add(new Item(line, indent + text)); //変換結果をリストに追加
-                        }
-                    }
-                }
+                convert(assignExpr, out, context);
                 super.visit(assignExpr, arg);
             }
 
         }, null);
-        return items;
     }
 
+    /**
+     * 配列を初期値に持つ変数宣言を変換する (ConversionEngine から呼び出される)
+     */
+    static void convert(VariableDeclarator variable, OutputBuffer out, ConversionContext context) {
+        if (variable.getInitializer().isPresent()) { //初期化式の場合
+            Expression initializer = variable.getInitializer().get(); //初期化式取得
+            if (initializer instanceof ArrayCreationExpr) { //配列の生成式の場合(例: int[] arr = new int[5];)
+                ArrayCreationExpr arrayCreation = (ArrayCreationExpr) initializer; //配列生成式取得
+                int line = variable.getBegin().map(p -> p.line).orElse(-1); //行番号取得
+                String variableName = variable.getNameAsString(); //変数名取得
+                String arrayContent = convertArrayCreation(arrayCreation); //なでしこ形式に変換
+                if (arrayContent != null) { //変換できた場合
+                    String indent = context.getIndentForLine(line); //行のインデントを取得
+                    String text = variableName + "は" + arrayContent + "。"; //なでしこ形式のテキスト生成
+                    out.add(line, indent + text); //変換結果をリストに追加
+                }
+            } else if (initializer instanceof ArrayInitializerExpr) { //配列初期化式の場合(例:int[] arr = {1,2,3};）
+                ArrayInitializerExpr arrayInit = (ArrayInitializerExpr) initializer; //配列初期化式取得
+                int line = variable.getBegin().map(p -> p.line).orElse(-1); //行番号取得
+                String variableName = variable.getNameAsString(); //変数名取得
+                String arrayContent = convertArrayInitializer(arrayInit); //なでしこ形式に変換
+                if (arrayContent != null) { //変換できた場合
+                    String indent = context.getIndentForLine(line); //行のインデントを取得
+                    String text = variableName + "は" + arrayContent + "。"; //なでしこ形式のテキスト生成
+                    out.add(line, indent + text); //変換結果をリストに追加
+                }
+            }
+        }
+    }
+
+    /**
+     * 配列の代入式を変換する (ConversionEngine から呼び出される)
+     */
+    static void convert(com.github.javaparser.ast.expr.AssignExpr assignExpr, OutputBuffer out, ConversionContext context) {
+        if (assignExpr.getOperator() == com.github.javaparser.ast.expr.AssignExpr.Operator.ASSIGN) { //=の場合
+            Expression value = assignExpr.getValue(); //代入部分(右辺)取得
+            if (value instanceof ArrayCreationExpr || value instanceof ArrayInitializerExpr) { //配列の場合
+                int line = assignExpr.getBegin().map(p -> p.line).orElse(-1); //行番号取得
+                String variableName = assignExpr.getTarget().toString(); //変数名取得
+                String arrayContent = null; //なでしこ形式に変換結果格納用
+                if (value instanceof ArrayCreationExpr) { //配列生成式の場合
+                    arrayContent = convertArrayCreation((ArrayCreationExpr) value); //なでしこ形式に変換
+                } else if (value instanceof ArrayInitializerExpr) { //配列初期化式の場合
+                    arrayContent = convertArrayInitializer((ArrayInitializerExpr) value); //なでしこ形式に変換
+                }
+                if (arrayContent != null) { //変換できた場合
+                    String indent = context.getIndentForLine(line); //行のインデントを取得
+                    String text = variableName + "は" + arrayContent + "。"; //なでしこ形式のテキスト生成
+                    out.add(line, indent + text); //変換結果をリストに追加
+                }
+            }
+        }
+    }
+
+    /**
+     * 配列生成式を「整数配列(行3,列4)生成」のような形に変換する
+     * 要素を1つずつ書き出さず、各次元の大きさだけを書くので、
+     * new int[1000][1000] のように大きな配列でも宣言された大きさに関係なく一定の長さになる
+     */
     private static String convertArrayCreation(ArrayCreationExpr arrayCreation) {
         // 配列の初期化子がある場合 (例: new int[] {1, 2, 3}) はそちらを優先
         if (arrayCreation.getInitializer().isPresent()) {
@@ -107,51 +123,6 @@ public class ArrayConverter { //配列をなでしこ形式に変換するクラ
         return String.format("%s配列(%s)生成", nadeshikoType, sizeSpec);
     }
 
-    private static String convertMultiDimensionalArray(ArrayCreationExpr arrayCreation) {
-        String elementType = arrayCreation.getElementType().asString();
-        String defaultValue = getDefaultValue(elementType);
-        
-        List<Integer> dimensions = new ArrayList<>();
-        for (var level : arrayCreation.getLevels()) {
-            if (level.getDimension().isPresent()) {
-                Expression dim = level.getDimension().get();
-                if (dim instanceof IntegerLiteralExpr) {
-                    dimensions.add(Integer.parseInt(((IntegerLiteralExpr) dim).getValue()));
-                }
-            }
-        }
-        
-        if (dimensions.isEmpty()) {
-            return null;
-        }
-        
-        return buildMultiDimensionalArray(dimensions, 0, defaultValue);
-    }
-
-    private static String buildMultiDimensionalArray(List<Integer> dimensions, int currentDim, String defaultValue) {
-        if (currentDim >= dimensions.size()) {
-            return defaultValue;
-        }
-        
-        int size = dimensions.get(currentDim);
-        StringBuilder sb = new StringBuilder("[");
-        
-        for (int i = 0; i < size; i++) {
-            if (i > 0) sb.append(",");
-            
-            if (currentDim == dimensions.size() - 1) {
-                // 最後の次元の場合、デフォルト値を設定
-                sb.append(defaultValue);
-            } else {
-                // 次の次元を再帰的に処理
-                sb.append(buildMultiDimensionalArray(dimensions, currentDim + 1, defaultValue));
-            }
-        }
-        
-        sb.append("]");
-        return sb.toString();
-    }
-
     private static String convertArrayInitializer(ArrayInitializerExpr arrayInit) { //配列初期化式の処理
         StringBuilder sb = new StringBuilder("[");
         for (int i = 0; i < arrayInit.getValues().size(); i++) {
@@ -162,7 +133,7 @@ public class ArrayConverter { //配列をなでしこ形式に変換するクラ
             if (value instanceof ArrayInitializerExpr) {
                 sb.append(convertArrayInitializer((ArrayInitializerExpr) value));
             } else {
-                sb.append(value.toString()); //要素追加
+                sb.append(NameResolver.text(value)); //要素追加
             }
         }
         sb.append("]");
@@ -202,25 +173,6 @@ public class ArrayConverter { //配列をなでしこ形式に変換するクラ
         }
     }
 
-    private static String getDefaultValue(String type) { //型に応じたデフォルト値を取得
-        switch (type) {
-            case "int":
-            case "long":
-            case "short":
-            case "byte":
-                return "0";
-            case "double":
-            case "float":
-                return "0.0";
-            case "boolean":
-                return "偽";
-            case "char":
-                return "''";
-            default:
-                return "null";
-        }
-    }
-    
     public static String convertArrayCreationPublic(ArrayCreationExpr arrayCreation) { //配列生成式の処理
         return convertArrayCreation(arrayCreation);
     }
@@ -228,15 +180,4 @@ public class ArrayConverter { //配列をなでしこ形式に変換するクラ
     public static String convertArrayInitializerPublic(ArrayInitializerExpr arrayInit) { //配列初期化式の処理
         return convertArrayInitializer(arrayInit);
     }
-
-    public static class Item { //行番号と内容をまとめたクラス
-        public final int line;
-        public final String content;
-        
-        public Item(int line, String content) {
-            this.line = line;
-            this.content = content;
-        }
-        
-    }
 }
\ No newline at end of file
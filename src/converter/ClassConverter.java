@@ -1,6 +1,5 @@
 package converter;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.github.javaparser.ast.CompilationUnit;
@@ -11,21 +10,7 @@ import com.github.javaparser.ast.type.ClassOrInterfaceType;
 
 public class ClassConverter {
 
-    public static class Item {
-        public final int line;
-        public final String content;
-        public final int priority;
-
-        public Item(int line, String content, int priority) {
-            this.line = line;
-            this.content = content;
-            this.priority = priority;
-        }
-    }
-
-    public static List<Item> convert(CompilationUnit cu) {
-        List<Item> out = new ArrayList<>();
-
+    public static void convert(CompilationUnit cu, ConversionContext context, OutputBuffer out) {
         // 全てのクラス/インターフェイス宣言を検出
         List<TypeDeclaration<?>> types = cu.getTypes();
 
@@ -38,20 +23,14 @@ public class ClassConverter {
                     int annotationLine = annotation.getBegin().map(p -> p.line).orElse(-1);
                     String annotationName = annotation.getNameAsString();
                     if ("RestController".equals(annotationName)) {
-                        String indent = IndentManager.getIndentForLine(annotationLine);
-                        // クラス宣言(priority=20)より先に表示するためpriorityを15に設定
-                        out.add(new Item(annotationLine, indent + "Web応答用。", 15));
+                        String indent = context.getIndentForLine(annotationLine);
+                        out.add(annotationLine, indent + "Web応答用。");
                     }
                 }
                 
-                // 親をたどってインデントレベルを計算する
+                // cu.getTypes() はトップレベルの型だけなので、親をたどるまでもなくインデントレベルは0
                 int indentLevel = 0;
-                java.util.Optional<com.github.javaparser.ast.Node> current = cls.getParentNode();
-                while(current.isPresent() && !(current.get() instanceof CompilationUnit)) {
-                    if (current.get() instanceof ClassOrInterfaceDeclaration) indentLevel++;
-                    current = current.get().getParentNode();
-                }
-                String classIndent = "　".repeat(indentLevel);
+                String classIndent = IndentManager.indentOf(indentLevel);
 
 
                 String name = cls.getNameAsString();
@@ -104,15 +83,13 @@ public class ClassConverter {
                 }
                 
                 String bottomContent = classIndent + "ここまで。";
-                
-                final int START_PRIORITY = 20; 
-                final int END_PRIORITY = 21;
+
+                // クラスの開始・終了は同じ行の他の変換結果と同じ既定の優先度で並べる
 
                 if (startLine != -1) {
-                    out.add(new Item(startLine, topContent, START_PRIORITY));
+                    out.add(startLine, topContent);
                     // クラス本体のインデントを記録
                     // メンバーの有無に関わらず、クラスの `{` から `}` の間のすべての行にインデントを適用する
-                    String bodyIndent = classIndent + "　";
                     // getLeftBrace/getRightBrace は古いJavaParserに存在しないため代替ロジックを使用
                     int bodyStartLine = cls.getMembers().stream()
                         .mapToInt(m -> m.getBegin().map(p -> p.line).orElse(Integer.MAX_VALUE))
@@ -123,16 +100,13 @@ public class ClassConverter {
                     bodyStartLine = Math.min(bodyStartLine, endLine);
 
                     // クラス本体の開始行の次から終了行の前までをインデント
-                    for (int i = startLine + 1; i < endLine; i++) {
-                        IndentManager.recordIndentForLine(i, bodyIndent);
-                    }
+                    context.recordDepthForLines(startLine + 1, endLine, indentLevel + 1);
                 }
 
                 if (endLine != -1) {
-                    out.add(new Item(endLine, bottomContent, END_PRIORITY));
+                    out.add(endLine, bottomContent);
                 }
             }
         }
-        return out;
     }
 }
\ No newline at end of file
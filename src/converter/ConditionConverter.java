@@ -14,7 +14,7 @@ import com.github.javaparser.ast.expr.UnaryExpr;
 public class ConditionConverter { // Javaの条件式を日本語に変換するクラス
 
     public static String convertCondition(Expression condition) {
-        return convertCondition(condition, true, true);
+        return ConversionMemo.condition(condition, c -> convertCondition(c, true, true)); // ConversionMemo が有効なら結果を覚えておく
     }
 
     private static String convertCondition(Expression condition, boolean wrapInParentheses, boolean wrapInnerConditions) {
@@ -182,7 +182,7 @@ public class ConditionConverter { // Javaの条件式を日本語に変換する
             return objectName + "が" + typeName + "型";
         } else {
             // その他の式(フィールドアクセスなど)も「〜が真」に変換
-            return condition.toString() + "が真";
+            return NameResolver.text(condition) + "が真";
         }
     }
 
@@ -298,6 +298,6 @@ public class ConditionConverter { // Javaの条件式を日本語に変換する
                 return scopePrefix + mc.getNameAsString() + "(" + args + ")";
             }
         }
-        return expr.toString();
+        return NameResolver.text(expr);
     }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package converter;
+
+/**
+ * 1回の変換(1ファイル)の状態をまとめたクラス
+ *
+ * インデント情報のように、変換中に各変換クラスが読み書きする状態はここに持たせ、
+ * 変換クラスには static な可変状態を置かない。変換ごとに新しく生成するので、
+ * 1つのJVMの中で複数のファイルを別々のスレッドで同時に変換できる。
+ */
+public class ConversionContext {
+
+    private final IndentManager indents;
+    private ConversionMemo memo;
+    private boolean parallel = true;
+    private boolean splitUnits = true;
+
+    /**
+     * @param lineCount 変換するコードの行数 (インデント表の大きさに使う)
+     */
+    public ConversionContext(int lineCount) {
+        this.indents = new IndentManager(lineCount);
+    }
+
+    /**
+     * 指定された行のインデントを返す。記録がなければ空文字列
+     */
+    public String getIndentForLine(int line) {
+        return indents.getIndentForLine(line);
+    }
+
+    /**
+     * 指定された行のインデントの深さ(全角空白の数)を返す。記録がなければ0
+     */
+    public int getDepthForLine(int line) {
+        return indents.getDepthForLine(line);
+    }
+
+    /**
+     * 指定された行のインデントの深さを記録する
+     */
+    public void recordDepthForLine(int line, int depth) {
+        indents.recordDepthForLine(line, depth);
+    }
+
+    /**
+     * fromLine から toLine の前の行までに、同じインデントの深さを記録する
+     */
+    public void recordDepthForLines(int fromLine, int toLine, int depth) {
+        indents.recordDepthForLines(fromLine, toLine, depth);
+    }
+
+    /**
+     * 互いに依存しない変換の段を、fork-join プールで同時に実行するかどうかを設定する (既定は true)
+     * 呼び出し側がファイル単位で並列に変換していてコアが空いていないときや、測定で比べるときに false にする
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * 同時に実行するときに、大きなファイルをメソッドごとに分けて変換するかどうかを設定する (既定は true)
+     * 段の同時実行だけの効果を測るときに false にする。setParallel(false) なら、この設定にかかわらず分けない
+     */
+    public void setSplitUnits(boolean splitUnits) {
+        this.splitUnits = splitUnits;
+    }
+
+    public boolean isSplitUnits() {
+        return splitUnits;
+    }
+
+    /**
+     * この変換で式の変換結果を覚えておくようにする (ConversionEngine.convert の前に呼ぶ)
+     * 既定では覚えない。手元のコードでは同じノードを変換し直すことがほとんどなく、
+     * 表を作る手間の方が大きかったため。ヒット数を調べるときに使う
+     */
+    public ConversionMemo enableMemo() {
+        if (memo == null) {
+            memo = new ConversionMemo();
+        }
+        return memo;
+    }
+
+    /**
+     * enableMemo で作った表を返す。使っていなければ null
+     */
+    public ConversionMemo getMemo() {
+        return memo;
+    }
+}
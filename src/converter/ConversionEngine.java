@@ -0,0 +1,455 @@
+package converter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.PackageDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.ExplicitConstructorInvocationStmt;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.stmt.SwitchStmt;
+import com.github.javaparser.ast.stmt.ThrowStmt;
+import com.github.javaparser.ast.stmt.TryStmt;
+import com.github.javaparser.ast.stmt.WhileStmt;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+
+/**
+ * 構文木を1回だけ走査し、各ノードを関心のある変換クラスへ振り分けるクラス
+ *
+ * 変換クラスごとに cu.accept(...) で構文木全体をたどると、大きなファイルでは
+ * 同じ木を十数回走査することになる。ここでは1回の走査で全ての変換クラスにノードを渡す。
+ *
+ * 変換結果は全て1つの OutputBuffer に追記する。
+ * 各変換クラスはインデント情報を読み、if文・switch文の変換はさらにインデントを記録する。
+ * 変換クラスを順番に呼んでいた頃と同じ結果にするため、走査中にはメソッドの変換だけを行い、
+ * 他の変換は段ごとに走査順に積んでおき、走査後に元の順番(for, while, if, switch, ...)で実行する。
+ * 段はインデント情報を読むだけか書き換えるかを宣言し、互いに依存しない段は同時に実行する (runStages を参照)。
+ * 大きなファイルでは、他と行を共有しないメソッドを単位に分け、走査から段までを単位ごとに同時に実行する (convertUnits を参照)。
+ */
+public class ConversionEngine extends VoidVisitorAdapter<Void> {
+
+    // 同じ行・同じ優先度の変換結果の並び順 (変換クラスごとのリストをつないでいた頃の順番)
+    public static final int GROUP_FOR = 0;
+    public static final int GROUP_WHILE = 1;
+    public static final int GROUP_IF = 2;
+    public static final int GROUP_SWITCH = 3;
+    public static final int GROUP_FIELD = 4;
+    public static final int GROUP_ARRAY = 5;
+    public static final int GROUP_COMMENT = 6;
+    public static final int GROUP_VARIABLE = 7;
+    public static final int GROUP_METHOD = 8;
+    public static final int GROUP_PRINT = 9;
+    public static final int GROUP_PACKAGE = 10;
+    public static final int GROUP_IMPORT = 11;
+    public static final int GROUP_CLASS = 12;
+    public static final int GROUP_THROW = 13;
+    public static final int GROUP_TRY = 14;
+
+    // 同時に実行できる段の変換がこれより少なければ、プールに渡す手間の方が大きいので順番に実行する
+    private static final int PARALLEL_MIN_TASKS = 256;
+    // メソッドを別々に変換するのは、分けられるメソッドの行数の合計がこれ以上のときだけ
+    private static final int PARALLEL_MIN_UNIT_LINES = 512;
+
+    private final OutputBuffer out;
+    private final ConversionContext context;
+    private final MethodConverter.MethodVisitor methodVisitor;
+    // 走査中に入っているブロック・if・for・while (return文の変換が参照する)
+    private final TraversalContext traversal = new TraversalContext();
+
+    // 別に変換するので、走査しないメソッド・コンストラクタ (ConversionUnits を参照)
+    private final Set<Node> units = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // MethodConverter がメソッド呼び出しとして変換した文の中は MethodConverter に渡さない
+    private int methodSkipDepth = 0;
+
+    // 走査後に実行する変換 (段ごとに走査順で並ぶ)
+    private final List<Task> forStage = new ArrayList<>();
+    private final List<Task> whileStage = new ArrayList<>();
+    private final List<Task> ifStage = new ArrayList<>();
+    private final List<Task> switchStage = new ArrayList<>();
+    private final List<Task> tryStage = new ArrayList<>();
+    private final List<Task> fieldStage = new ArrayList<>();
+    private final List<Task> arrayStage = new ArrayList<>();
+    private final List<Task> variableStage = new ArrayList<>();
+    private final List<Task> printStage = new ArrayList<>();
+    private final List<Task> packageStage = new ArrayList<>();
+    private final List<Task> throwStage = new ArrayList<>();
+
+    private ConversionEngine(ConversionContext context, OutputBuffer out) {
+        this.context = context;
+        this.out = out;
+        this.methodVisitor = new MethodConverter.MethodVisitor(out, context, traversal);
+    }
+
+    /**
+     * 構文木を変換する
+     * @param cu 構文木
+     * @param context この変換のための新しいコンテキスト
+     * @return 変換結果 (行番号順には並んでいない)
+     */
+    public static OutputBuffer convert(CompilationUnit cu, ConversionContext context) {
+        // 変換結果はおおよそ1行に1件なので、行数を最初の大きさにする
+        OutputBuffer out = new OutputBuffer(cu.getEnd().map(p -> p.line).orElse(0));
+        ConversionEngine engine = new ConversionEngine(context, out);
+        ConversionMemo memo = context.getMemo();
+        if (memo == null) {
+            convertStages(cu, context, engine, out);
+            return out;
+        }
+        // 変換中は式の変換結果を覚えておく (ConversionMemo を参照)
+        ConversionMemo previous = memo.bind();
+        try {
+            convertStages(cu, context, engine, out);
+        } finally {
+            ConversionMemo.unbind(previous);
+        }
+        return out;
+    }
+
+    private static void convertStages(CompilationUnit cu, ConversionContext context, ConversionEngine engine, OutputBuffer out) {
+        boolean parallel = context.isParallel() && context.getMemo() == null && !DeepStack.onLargeStack()
+                && parallelism() > 1;
+        if (parallel) {
+            // Node.toString は最初に呼ばれたとき CompilationUnit にプリンタを記録する(スレッドセーフでない)ので、
+            // 複数のスレッドから呼ばれる前に済ませておく
+            cu.findFirst(SimpleName.class).ifPresent(Node::toString);
+        }
+
+        // 構造の段: クラスはトップレベルの型だけを見るので走査は不要。インデントの骨格を最初に作る
+        out.beginGroup(GROUP_CLASS);
+        ClassConverter.convert(cu, context, out);
+
+        // 他と行を共有しないメソッド・コンストラクタは、ファイル全体の走査から外して別々に同時に変換する
+        List<CallableDeclaration<?>> units = parallel && context.isSplitUnits() ? ConversionUnits.find(cu) : List.of();
+        if (units.size() < 2 || ConversionUnits.lineCount(units) < PARALLEL_MIN_UNIT_LINES) {
+            units = List.of();
+        }
+        units.forEach(engine.units::add);
+
+        // メソッドは走査中に変換し、ブロックの中のインデントを記録する
+        out.beginGroup(GROUP_METHOD);
+        cu.accept(engine, null);
+
+        // 残りの段はメソッドの中のインデントを読むので、分けたメソッドを全て変換してから実行する
+        convertUnits(units, context, out);
+        List<Stage> stages = engine.stages(
+                // コメントは getAllContainedComments の順序で出力するため、構文木の走査とは別に集める
+                List.of(o -> CommentConverter.convert(cu, context, o)),
+                List.of(o -> ImportConverter.convert(cu, o)));
+        runStages(stages, parallel, out);
+    }
+
+    /**
+     * 走査後の段を、変換クラスを順番に呼んでいた頃の順に並べ、インデント情報の使い方を宣言する
+     */
+    private List<Stage> stages(List<Task> commentStage, List<Task> importStage) {
+        return List.of(
+                new Stage(GROUP_FOR, IndentAccess.READ, forStage),
+                new Stage(GROUP_WHILE, IndentAccess.READ, whileStage),
+                new Stage(GROUP_IF, IndentAccess.WRITE, ifStage),
+                new Stage(GROUP_SWITCH, IndentAccess.WRITE, switchStage),
+                new Stage(GROUP_TRY, IndentAccess.READ, tryStage),
+                new Stage(GROUP_FIELD, IndentAccess.READ, fieldStage),
+                new Stage(GROUP_ARRAY, IndentAccess.READ, arrayStage),
+                new Stage(GROUP_COMMENT, IndentAccess.READ, commentStage),
+                new Stage(GROUP_VARIABLE, IndentAccess.READ, variableStage),
+                new Stage(GROUP_PRINT, IndentAccess.READ, printStage),
+                new Stage(GROUP_PACKAGE, IndentAccess.NONE, packageStage),
+                new Stage(GROUP_IMPORT, IndentAccess.NONE, importStage),
+                new Stage(GROUP_THROW, IndentAccess.READ, throwStage));
+    }
+
+    /**
+     * ConversionUnits で分けたメソッド・コンストラクタを、fork-join プールで同時に変換して out に追記する
+     *
+     * 単位ごとに新しいエンジンで走査と全ての段を行い、別々のバッファに出力する。
+     * 単位どうしは行を共有しないので、インデントの書き込みは重ならず、バッファをソースの順に追記すれば
+     * 行ごとの内容は順番に変換したときと同じになる。
+     */
+    private static void convertUnits(List<CallableDeclaration<?>> units, ConversionContext context, OutputBuffer out) {
+        if (units.isEmpty()) {
+            return;
+        }
+        OutputBuffer[] buffers = new OutputBuffer[units.size()];
+        List<ForkJoinTask<?>> forks = new ArrayList<>(units.size());
+        for (int i = 0; i < units.size(); i++) {
+            CallableDeclaration<?> unit = units.get(i);
+            int index = i;
+            forks.add(ForkJoinTask.adapt(() -> buffers[index] = convertUnit(unit, context)));
+        }
+        ForkJoinTask.invokeAll(forks);
+        for (OutputBuffer buffer : buffers) {
+            out.appendAll(buffer);
+        }
+    }
+
+    private static OutputBuffer convertUnit(CallableDeclaration<?> unit, ConversionContext context) {
+        OutputBuffer out = new OutputBuffer(unit.getEnd().get().line - unit.getBegin().get().line + 1);
+        ConversionEngine engine = new ConversionEngine(context, out);
+        out.beginGroup(GROUP_METHOD);
+        unit.accept(engine, null);
+        // 単位はそれぞれが1つのタスクなので、中の段は順番に実行する
+        runStages(engine.stages(List.of(), List.of()), false, out);
+        return out;
+    }
+
+    /**
+     * 今のスレッドで fork したタスクを実行するプールの並列度
+     */
+    private static int parallelism() {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        return pool != null ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    /**
+     * 走査後に実行する1件の変換。結果は渡された out に追記する
+     */
+    private interface Task {
+        void run(OutputBuffer out);
+    }
+
+    /**
+     * 段がインデント情報(ConversionContext)をどう使うか
+     */
+    private enum IndentAccess {
+        /** 使わない */
+        NONE,
+        /** 読むだけ */
+        READ,
+        /** 読み書きする */
+        WRITE
+    }
+
+    /**
+     * 走査後に実行する段。同じ段の変換は全て同じグループで出力する
+     */
+    private static final class Stage {
+        final int group;
+        final IndentAccess indents;
+        final List<Task> tasks;
+
+        Stage(int group, IndentAccess indents, List<Task> tasks) {
+            this.group = group;
+            this.indents = indents;
+            this.tasks = tasks;
+        }
+
+        void run(OutputBuffer out) {
+            out.beginGroup(group);
+            for (Task task : tasks) {
+                task.run(out);
+            }
+        }
+    }
+
+    /**
+     * 段を宣言した順の結果になるように実行する
+     *
+     * インデントを書き換える段は、その前の段が読み終わってから単独で実行し、後の段はその書き換えを読む。
+     * その間にある読むだけ(または使わない)段どうしは互いに依存しないので、parallel なら fork-join プールで同時に実行する。
+     * 同時に実行する段はそれぞれ別のバッファに出力し、宣言した順に out へ追記する。
+     * 段ごとにグループが違い、同じ行・同じ優先度の内容はグループの順に並ぶので、出力は順番に実行したときと同じになる。
+     */
+    private static void runStages(List<Stage> stages, boolean parallel, OutputBuffer out) {
+        List<Stage> independent = new ArrayList<>();
+        for (Stage stage : stages) {
+            if (stage.indents == IndentAccess.WRITE) {
+                runIndependent(independent, parallel, out);
+                independent.clear();
+                stage.run(out);
+            } else {
+                independent.add(stage);
+            }
+        }
+        runIndependent(independent, parallel, out);
+    }
+
+    private static void runIndependent(List<Stage> stages, boolean parallel, OutputBuffer out) {
+        int taskCount = 0;
+        for (Stage stage : stages) {
+            taskCount += stage.tasks.size();
+        }
+        if (!parallel || stages.size() < 2 || taskCount < PARALLEL_MIN_TASKS) {
+            for (Stage stage : stages) {
+                stage.run(out);
+            }
+            return;
+        }
+
+        OutputBuffer[] buffers = new OutputBuffer[stages.size()];
+        List<ForkJoinTask<?>> forks = new ArrayList<>(stages.size());
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            OutputBuffer buffer = new OutputBuffer(stage.tasks.size());
+            buffers[i] = buffer;
+            forks.add(ForkJoinTask.adapt(() -> stage.run(buffer)));
+        }
+        ForkJoinTask.invokeAll(forks);
+        for (OutputBuffer buffer : buffers) {
+            out.appendAll(buffer);
+        }
+    }
+
+    // --- メソッド (走査中にその場で変換する) ---
+
+    @Override
+    public void visit(MethodDeclaration method, Void arg) {
+        if (units.contains(method)) return;
+        if (methodSkipDepth == 0) methodVisitor.convert(method);
+        super.visit(method, arg);
+    }
+
+    @Override
+    public void visit(ConstructorDeclaration constructor, Void arg) {
+        if (units.contains(constructor)) return;
+        if (methodSkipDepth == 0) methodVisitor.convert(constructor);
+        super.visit(constructor, arg);
+    }
+
+    @Override
+    public void visit(ExplicitConstructorInvocationStmt stmt, Void arg) {
+        if (methodSkipDepth == 0) methodVisitor.convert(stmt);
+        super.visit(stmt, arg);
+    }
+
+    @Override
+    public void visit(ReturnStmt stmt, Void arg) {
+        if (methodSkipDepth == 0) methodVisitor.convert(stmt);
+        super.visit(stmt, arg);
+    }
+
+    @Override
+    public void visit(ExpressionStmt stmt, Void arg) {
+        if (methodSkipDepth == 0 && methodVisitor.convert(stmt)) {
+            methodSkipDepth++;
+            super.visit(stmt, arg);
+            methodSkipDepth--;
+        } else {
+            super.visit(stmt, arg);
+        }
+    }
+
+    // --- 制御構文 ---
+
+    @Override
+    public void visit(BlockStmt block, Void arg) {
+        traversal.enter(block);
+        super.visit(block, arg);
+        traversal.exit();
+    }
+
+    @Override
+    public void visit(ForStmt forStmt, Void arg) {
+        forStage.add(o -> ForStatementConverter.convert(forStmt, o, context));
+        traversal.enter(forStmt);
+        super.visit(forStmt, arg);
+        traversal.exit();
+    }
+
+    @Override
+    public void visit(ForEachStmt foreachStmt, Void arg) {
+        forStage.add(o -> ForStatementConverter.convert(foreachStmt, o, context));
+        super.visit(foreachStmt, arg);
+    }
+
+    @Override
+    public void visit(WhileStmt whileStmt, Void arg) {
+        whileStage.add(o -> WhileStatementConverter.convert(whileStmt, o, context));
+        traversal.enter(whileStmt);
+        super.visit(whileStmt, arg);
+        traversal.exit();
+    }
+
+    @Override
+    public void visit(IfStmt ifStmt, Void arg) {
+        ifStage.add(o -> IfStatementConverter.convert(ifStmt, o, context));
+        traversal.enter(ifStmt);
+        super.visit(ifStmt, arg);
+        traversal.exit();
+    }
+
+    @Override
+    public void visit(SwitchStmt switchStmt, Void arg) {
+        switchStage.add(o -> SwitchStatementConverter.convert(switchStmt, o, context));
+        super.visit(switchStmt, arg);
+    }
+
+    @Override
+    public void visit(TryStmt tryStmt, Void arg) {
+        tryStage.add(o -> TryCatchConverter.convert(tryStmt, o, context));
+        super.visit(tryStmt, arg);
+    }
+
+    @Override
+    public void visit(ThrowStmt stmt, Void arg) {
+        throwStage.add(o -> ThrowStatementConverter.convert(stmt, o, context));
+        super.visit(stmt, arg);
+    }
+
+    // --- 宣言・式 ---
+
+    @Override
+    public void visit(PackageDeclaration pkg, Void arg) {
+        packageStage.add(o -> PackageConverter.convert(pkg, o));
+        super.visit(pkg, arg);
+    }
+
+    @Override
+    public void visit(FieldDeclaration field, Void arg) {
+        fieldStage.add(o -> FieldConverter.convert(field, o, context));
+        super.visit(field, arg);
+    }
+
+    @Override
+    public void visit(VariableDeclarationExpr variableDecl, Void arg) {
+        fieldStage.add(o -> FieldConverter.convert(variableDecl, o, context));
+        super.visit(variableDecl, arg);
+    }
+
+    @Override
+    public void visit(VariableDeclarator variable, Void arg) {
+        arrayStage.add(o -> ArrayConverter.convert(variable, o, context));
+        variableStage.add(o -> VariableInitConverter.convert(variable, o, context));
+        super.visit(variable, arg);
+    }
+
+    @Override
+    public void visit(AssignExpr assignExpr, Void arg) {
+        arrayStage.add(o -> ArrayConverter.convert(assignExpr, o, context));
+        variableStage.add(o -> VariableInitConverter.convert(assignExpr, o, context));
+        super.visit(assignExpr, arg);
+    }
+
+    @Override
+    public void visit(UnaryExpr unaryExpr, Void arg) {
+        variableStage.add(o -> VariableInitConverter.convert(unaryExpr, o, context));
+        super.visit(unaryExpr, arg);
+    }
+
+    @Override
+    public void visit(MethodCallExpr methodCall, Void arg) {
+        printStage.add(o -> PrintlnConverter.convert(methodCall, o, context));
+        super.visit(methodCall, arg);
+    }
+}
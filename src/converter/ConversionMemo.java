@@ -0,0 +1,122 @@
+package converter;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+
+/**
+ * 1回の変換の中で、式の変換結果をノードごとに覚えておく表
+ *
+ * ExpressionConverter・ConditionConverter・MethodConverter は互いに呼び合い、
+ * 入れ子の深い式では同じノードを何度も変換する。変換結果はノード(と親)だけで決まるので、
+ * ノードの同一性(==)をキーにして結果(変換できなかった null も含む)を覚えておく。
+ *
+ * 各変換クラスは static メソッドで、コンテキストを引数に持たないため、
+ * 変換中の表は ConversionEngine がスレッドに結び付ける(bind)。結び付いていなければ覚えない。
+ * 既定では使わない (ConversionContext.enableMemo を参照)。
+ */
+public final class ConversionMemo {
+
+    // 変換できなかった(null)ことを表す印
+    private static final String NONE = new String("null");
+
+    private static final ThreadLocal<ConversionMemo> CURRENT = new ThreadLocal<>();
+
+    private final Table expressions = new Table();
+    private final Table conditions = new Table();
+    private final Table methodCalls = new Table();
+
+    /**
+     * このスレッドで変換中の表を返す。変換中でなければ null
+     */
+    static ConversionMemo current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * この表をこのスレッドに結び付ける。戻り値の以前の表は unbind に渡して元に戻す
+     */
+    ConversionMemo bind() {
+        ConversionMemo previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    static void unbind(ConversionMemo previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * ExpressionConverter.convertExpression の結果
+     */
+    static String expression(Expression expr, Function<Expression, String> converter) {
+        ConversionMemo memo = CURRENT.get();
+        return memo == null ? converter.apply(expr) : memo.expressions.get(expr, converter);
+    }
+
+    /**
+     * ConditionConverter.convertCondition の結果
+     */
+    static String condition(Expression expr, Function<Expression, String> converter) {
+        ConversionMemo memo = CURRENT.get();
+        return memo == null ? converter.apply(expr) : memo.conditions.get(expr, converter);
+    }
+
+    /**
+     * MethodConverter.convertMethodCallExpression の結果
+     */
+    static String methodCall(MethodCallExpr expr, Function<MethodCallExpr, String> converter) {
+        ConversionMemo memo = CURRENT.get();
+        return memo == null ? converter.apply(expr) : memo.methodCalls.get(expr, converter);
+    }
+
+    public long expressionHits() {
+        return expressions.hits;
+    }
+
+    public long expressionMisses() {
+        return expressions.misses;
+    }
+
+    public long conditionHits() {
+        return conditions.hits;
+    }
+
+    public long conditionMisses() {
+        return conditions.misses;
+    }
+
+    public long methodCallHits() {
+        return methodCalls.hits;
+    }
+
+    public long methodCallMisses() {
+        return methodCalls.misses;
+    }
+
+    private static final class Table {
+        private final Map<Expression, String> results = new IdentityHashMap<>();
+        private long hits;
+        private long misses;
+
+        <T extends Expression> String get(T expr, Function<T, String> converter) {
+            String result = results.get(expr);
+            if (result != null) {
+                hits++;
+                return result == NONE ? null : result;
+            }
+            misses++;
+            // 変換中に同じ表へ再帰的に追加されるので computeIfAbsent は使わない
+            result = converter.apply(expr);
+            results.put(expr, result == null ? NONE : result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+
+/**
+ * 1つのファイルを、他と独立に変換できる単位(メソッド・コンストラクタ)に分けるクラス
+ *
+ * メソッドの変換が読み書きするインデントと、出力する変換結果は、そのメソッドの行の中に収まる。
+ * そのため、前後のメンバーや型の宣言と行を共有しないメソッドは、他のメソッドと同時に変換しても
+ * 同じインデントを読み、出力も行ごとに分かれるので、順番に変換したときと同じ結果になる。
+ * 行を共有するメソッド(1行に複数のメンバーを書いた場合など)は単位にせず、ファイル全体の変換に残す。
+ */
+final class ConversionUnits {
+
+    private ConversionUnits() {
+    }
+
+    /**
+     * 型(入れ子の型も含む)のメンバーから、独立に変換できるメソッド・コンストラクタをソースの順に返す
+     */
+    static List<CallableDeclaration<?>> find(CompilationUnit cu) {
+        List<CallableDeclaration<?>> units = new ArrayList<>();
+        for (TypeDeclaration<?> type : cu.getTypes()) {
+            collect(type, units);
+        }
+        return units;
+    }
+
+    /**
+     * 単位の行数の合計
+     */
+    static int lineCount(List<CallableDeclaration<?>> units) {
+        int lines = 0;
+        for (CallableDeclaration<?> unit : units) {
+            lines += endLine(unit) - beginLine(unit) + 1;
+        }
+        return lines;
+    }
+
+    private static void collect(TypeDeclaration<?> type, List<CallableDeclaration<?>> units) {
+        List<BodyDeclaration<?>> members = type.getMembers();
+        // 位置情報がなければ行を共有しているか分からないので、この型は分けない
+        if (!type.hasRange() || !members.stream().allMatch(Node::hasRange)) {
+            return;
+        }
+        // 直前のメンバー(なければ型の宣言の始まり)が終わる行
+        int previousEnd = beginLine(type);
+        for (int i = 0; i < members.size(); i++) {
+            BodyDeclaration<?> member = members.get(i);
+            int nextBegin = i + 1 < members.size() ? beginLine(members.get(i + 1)) : endLine(type);
+            if (member instanceof CallableDeclaration
+                    && beginLine(member) > previousEnd && endLine(member) < nextBegin) {
+                units.add((CallableDeclaration<?>) member);
+            } else if (member instanceof TypeDeclaration) {
+                collect((TypeDeclaration<?>) member, units);
+            }
+            previousEnd = Math.max(previousEnd, endLine(member));
+        }
+    }
+
+    private static int beginLine(Node node) {
+        return node.getRange().get().begin.line;
+    }
+
+    private static int endLine(Node node) {
+        return node.getRange().get().end.line;
+    }
+}
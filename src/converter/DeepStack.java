@@ -0,0 +1,105 @@
+package converter;
+
+/**
+ * 入れ子の深いコードでスタックが溢れたら、より大きなスタックのスレッドで解析と変換をやり直すクラス
+ *
+ * JavaParser の解析や構文木の走査、式の変換は入れ子1段ごとに再帰するので、
+ * 自動生成された入れ子の深いコード(数千段)ではスタックが溢れる。
+ * 解析・変換は入力だけで決まり、溢れた時点ではまだ何も出力していないので、
+ * StackOverflowError を捕まえて、スタックを大きくした専用のスレッドで最初からやり直せばよい。
+ * 普通のコードは呼び出し元のスレッドでそのまま実行するので、スレッドを作る手間はかからない。
+ */
+public final class DeepStack {
+
+    // やり直すときのスタックの大きさ。入れ子1段あたり数KBなので、最後の大きさで10万段以上まで変換できる
+    private static final long[] STACK_SIZES = {64L << 20, 256L << 20, 1L << 30};
+
+    private DeepStack() {
+    }
+
+    /**
+     * 今のスレッドが、やり直し用の大きなスタックのスレッドかどうか
+     * fork-join プールのスレッドのスタックは大きくないので、やり直し中は変換を他のスレッドに分けないこと
+     */
+    public static boolean onLargeStack() {
+        return Thread.currentThread() instanceof Worker;
+    }
+
+    /**
+     * スタックが溢れたらやり直す処理 (解析と変換の全体)
+     */
+    public interface Task<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * task を実行する。スタックが溢れたら、より大きなスタックのスレッドでやり直す
+     * 最も大きなスタックでも溢れた場合は StackOverflowError を投げる
+     */
+    public static <E extends Exception> void run(Task<E> task) throws E {
+        try {
+            task.run();
+            return;
+        } catch (StackOverflowError e) {
+            // 下で大きなスタックを使ってやり直す
+        }
+        StackOverflowError overflow = null;
+        for (long stackSize : STACK_SIZES) {
+            try {
+                runOnThread(task, stackSize);
+                return;
+            } catch (StackOverflowError e) {
+                overflow = e;
+            }
+        }
+        throw overflow;
+    }
+
+    private static <E extends Exception> void runOnThread(Task<E> task, long stackSize) throws E {
+        Throwable[] failure = new Throwable[1];
+        Thread worker = new Worker(() -> {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                failure[0] = t;
+            }
+        }, stackSize);
+        worker.start();
+
+        // 変換は必ず終わるので、割り込まれても待ち続け、割り込みの状態は戻しておく
+        boolean interrupted = false;
+        while (true) {
+            try {
+                worker.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        rethrow(failure[0]);
+    }
+
+    private static final class Worker extends Thread {
+        Worker(Runnable task, long stackSize) {
+            super(null, task, "deep-stack", stackSize);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> void rethrow(Throwable failure) throws E {
+        if (failure == null) {
+            return;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        // Task.run が投げられるのは E だけ
+        throw (E) failure;
+    }
+}
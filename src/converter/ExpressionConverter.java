@@ -1,5 +1,11 @@
 package converter;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.github.javaparser.ast.expr.AssignExpr;
@@ -20,6 +26,7 @@ import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.expr.ObjectCreationExpr;
 import com.github.javaparser.ast.expr.StringLiteralExpr;
 import com.github.javaparser.ast.expr.TextBlockLiteralExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
 import com.github.javaparser.ast.expr.UnaryExpr;
 
 /**
@@ -35,266 +42,324 @@ public class ExpressionConverter {
      * @return 変換後の文字列、変換できない場合はnull
      */
     public static String convertExpression(Expression expression) {
+        // ConversionMemo が有効なら、同じ式を何度も変換しないよう結果を覚えておく
+        return ConversionMemo.expression(expression, ExpressionConverter::convertExpressionUncached);
+    }
+
+    private static String convertExpressionUncached(Expression expression) {
         Expression expr = unwrap(expression);
+        return HANDLERS.getOrDefault(expr.getClass(), ExpressionConverter::convertOther).convert(expr, expression);
+    }
 
-        // --- 右辺が代入式の場合 (例: c = (a = 20)) ---
-        if (expr instanceof AssignExpr) {
-            AssignExpr assignExpr = (AssignExpr) expr;
-            // 通常の代入式(=)で、かつ親が式の一部である場合のみ、入れ子代入として特別処理
-            if (assignExpr.getOperator() == AssignExpr.Operator.ASSIGN) {
-                if (expression.getParentNode().isPresent() && !(expression.getParentNode().get() instanceof com.github.javaparser.ast.stmt.ExpressionStmt)) {
-                    String innerVarName = assignExpr.getTarget().toString();
-                    Expression innerValue = assignExpr.getValue();
-                    
-                    // 右辺をconvertExpressionで再帰的に変換（ネストした代入式に対応）
-                    String convertedValue = convertExpression(innerValue);
-                    if (convertedValue == null) {
-                        convertedValue = innerValue.toString();
-                    }
-                    
-                    return "(" + innerVarName + " は " + convertedValue + ")";
-                }
-            }
-        }
+    /**
+     * 式の種類ごとの変換処理
+     */
+    private interface Handler {
+        /**
+         * @param expr キャストと括弧を剥がした式 (登録したクラスのインスタンス)
+         * @param expression 剥がす前の式 (親ノードを調べるのに使う)
+         * @return 変換後の文字列、変換できない場合はnull
+         */
+        String convert(Expression expr, Expression expression);
+    }
 
-        // --- 右辺が条件式の場合、ConditionConverterで変換を試みる ---
-        boolean isConditionalExpr = false;
-        if (expr instanceof BinaryExpr) {
-            BinaryExpr.Operator op = ((BinaryExpr) expr).getOperator();
-            isConditionalExpr = op == BinaryExpr.Operator.EQUALS || op == BinaryExpr.Operator.NOT_EQUALS ||
-                                op == BinaryExpr.Operator.LESS || op == BinaryExpr.Operator.LESS_EQUALS ||
-                                op == BinaryExpr.Operator.GREATER || op == BinaryExpr.Operator.GREATER_EQUALS ||
-                                op == BinaryExpr.Operator.AND || op == BinaryExpr.Operator.OR;
-        } else if (expr instanceof UnaryExpr && ((UnaryExpr) expr).getOperator() == UnaryExpr.Operator.LOGICAL_COMPLEMENT) {
-            isConditionalExpr = true;
-        } else if (expr instanceof MethodCallExpr) {
-            isConditionalExpr = true; // メソッド呼び出しは条件の可能性がある
-        }
-        if (isConditionalExpr) {
-            String conditionText = ConditionConverter.convertCondition(expr);
-            if (conditionText != null && !conditionText.endsWith("が真")) {
-                return conditionText;
-            }
-        }
+    // 式のクラス → 変換処理。instanceof を順に並べる代わりに、クラスで1回引くだけで処理が決まる
+    // ここにないクラスは convertOther で変換する
+    private static final Map<Class<? extends Expression>, Handler> HANDLERS = handlers();
+
+    private static Map<Class<? extends Expression>, Handler> handlers() {
+        Map<Class<? extends Expression>, Handler> handlers = new HashMap<>();
+        handlers.put(AssignExpr.class, (expr, expression) -> convertAssign((AssignExpr) expr, expression));
+        handlers.put(BinaryExpr.class, (expr, expression) -> convertBinary((BinaryExpr) expr, expression));
+        handlers.put(UnaryExpr.class, (expr, expression) -> convertUnary((UnaryExpr) expr));
+        handlers.put(MethodCallExpr.class, (expr, expression) -> convertMethodCall((MethodCallExpr) expr));
+        handlers.put(InstanceOfExpr.class, (expr, expression) -> convertInstanceOf((InstanceOfExpr) expr));
+        handlers.put(ConditionalExpr.class, (expr, expression) -> convertConditional((ConditionalExpr) expr));
+        handlers.put(ObjectCreationExpr.class, (expr, expression) -> convertObjectCreation((ObjectCreationExpr) expr));
+        handlers.put(FieldAccessExpr.class, (expr, expression) -> convertFieldAccess((FieldAccessExpr) expr));
+        // thisキーワードを「自身」に変換
+        handlers.put(ThisExpr.class, (expr, expression) -> "自身");
+        // 文字列/テキストブロック/char の処理
+        handlers.put(StringLiteralExpr.class,
+                (expr, expression) -> "「" + getStringLiteralValue((StringLiteralExpr) expr) + "」");
+        handlers.put(TextBlockLiteralExpr.class,
+                (expr, expression) -> "「" + getTextBlockValue((TextBlockLiteralExpr) expr) + "」");
+        handlers.put(CharLiteralExpr.class,
+                (expr, expression) -> "「" + getCharLiteralValue((CharLiteralExpr) expr) + "」");
+        return handlers;
+    }
 
-        // instanceof の処理
-        if (expr instanceof InstanceOfExpr) {
-            InstanceOfExpr instanceOfExpr = (InstanceOfExpr) expr;
-            String objectName = convertExpression(instanceOfExpr.getExpression());
-            String typeName = instanceOfExpr.getType().toString();
-            if (instanceOfExpr.getPattern().isPresent()) {
-                String patternVar = instanceOfExpr.getPattern().get().toString();
-                return "(" + objectName + "が" + typeName + "型で" + patternVar + "に代入できる)";
-            }
-            return objectName + "が" + typeName + "型";
-        }
+    /**
+     * 代入式
+     */
+    private static String convertAssign(AssignExpr assignExpr, Expression expression) {
+        if (assignExpr.getOperator() == AssignExpr.Operator.ASSIGN) {
+            // --- 右辺が代入式の場合 (例: c = (a = 20)) ---
+            // 親が式の一部である場合のみ、入れ子代入として特別処理
+            if (expression.getParentNode().isPresent() && !(expression.getParentNode().get() instanceof com.github.javaparser.ast.stmt.ExpressionStmt)) {
+                String innerVarName = NameResolver.text(assignExpr.getTarget());
+                Expression innerValue = assignExpr.getValue();
 
-        // 三項演算子の処理 (condition ? then : else)
-        if (expr instanceof ConditionalExpr) {
-            ConditionalExpr conditional = (ConditionalExpr) expr;
-            String conditionStr = ConditionConverter.convertCondition(conditional.getCondition());
-            String thenStr = convertExpression(conditional.getThenExpr());
-            String elseStr = convertExpression(conditional.getElseExpr());
-            return "もし(" + conditionStr + ")ならば(" + thenStr + ")違えば(" + elseStr + ")";
+                // 右辺をconvertExpressionで再帰的に変換（ネストした代入式に対応）
+                String convertedValue = convertExpression(innerValue);
+                if (convertedValue == null) {
+                    convertedValue = NameResolver.text(innerValue);
+                }
+
+                return "(" + innerVarName + " は " + convertedValue + ")";
+            }
+            return getValueString(assignExpr);
         }
 
         // 複合代入演算子の処理
-        if (expr instanceof AssignExpr) {
-            AssignExpr assignExpr = (AssignExpr) expr;
-            if (assignExpr.getOperator() != AssignExpr.Operator.ASSIGN) {
-                String target = convertTargetExpression(assignExpr.getTarget());
-                Expression value = assignExpr.getValue();
-                String operatorStr = convertCompoundOperator(assignExpr.getOperator());
-
-                // 右辺がさらに代入式の場合 (例: y += (x += 3))
-                Expression unwrappedValue = unwrap(value);
-                if (unwrappedValue instanceof AssignExpr) {
-                    AssignExpr innerAssign = (AssignExpr) unwrappedValue;
-                    String innerTarget = innerAssign.getTarget().toString();
-                    Expression innerValue = innerAssign.getValue();
-                    
-                    // 内側の代入式を変換
-                    String innerConverted;
-                    if (innerAssign.getOperator() == AssignExpr.Operator.ASSIGN) {
-                        // 通常の代入 (x = 4)
-                        String innerValueStr = convertExpression(innerValue);
-                        if (innerValueStr == null) {
-                            innerValueStr = innerValue.toString();
-                        }
-                        innerConverted = innerTarget + " は " + innerValueStr;
-                    } else {
-                        // 複合代入 (x += 3)
-                        String innerOp = convertCompoundOperator(innerAssign.getOperator());
-                        String innerValueStr = convertExpression(innerValue);
-                        if (innerValueStr == null) {
-                            innerValueStr = innerValue.toString();
-                        }
-                        innerConverted = innerTarget + " は " + innerTarget + " " + innerOp + " " + innerValueStr;
-                    }
-                    
-                    return "(" + target + " " + operatorStr + " (" + innerConverted + "))";
-                } else {
-                    String valueStr = convertExpression(value);
-                    if (valueStr == null) {
-                        valueStr = value.toString();
-                    }
-                    return "(" + target + " " + operatorStr + " " + valueStr + ")";
+        String target = convertTargetExpression(assignExpr.getTarget());
+        Expression value = assignExpr.getValue();
+        String operatorStr = convertCompoundOperator(assignExpr.getOperator());
+
+        // 右辺がさらに代入式の場合 (例: y += (x += 3))
+        Expression unwrappedValue = unwrap(value);
+        if (unwrappedValue instanceof AssignExpr) {
+            AssignExpr innerAssign = (AssignExpr) unwrappedValue;
+            String innerTarget = NameResolver.text(innerAssign.getTarget());
+            Expression innerValue = innerAssign.getValue();
+
+            // 内側の代入式を変換
+            String innerConverted;
+            if (innerAssign.getOperator() == AssignExpr.Operator.ASSIGN) {
+                // 通常の代入 (x = 4)
+                String innerValueStr = convertExpression(innerValue);
+                if (innerValueStr == null) {
+                    innerValueStr = NameResolver.text(innerValue);
+                }
+                innerConverted = innerTarget + " は " + innerValueStr;
+            } else {
+                // 複合代入 (x += 3)
+                String innerOp = convertCompoundOperator(innerAssign.getOperator());
+                String innerValueStr = convertExpression(innerValue);
+                if (innerValueStr == null) {
+                    innerValueStr = NameResolver.text(innerValue);
                 }
+                innerConverted = innerTarget + " は " + innerTarget + " " + innerOp + " " + innerValueStr;
+            }
+
+            return "(" + target + " " + operatorStr + " (" + innerConverted + "))";
+        } else {
+            String valueStr = convertExpression(value);
+            if (valueStr == null) {
+                valueStr = NameResolver.text(value);
             }
+            return "(" + target + " " + operatorStr + " " + valueStr + ")";
         }
+    }
 
-        // 単項演算子(インクリメント/デクリメント)の処理
-        if (expr instanceof UnaryExpr) {
-            UnaryExpr unaryExpr = (UnaryExpr) expr;
-            // 式の一部として評価される場合（例：println(++a)）
-            if (expression.getParentNode().isPresent() && !(expression.getParentNode().get() instanceof com.github.javaparser.ast.stmt.ExpressionStmt)) {
-                String variableName = unaryExpr.getExpression().toString();
-                if (unaryExpr.getOperator() == UnaryExpr.Operator.PREFIX_INCREMENT ||
-                    unaryExpr.getOperator() == UnaryExpr.Operator.POSTFIX_INCREMENT) {
-                    return "(" + variableName + " + 1)";
-                } else if (unaryExpr.getOperator() == UnaryExpr.Operator.PREFIX_DECREMENT ||
-                           unaryExpr.getOperator() == UnaryExpr.Operator.POSTFIX_DECREMENT) {
-                    return "(" + variableName + " - 1)";
-                }
-            } else { // 文として評価される場合 (例: a++;)
-                String varName = unaryExpr.getExpression().toString();
-                if (unaryExpr.getOperator() == UnaryExpr.Operator.PREFIX_INCREMENT || unaryExpr.getOperator() == UnaryExpr.Operator.POSTFIX_INCREMENT) {
-                    return "(" + varName + " + 1)";
-                } else if (unaryExpr.getOperator() == UnaryExpr.Operator.PREFIX_DECREMENT || unaryExpr.getOperator() == UnaryExpr.Operator.POSTFIX_DECREMENT) {
-                    return "(" + varName + " - 1)";
-                }
+    /**
+     * 二項演算
+     */
+    private static String convertBinary(BinaryExpr binary, Expression expression) {
+        return convertBinary(binary, expression, false);
+    }
+
+    /**
+     * @param inNumericChain 文字列連結でない + の連なりの、直接の + の子だと分かっているか
+     *                       (分かっていれば、文字列連結かどうかを調べ直さない)
+     */
+    private static String convertBinary(BinaryExpr binary, Expression expression, boolean inNumericChain) {
+        // --- 比較や論理演算の場合、ConditionConverterで変換を試みる ---
+        BinaryExpr.Operator op = binary.getOperator();
+        if (op == BinaryExpr.Operator.EQUALS || op == BinaryExpr.Operator.NOT_EQUALS ||
+            op == BinaryExpr.Operator.LESS || op == BinaryExpr.Operator.LESS_EQUALS ||
+            op == BinaryExpr.Operator.GREATER || op == BinaryExpr.Operator.GREATER_EQUALS ||
+            op == BinaryExpr.Operator.AND || op == BinaryExpr.Operator.OR) {
+            String conditionText = convertAsCondition(binary);
+            if (conditionText != null) {
+                return conditionText;
             }
         }
 
         // 文字列連結の処理
-        if (expr instanceof BinaryExpr) {
-            BinaryExpr binary = (BinaryExpr) expr;
-            if (binary.getOperator() == BinaryExpr.Operator.PLUS && containsStringLiteral(binary)) {
-                return convertStringConcatenation(binary);
+        if (op == BinaryExpr.Operator.PLUS && !inNumericChain) {
+            String concatenation = convertIfStringConcatenation(binary);
+            if (concatenation != null) {
+                return concatenation;
             }
         }
 
-        // 二項演算の処理
-        if (expr instanceof BinaryExpr) {
-            BinaryExpr binary = (BinaryExpr) expr;
-            
-            // 二項演算の左辺または右辺に代入式が含まれる場合の処理
-            Expression left = binary.getLeft();
-            Expression right = binary.getRight();
-            Expression unwrappedLeft = unwrap(left);
-            Expression unwrappedRight = unwrap(right);
-            
-            boolean leftHasAssign = unwrappedLeft instanceof AssignExpr;
-            boolean rightHasAssign = unwrappedRight instanceof AssignExpr;
-            
-            if (leftHasAssign || rightHasAssign) {
-                String leftStr = convertExpression(left);
-                if (leftStr == null) {
-                    leftStr = left.toString();
-                }
-                String rightStr = convertExpression(right);
-                if (rightStr == null) {
-                    rightStr = right.toString();
-                }
-                String operator = convertBinaryOperator(binary.getOperator());
-                if (operator != null) {
-                    return "(" + leftStr + " " + operator + " " + rightStr + ")";
-                }
-            }
-            
-            String binaryResult = convertBinaryExpression(binary);
-            if (binaryResult != null) {
-                return binaryResult;
-            }
+        // 二項演算の左辺または右辺に代入式が含まれる場合の処理
+        Expression left = binary.getLeft();
+        Expression right = binary.getRight();
+        Expression unwrappedLeft = unwrap(left);
+        Expression unwrappedRight = unwrap(right);
+
+        boolean leftHasAssign = unwrappedLeft instanceof AssignExpr;
+        boolean rightHasAssign = unwrappedRight instanceof AssignExpr;
 
-            // 上記の特殊ケースに当てはまらない、一般的な二項演算の処理
+        if (leftHasAssign || rightHasAssign) {
             String leftStr = convertExpression(left);
             if (leftStr == null) {
-                leftStr = left.toString();
+                leftStr = NameResolver.text(left);
             }
             String rightStr = convertExpression(right);
             if (rightStr == null) {
-                rightStr = right.toString();
+                rightStr = NameResolver.text(right);
             }
-            String operator = convertBinaryOperator(binary.getOperator());
+            String operator = convertBinaryOperator(op);
             if (operator != null) {
-                // 親ノードも同じ優先順位の演算子なら括弧は不要
-                boolean needsParen = true;
-                if (expression.getParentNode().isPresent() && expression.getParentNode().get() instanceof BinaryExpr) {
-                    BinaryExpr parentExpr = (BinaryExpr) expression.getParentNode().get();
-                    // 親が+か-で、自分も+か-なら括弧不要
-                    if ((parentExpr.getOperator() == BinaryExpr.Operator.PLUS || parentExpr.getOperator() == BinaryExpr.Operator.MINUS) &&
-                        (binary.getOperator() == BinaryExpr.Operator.PLUS || binary.getOperator() == BinaryExpr.Operator.MINUS)) {
-                        needsParen = false;
-                    }
-                }
-                return needsParen ? "(" + leftStr + " " + operator + " " + rightStr + ")" : leftStr + " " + operator + " " + rightStr;
+                return "(" + leftStr + " " + operator + " " + rightStr + ")";
             }
         }
 
-        // オブジェクト生成の処理
-        if (expr instanceof ObjectCreationExpr) {
-            return convertObjectCreation((ObjectCreationExpr) expr);
+        String binaryResult = convertBinaryExpression(binary);
+        if (binaryResult != null) {
+            return binaryResult;
         }
 
-        // メソッド呼び出しの処理
-        if (expr instanceof MethodCallExpr) {
-            String result = MethodConverter.convertMethodCallExpression((MethodCallExpr) expr);
-            if (result != null) {
-                return result;
+        // 上記の特殊ケースに当てはまらない、一般的な二項演算の処理
+        String leftStr = convertOperand(op, left);
+        if (leftStr == null) {
+            leftStr = NameResolver.text(left);
+        }
+        String rightStr = convertOperand(op, right);
+        if (rightStr == null) {
+            rightStr = NameResolver.text(right);
+        }
+        String operator = convertBinaryOperator(op);
+        if (operator != null) {
+            // 親ノードも同じ優先順位の演算子なら括弧は不要
+            boolean needsParen = true;
+            if (expression.getParentNode().isPresent() && expression.getParentNode().get() instanceof BinaryExpr) {
+                BinaryExpr parentExpr = (BinaryExpr) expression.getParentNode().get();
+                // 親が+か-で、自分も+か-なら括弧不要
+                if ((parentExpr.getOperator() == BinaryExpr.Operator.PLUS || parentExpr.getOperator() == BinaryExpr.Operator.MINUS) &&
+                    (op == BinaryExpr.Operator.PLUS || op == BinaryExpr.Operator.MINUS)) {
+                    needsParen = false;
+                }
             }
+            return needsParen ? "(" + leftStr + " " + operator + " " + rightStr + ")" : leftStr + " " + operator + " " + rightStr;
         }
 
-        // 配列の.lengthプロパティを「の配列要素数」に変換
-        if (expr instanceof FieldAccessExpr) {
-            FieldAccessExpr fae = (FieldAccessExpr) expr;
-            if ("length".equals(fae.getNameAsString())) {
-                String scope = convertExpression(fae.getScope());
-                return scope + "の配列要素数";
-            }
-            // this.field を「自身のfield」に変換
-            if (fae.getScope().isThisExpr()) {
-                return "自身の" + fae.getNameAsString();
-            } else {
-                return convertExpression(fae.getScope()) + "の" + fae.getNameAsString();
+        // Math.random() を含む、記号にできない演算 (&&, & など)
+        if (isMathRandom(binary)) {
+            return "1の実数乱数";
+        }
+        return null;
+    }
+
+    /**
+     * 一般的な二項演算の左辺・右辺を変換する
+     * ここに来た + は文字列連結ではないので、括弧なしで直接 + が続く子もそうではない
+     * (子から + の連なりを1段ごとにたどり直すと、項の数の2乗の時間がかかる)
+     */
+    private static String convertOperand(BinaryExpr.Operator op, Expression operand) {
+        if (op == BinaryExpr.Operator.PLUS && operand instanceof BinaryExpr
+                && ((BinaryExpr) operand).getOperator() == BinaryExpr.Operator.PLUS) {
+            return ConversionMemo.expression(operand, expr -> convertBinary((BinaryExpr) expr, expr, true));
+        }
+        return convertExpression(operand);
+    }
+
+    /**
+     * 単項演算子
+     */
+    private static String convertUnary(UnaryExpr unaryExpr) {
+        UnaryExpr.Operator op = unaryExpr.getOperator();
+        if (op == UnaryExpr.Operator.LOGICAL_COMPLEMENT) {
+            String conditionText = convertAsCondition(unaryExpr);
+            if (conditionText != null) {
+                return conditionText;
             }
         }
 
-        // Math.random() 単体の場合
-        if (isMathRandom(expr)) {
-            return "1の実数乱数";
+        // インクリメント/デクリメント (println(++a) のような式の一部でも、a++; のような文でも同じ)
+        if (op == UnaryExpr.Operator.PREFIX_INCREMENT || op == UnaryExpr.Operator.POSTFIX_INCREMENT) {
+            return "(" + NameResolver.text(unaryExpr.getExpression()) + " + 1)";
+        } else if (op == UnaryExpr.Operator.PREFIX_DECREMENT || op == UnaryExpr.Operator.POSTFIX_DECREMENT) {
+            return "(" + NameResolver.text(unaryExpr.getExpression()) + " - 1)";
         }
 
-        // thisキーワードを「自身」に変換
-        if (expr.isThisExpr()) {
-            return "自身";
+        // 負の数値リテラル
+        return getValueString(unaryExpr);
+    }
+
+    /**
+     * メソッド呼び出し
+     */
+    private static String convertMethodCall(MethodCallExpr methodCall) {
+        // メソッド呼び出しは条件の可能性がある
+        String conditionText = convertAsCondition(methodCall);
+        if (conditionText != null) {
+            return conditionText;
         }
 
-        // --- Math.random() を含む掛け算パターン ---
-        if (expr instanceof BinaryExpr) {
-            // このロジックは convertBinaryExpression に集約されているため、ここでは不要
+        String result = MethodConverter.convertMethodCallExpression(methodCall);
+        if (result != null) {
+            return result;
         }
 
-        // 文字列/テキストブロック/char の処理
-        if (expr instanceof StringLiteralExpr) {
-            String valueStr = getStringLiteralValue((StringLiteralExpr) expr);
-            return "「" + valueStr + "」";
-        } else if (expr instanceof TextBlockLiteralExpr) {
-            String valueStr = getTextBlockValue((TextBlockLiteralExpr) expr);
-            return "「" + valueStr + "」";
-        } else if (expr instanceof CharLiteralExpr) {
-            String valueStr = getCharLiteralValue((CharLiteralExpr) expr);
-            return "「" + valueStr + "」";
+        // Math.random() 単体の場合
+        if (isMathRandom(methodCall)) {
+            return "1の実数乱数";
         }
+        return getValueString(methodCall);
+    }
 
-        // 数値や単純な式の文字列化
-        String valueStr = getValueString(expr);
-        if (valueStr != null) {
-            return valueStr;
+    /**
+     * ConditionConverterで条件として変換する。「〜が真」にしかならない場合はnull
+     */
+    private static String convertAsCondition(Expression expr) {
+        String conditionText = ConditionConverter.convertCondition(expr);
+        if (conditionText != null && !conditionText.endsWith("が真")) {
+            return conditionText;
         }
         return null;
     }
 
+    /**
+     * instanceof
+     */
+    private static String convertInstanceOf(InstanceOfExpr instanceOfExpr) {
+        String objectName = convertExpression(instanceOfExpr.getExpression());
+        String typeName = instanceOfExpr.getType().toString();
+        if (instanceOfExpr.getPattern().isPresent()) {
+            String patternVar = NameResolver.text(instanceOfExpr.getPattern().get());
+            return "(" + objectName + "が" + typeName + "型で" + patternVar + "に代入できる)";
+        }
+        return objectName + "が" + typeName + "型";
+    }
+
+    /**
+     * 三項演算子 (condition ? then : else)
+     */
+    private static String convertConditional(ConditionalExpr conditional) {
+        String conditionStr = ConditionConverter.convertCondition(conditional.getCondition());
+        String thenStr = convertExpression(conditional.getThenExpr());
+        String elseStr = convertExpression(conditional.getElseExpr());
+        return "もし(" + conditionStr + ")ならば(" + thenStr + ")違えば(" + elseStr + ")";
+    }
+
+    /**
+     * フィールドアクセス
+     */
+    private static String convertFieldAccess(FieldAccessExpr fae) {
+        // 配列の.lengthプロパティを「の配列要素数」に変換
+        if ("length".equals(fae.getNameAsString())) {
+            String scope = convertExpression(fae.getScope());
+            return scope + "の配列要素数";
+        }
+        // this.field を「自身のfield」に変換
+        if (fae.getScope().isThisExpr()) {
+            return "自身の" + fae.getNameAsString();
+        } else {
+            return convertExpression(fae.getScope()) + "の" + fae.getNameAsString();
+        }
+    }
+
+    /**
+     * 上記以外の式 (数値や単純な式の文字列化)
+     */
+    private static String convertOther(Expression expr, Expression expression) {
+        return getValueString(expr);
+    }
+
     private static String convertTargetExpression(Expression target) {
         if (target.isFieldAccessExpr()) {
             var fae = target.asFieldAccessExpr();
@@ -303,11 +368,11 @@ public class ExpressionConverter {
                 return "自身の" + fae.getNameAsString();
             } else {
                 // obj.field のようなケース
-                return scope.toString() + "の" + fae.getNameAsString();
+                return NameResolver.text(scope) + "の" + fae.getNameAsString();
             }
         }
         // 単純な変数 a = 10;
-        return target.toString();
+        return NameResolver.text(target);
     }
 
 
@@ -359,10 +424,10 @@ public class ExpressionConverter {
             if (left instanceof MethodCallExpr) {
                 MethodCallExpr methodCall = (MethodCallExpr) left;
                 if ("nextInt".equals(methodCall.getNameAsString())) {
-                    String scopeStr = methodCall.getScope().map(Expression::toString).orElse("");
+                    String scopeStr = methodCall.getScope().map(NameResolver::text).orElse("");
                     if (scopeStr.contains("Random")) {
                         if (methodCall.getArguments().size() == 1) {
-                            String maxValue = methodCall.getArgument(0).toString();
+                            String maxValue = NameResolver.text(methodCall.getArgument(0));
                             String rightStr = getValueString(right);
                             if (rightStr != null) {
                                 return maxValue + "の乱数+" + rightStr;
@@ -389,7 +454,7 @@ public class ExpressionConverter {
                     .getIdentifier(); // ← これでジェネリクス部分は含まれない
         } else {
             String rawType = objCreation.getTypeAsString();
-            className = rawType.replaceAll("<.*?>", "");
+            className = LiteralNormalizer.stripTypeArguments(rawType);
         }
 
         // Date の生成
@@ -399,7 +464,8 @@ public class ExpressionConverter {
             }
             if (objCreation.getArguments().size() == 1) {
                 Expression arg = unwrap(objCreation.getArgument(0));
-                String millis = getValueString(arg) != null ? getValueString(arg) : arg.toString();
+                String value = getValueString(arg);
+                String millis = value != null ? value : NameResolver.text(arg);
                 return millis + "ミリ秒日時";
             }
         }
@@ -488,8 +554,7 @@ public class ExpressionConverter {
         if (e instanceof MethodCallExpr) {
             MethodCallExpr mc = (MethodCallExpr) e;
             if ("random".equals(mc.getNameAsString())) {
-                String scope = mc.getScope().map(Expression::toString).orElse("");
-                return "Math".equals(scope);
+                return NameResolver.hasScope(mc, "Math");
             }
             return false;
         } else if (e instanceof BinaryExpr) {
@@ -503,7 +568,7 @@ public class ExpressionConverter {
      * 文字列リテラルの値を取得(エスケープシーケンス変換込み)
      */
     public static String getStringLiteralValue(StringLiteralExpr expr) {
-        String originalCode = expr.toString();
+        String originalCode = NameResolver.text(expr);
         if (originalCode.startsWith("\"") && originalCode.endsWith("\"")) {
             String content = originalCode.substring(1, originalCode.length() - 1);
             return convertJavaEscapeSequences(content);
@@ -515,7 +580,7 @@ public class ExpressionConverter {
      * Charリテラルの値を取得(エスケープシーケンス変換込み)
      */
     public static String getCharLiteralValue(CharLiteralExpr expr) {
-        String originalCode = expr.toString();
+        String originalCode = NameResolver.text(expr);
         if (originalCode.startsWith("'") && originalCode.endsWith("'")) {
             String content = originalCode.substring(1, originalCode.length() - 1);
             return convertJavaEscapeSequences(content);
@@ -557,7 +622,7 @@ public class ExpressionConverter {
             if (minIndent != Integer.MAX_VALUE && minIndent > 0 && line.length() >= minIndent) {
                 line = line.substring(minIndent);
             }
-            line = line.replaceAll("[ 　\t]+$", "");
+            line = LiteralNormalizer.stripTrailingBlanks(line);
             if (i > 0) {
                 result.append("{改行}");
             }
@@ -572,7 +637,7 @@ public class ExpressionConverter {
     public static String getValueString(Expression expression) {
         Expression expr = unwrap(expression);
         if (expr instanceof StringLiteralExpr) {
-            String originalCode = expr.toString();
+            String originalCode = NameResolver.text(expr);
             if (originalCode.startsWith("\"") && originalCode.endsWith("\"")) {
                 return originalCode.substring(1, originalCode.length() - 1);
             }
@@ -581,7 +646,7 @@ public class ExpressionConverter {
             return ((IntegerLiteralExpr) expr).getValue();
         } else if (expr instanceof LongLiteralExpr) {
             String value = ((LongLiteralExpr) expr).getValue();
-            return value.replaceAll("[Ll]$", "");
+            return LiteralNormalizer.stripLongSuffix(value);
         } else if (expr instanceof DoubleLiteralExpr) {
             return String.valueOf(((DoubleLiteralExpr) expr).asDouble());
         } else if (expr instanceof BooleanLiteralExpr) {
@@ -595,7 +660,7 @@ public class ExpressionConverter {
                     return "-" + value;
                 } else if (unary.getExpression() instanceof LongLiteralExpr) {
                     String value = ((LongLiteralExpr) unary.getExpression()).getValue();
-                    String cleanValue = value.replaceAll("[Ll]$", "");
+                    String cleanValue = LiteralNormalizer.stripLongSuffix(value);
                     return "-" + cleanValue;
                 } else if (unary.getExpression() instanceof DoubleLiteralExpr) {
                     double value = ((DoubleLiteralExpr) unary.getExpression()).asDouble();
@@ -605,10 +670,8 @@ public class ExpressionConverter {
         } else if (expr instanceof BinaryExpr) {
             return null;
         } else {
-            String value = expr.toString();
-            value = value.replaceAll("([0-9]+)[Ll]", "$1");
-            value = value.replaceAll("([0-9]*\\.?[0-9]+)[FfDd]", "$1");
-            return value;
+            String value = NameResolver.text(expr);
+            return LiteralNormalizer.stripNumericSuffixes(value);
         }
         return null;
     }
@@ -662,43 +725,87 @@ public class ExpressionConverter {
             StringLiteralExpr strExpr = (StringLiteralExpr) expr;
             return "「" + strExpr.getValue() + "」";
         } else if (expr instanceof IntegerLiteralExpr || expr instanceof LongLiteralExpr) {
-            return expr.toString();
+            return NameResolver.text(expr);
         }
-        return expr.toString();
+        return NameResolver.text(expr);
     }
 
     // --- 文字列連結のためのヘルパーメソッド (PrintlnConverterから移動) ---
 
+    /**
+     * 文字列連結(+ の連なり)に、括弧の外の文字列リテラルが含まれるか
+     */
     public static boolean containsStringLiteral(Expression expr) {
-        if (expr instanceof StringLiteralExpr) {
-            return true;
-        }
-        if (expr instanceof BinaryExpr) {
-            BinaryExpr binary = (BinaryExpr) expr;
-            if (binary.getOperator() == BinaryExpr.Operator.PLUS) {
-                return containsStringLiteral(binary.getLeft()) || containsStringLiteral(binary.getRight());
-            }
-        }
-        return false;
+        return new Concatenation(expr).hasStringLiteral;
     }
 
+    /**
+     * 文字列連結を「…{x}…」の形に変換する
+     */
     public static String convertStringConcatenation(BinaryExpr binary) {
-        StringBuilder result = new StringBuilder();
-        result.append("「");
-        collectConcatenation(binary, result);
-        result.append("」");
-        return result.toString();
+        return new Concatenation(binary).toTemplate();
     }
 
-    private static void collectConcatenation(Expression expr, StringBuilder sb) {
-        if (expr instanceof BinaryExpr) {
-            BinaryExpr binary = (BinaryExpr) expr;
-            if (binary.getOperator() == BinaryExpr.Operator.PLUS) {
-                collectConcatenation(binary.getLeft(), sb);
-                collectConcatenation(binary.getRight(), sb);
-                return;
+    /**
+     * 文字列連結なら「…{x}…」の形に変換する。文字列リテラルを含まない + の連なりなら null
+     */
+    private static String convertIfStringConcatenation(BinaryExpr binary) {
+        Concatenation concatenation = new Concatenation(binary);
+        return concatenation.hasStringLiteral ? concatenation.toTemplate() : null;
+    }
+
+    /**
+     * + の連なりを左から順に項へ分解したもの
+     *
+     * 生成コードや長いSQL・HTMLの組み立てでは、a + b + c + ... が何万段も左に入れ子になる。
+     * 再帰でたどるとスタックが溢れるので、明示的なスタックで1回だけたどり、
+     * 項の並びと、文字列リテラルを含むかどうかを同時に求める。
+     * ( ... ) の中の + も展開するが、その中の文字列リテラルは文字列連結かどうかの判定には使わない。
+     */
+    private static final class Concatenation {
+        private final List<Expression> terms = new ArrayList<>();
+        private boolean hasStringLiteral;
+
+        Concatenation(Expression root) {
+            Deque<Expression> stack = new ArrayDeque<>();
+            // 各ノードが ( ... ) の中にあるか (stack と同じ順に積む)
+            Deque<Boolean> enclosed = new ArrayDeque<>();
+            stack.push(root);
+            enclosed.push(Boolean.FALSE);
+            while (!stack.isEmpty()) {
+                Expression expr = stack.pop();
+                boolean inParens = enclosed.pop();
+                if (expr instanceof BinaryExpr && ((BinaryExpr) expr).getOperator() == BinaryExpr.Operator.PLUS) {
+                    // 左の項から順に取り出すため、右を先に積む
+                    stack.push(((BinaryExpr) expr).getRight());
+                    enclosed.push(inParens);
+                    stack.push(((BinaryExpr) expr).getLeft());
+                    enclosed.push(inParens);
+                } else if (expr instanceof EnclosedExpr) {
+                    // ( ... ) の中身も展開する
+                    stack.push(((EnclosedExpr) expr).getInner());
+                    enclosed.push(Boolean.TRUE);
+                } else {
+                    if (expr instanceof StringLiteralExpr && !inParens) {
+                        hasStringLiteral = true;
+                    }
+                    terms.add(expr);
+                }
+            }
+        }
+
+        String toTemplate() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("「");
+            for (Expression term : terms) {
+                appendTerm(term, sb);
             }
+            sb.append("」");
+            return sb.toString();
         }
+    }
+
+    private static void appendTerm(Expression expr, StringBuilder sb) {
         if (expr instanceof StringLiteralExpr) {
             String valueStr = getStringLiteralValue((StringLiteralExpr) expr);
             sb.append(valueStr);
@@ -720,16 +827,13 @@ public class ExpressionConverter {
             if (converted != null) {
                 sb.append("{").append(converted).append("}");
             }
-        } else if (expr instanceof EnclosedExpr) {
-            // ( ... ) の中身を再帰的に処理
-            collectConcatenation(((EnclosedExpr) expr).getInner(), sb);
         } else if (expr instanceof ConditionalExpr) {
             // 三項演算子を変換
             String converted = convertExpression(expr);
             sb.append("{").append(converted).append("}");
         } else {
             // その他の式はそのまま埋め込む
-            sb.append("{").append(expr.toString()).append("}");
+            sb.append("{").append(NameResolver.text(expr)).append("}");
         }
     }
-}
\ No newline at end of file
+}
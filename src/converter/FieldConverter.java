@@ -1,8 +1,5 @@
 package converter;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.FieldDeclaration;
@@ -18,64 +15,74 @@ import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
  * - フィールド: String name; → nameとは文字列。
  */
 public class FieldConverter {
-    public static List<Item> convert(CompilationUnit cu) {
-        List<Item> items = new ArrayList<>();
-        
+    public static void convert(CompilationUnit cu, ConversionContext context, OutputBuffer out) {
         cu.accept(new VoidVisitorAdapter<Void>() {
             @Override
             public void visit(VariableDeclarationExpr variableDecl, Void arg) {
-                // foreach文の変数宣言かどうかをチェック
-                if (isForEachVariable(variableDecl)) {
-                    // foreach文の変数宣言はスキップ
-                    super.visit(variableDecl, arg);
-                    return;
-                }
-                
-                // ローカル変数の宣言を処理
-                for (VariableDeclarator variable : variableDecl.getVariables()) {
-                    // 初期化式がない場合のみ処理
-                    if (!variable.getInitializer().isPresent()) {
-                        int line = variable.getBegin().map(p -> p.line).orElse(-1);
-                        String variableName = variable.getNameAsString();
-                        Type type = variable.getType();
-                        String typeName = convertTypeName(type.asString());
-                        
-                        if (typeName != null) {
-                            String indent = IndentManager.getIndentForLine(line);
-                            // ローカル変数の出力形式: 変数名は型名型。
-                            items.add(new Item(line, indent + variableName + "とは" + typeName + "型。"));
-                        }
-                    }
-                }
+                convert(variableDecl, out, context);
                 super.visit(variableDecl, arg);
             }
             
             @Override
             public void visit(FieldDeclaration field, Void arg) {
-                // フィールド（クラスのメンバー変数）の宣言を処理
-                for (VariableDeclarator variable : field.getVariables()) {
-                    // 初期化式がない場合のみ処理
-                    if (!variable.getInitializer().isPresent()) {
-                        int line = variable.getBegin().map(p -> p.line).orElse(-1);
-                        String variableName = variable.getNameAsString();
-                        Type type = variable.getType();
-                        String typeName = convertTypeName(type.asString());
-                        
-                        if (typeName != null) {
-                            // ★★★ここが重要：インデントを取得★★★
-                            String indent = IndentManager.getIndentForLine(line);
-                            // フィールドの出力形式: 変数名とは型名。
-                            items.add(new Item(line, indent + variableName + "とは" + typeName + "。"));
-                        }
-                    }
-                }
+                convert(field, out, context);
                 super.visit(field, arg);
             }
         }, null);
         
-        return items;
     }
     
+    /**
+     * 初期化式のないローカル変数の宣言を変換する (ConversionEngine から呼び出される)
+     */
+    static void convert(VariableDeclarationExpr variableDecl, OutputBuffer out, ConversionContext context) {
+        // foreach文の変数宣言かどうかをチェック
+        if (isForEachVariable(variableDecl)) {
+            // foreach文の変数宣言はスキップ
+            return;
+        }
+        
+        // ローカル変数の宣言を処理
+        for (VariableDeclarator variable : variableDecl.getVariables()) {
+            // 初期化式がない場合のみ処理
+            if (!variable.getInitializer().isPresent()) {
+                int line = variable.getBegin().map(p -> p.line).orElse(-1);
+                String variableName = variable.getNameAsString();
+                Type type = variable.getType();
+                String typeName = convertTypeName(type.asString());
+                
+                if (typeName != null) {
+                    String indent = context.getIndentForLine(line);
+                    // ローカル変数の出力形式: 変数名は型名型。
+                    out.add(line, indent + variableName + "とは" + typeName + "型。");
+                }
+            }
+        }
+    }
+
+    /**
+     * 初期化式のないフィールドの宣言を変換する (ConversionEngine から呼び出される)
+     */
+    static void convert(FieldDeclaration field, OutputBuffer out, ConversionContext context) {
+        // フィールド（クラスのメンバー変数）の宣言を処理
+        for (VariableDeclarator variable : field.getVariables()) {
+            // 初期化式がない場合のみ処理
+            if (!variable.getInitializer().isPresent()) {
+                int line = variable.getBegin().map(p -> p.line).orElse(-1);
+                String variableName = variable.getNameAsString();
+                Type type = variable.getType();
+                String typeName = convertTypeName(type.asString());
+                
+                if (typeName != null) {
+                    // ★★★ここが重要：インデントを取得★★★
+                    String indent = context.getIndentForLine(line);
+                    // フィールドの出力形式: 変数名とは型名。
+                    out.add(line, indent + variableName + "とは" + typeName + "。");
+                }
+            }
+        }
+    }
+
     /**
      * foreach文の変数宣言かどうかを判定
      */
@@ -134,14 +141,4 @@ public class FieldConverter {
                 return javaType;
         }
     }
-    
-    public static class Item {
-        public final int line;
-        public final String content;
-        
-        public Item(int line, String content) {
-            this.line = line;
-            this.content = content;
-        }
-    }
 }
\ No newline at end of file
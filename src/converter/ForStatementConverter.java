@@ -1,7 +1,5 @@
 package converter;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -17,28 +15,36 @@ import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 public class ForStatementConverter { // for文をなでしこ形式に変換するクラス
 
-    public static List<Item> convert(CompilationUnit cu) {
-        List<Item> items = new ArrayList<>();
-
+    public static void convert(CompilationUnit cu, ConversionContext context, OutputBuffer out) {
         cu.accept(new VoidVisitorAdapter<Void>() {
             @Override
             public void visit(ForStmt forStmt, Void arg) {
-                handleTraditionalForLoop(forStmt, items); // 通常のfor文の処理
+                convert(forStmt, out, context);
                 super.visit(forStmt, arg);
             }
             
             @Override
             public void visit(ForEachStmt foreachStmt, Void arg) {
-                handleForEachLoop(foreachStmt, items); // foreach文（拡張for文）の処理
+                convert(foreachStmt, out, context);
                 super.visit(foreachStmt, arg);
             }
         }, null);
-        return items;
     }
 
-    private static void handleForEachLoop(ForEachStmt forEachStmt, List<Item> items) {
+    /**
+     * 1つのfor文を変換する (ConversionEngine から呼び出される)
+     */
+    static void convert(ForStmt forStmt, OutputBuffer out, ConversionContext context) {
+        handleTraditionalForLoop(forStmt, out, context); // 通常のfor文の処理
+    }
+
+    static void convert(ForEachStmt foreachStmt, OutputBuffer out, ConversionContext context) {
+        handleForEachLoop(foreachStmt, out, context); // foreach文（拡張for文）の処理
+    }
+
+    private static void handleForEachLoop(ForEachStmt forEachStmt, OutputBuffer out, ConversionContext context) {
         int line = forEachStmt.getBegin().map(p -> p.line).orElse(-1);
-        String outerIndent = IndentManager.getIndentForLine(line);
+        String outerIndent = context.getIndentForLine(line);
 
         // 変数名とコレクション名を取得
         String varName = forEachStmt.getVariable().getVariables().get(0).getNameAsString();
@@ -49,14 +55,14 @@ public class ForStatementConverter { // for文をなでしこ形式に変換す
 
         // なでしこ形式のテキスト生成
         String forText = String.format("%s%sの各要素を%sへ取り出して繰り返す", outerIndent, collection, varName);
-        items.add(new Item(line, forText));
+        out.add(line, forText);
 
         Statement bodyStmt = forEachStmt.getBody();
         // 終了処理
-        addEndItem(bodyStmt, line, outerIndent, items);
+        addEndItem(bodyStmt, line, outerIndent, out);
     }
 
-    private static void handleTraditionalForLoop(ForStmt forStmt, List<Item> items) {
+    private static void handleTraditionalForLoop(ForStmt forStmt, OutputBuffer out, ConversionContext context) {
         String initVar = "";
         String initVal = "";
 
@@ -85,16 +91,16 @@ public class ForStatementConverter { // for文をなでしこ形式に変換す
 
         // for文の出力
         int line = forStmt.getBegin().map(p -> p.line).orElse(-1);
-        String outerIndent = IndentManager.getIndentForLine(line);
+        String outerIndent = context.getIndentForLine(line);
         String forText = String.format("%s%sから(%s)まで%sを繰り返す", outerIndent, initPart, compareText, update);
-        items.add(new Item(line, forText));
+        out.add(line, forText);
 
         Statement bodyStmt = forStmt.getBody();
         // 終了処理
-        addEndItem(bodyStmt, line, outerIndent, items);
+        addEndItem(bodyStmt, line, outerIndent, out);
     }
 
-    private static void addEndItem(Statement bodyStmt, int startLine, String indent, List<Item> items) {
+    private static void addEndItem(Statement bodyStmt, int startLine, String indent, OutputBuffer out) {
         int endLine;
         if (bodyStmt instanceof BlockStmt) {
             Optional<Statement> lastStmt = ((BlockStmt) bodyStmt).getStatements().getLast();
@@ -106,16 +112,6 @@ public class ForStatementConverter { // for文をなでしこ形式に変換す
         } else {
             endLine = bodyStmt.getEnd().map(p -> p.line + 1).orElse(startLine + 1);
         }
-        items.add(new Item(endLine, indent + "ここまで。"));
-    }
-
-    public static class Item {
-        public final int line;
-        public final String content;
-
-        public Item(int line, String content) {
-            this.line = line;
-            this.content = content;
-        }
+        out.add(endLine, indent + "ここまで。");
     }
 }
\ No newline at end of file
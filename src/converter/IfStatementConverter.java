@@ -1,8 +1,5 @@
 package converter;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.stmt.BlockStmt;
@@ -12,91 +9,31 @@ import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 public class IfStatementConverter {
 
-    public static List<Item> convert(CompilationUnit cu) {
-        List<Item> items = new ArrayList<>();
-        
+    public static void convert(CompilationUnit cu, ConversionContext context, OutputBuffer out) {
         cu.accept(new VoidVisitorAdapter<Void>() {
             @Override
             public void visit(IfStmt ifStmt, Void arg) {
-                // else ifの一部として処理される場合はスキップ
-                if (isPartOfElseIf(ifStmt)) {
-                    super.visit(ifStmt, arg);
-                    return;
-                }
-                int line = ifStmt.getBegin().map(p -> p.line).orElse(-1);
-                String condition = ConditionConverter.convertCondition(ifStmt.getCondition());
-                String outerIndent = IndentManager.getIndentForLine(line);
-
-                // then 節が単一の return を含む場合は if 行と return 行を分けて出力する
-                Statement thenStmt = ifStmt.getThenStmt();
-                if (isSingleReturn(thenStmt)) {
-                    com.github.javaparser.ast.stmt.ReturnStmt returnStmt;
-                    if (thenStmt instanceof BlockStmt) {
-                        BlockStmt blk = (BlockStmt) thenStmt;
-                        returnStmt = (com.github.javaparser.ast.stmt.ReturnStmt) blk.getStatements().get(0);
-                    } else {
-                        returnStmt = (com.github.javaparser.ast.stmt.ReturnStmt) thenStmt;
-                    }
-
-                    // 1) if 行
-                    String ifText = outerIndent + "もし、(" + condition + ")ならば";
-                    items.add(new Item(line, ifText, 5));
-
-                    // 2) indented return 行(return の行番号を使う)
-                    int returnLine = returnStmt.getBegin().map(p -> p.line).orElse(line + 1);
-                    String returnValue = returnStmt.getExpression()
-                            .map(e -> ConditionConverter.convertExpressionToString(e))
-                            .orElse("");
-                    String returnIndent = outerIndent + "　";
-                    if (!returnValue.isEmpty()) {
-                        items.add(new Item(returnLine, returnIndent + returnValue + "を戻す。", 35));
-                    } else {
-                        items.add(new Item(returnLine, returnIndent + "戻す。", 35));
-                    }
-                } else {
-                    String ifText = outerIndent + "もし、(" + condition + ")ならば";
-                    items.add(new Item(line, ifText, 5));
-                    // then節がブロック文の場合はMethodConverterが処理する。
-                    // そうでない単一文の場合は、ここでインデントを記録する。
-                    if (!(thenStmt instanceof BlockStmt)) {
-                        thenStmt.getBegin().ifPresent(p -> IndentManager.recordIndentForLine(p.line, outerIndent + "　"));
-                    }
-                }
-
-                // else節の処理
-                int endLine = ifStmt.getEnd().map(p -> p.line).orElse(-1);
-                if (ifStmt.getElseStmt().isPresent()) {
-                    Statement elseStmt = ifStmt.getElseStmt().get();
-                    if (elseStmt instanceof IfStmt) { // else if
-                        IfStmt elseIfStmt = (IfStmt) elseStmt;
-                        processElseIfChain(elseIfStmt, outerIndent, items);
-                    } else { // else
-                        int elseLine = elseStmt.getBegin().map(p -> p.line).orElse(-1);
-                        items.add(new Item(elseLine, outerIndent + "違えば", 5));
-                        // else節がブロック文の場合はMethodConverterが処理する。
-                        // そうでない単一文の場合は、ここでインデントを記録する。
-                        if (!(elseStmt instanceof BlockStmt)) {
-                            elseStmt.getBegin().ifPresent(p -> IndentManager.recordIndentForLine(p.line, outerIndent + "　"));
-                        }
-                    }
-                }
-                
-                // if文全体の終了を示す「ここまで。」を追加
-                // priorityを999にして確実に最後に配置
-                items.add(new Item(endLine, outerIndent + "ここまで。", 999));
-                
+                convert(ifStmt, out, context);
                 super.visit(ifStmt, arg);
             }
         }, null);
-        return items;
     }
 
-    private static void processElseIfChain(IfStmt elseIfStmt, String outerIndent, List<Item> items) {
-        int elseLine = elseIfStmt.getBegin().map(p -> p.line).orElse(-1);
-        String elseIfCondition = ConditionConverter.convertCondition(elseIfStmt.getCondition());
+    /**
+     * 1つのif文(else if の連鎖を含む)を変換する (ConversionEngine から呼び出される)
+     */
+    static void convert(IfStmt ifStmt, OutputBuffer out, ConversionContext context) {
+        // else ifの一部として処理される場合はスキップ
+        if (isPartOfElseIf(ifStmt)) {
+            return;
+        }
+        int line = ifStmt.getBegin().map(p -> p.line).orElse(-1);
+        String condition = ConditionConverter.convertCondition(ifStmt.getCondition());
+        int depth = context.getDepthForLine(line);
+        String outerIndent = IndentManager.indentOf(depth);
 
-        // else-if の then 節も single-return の場合は if 行と return 行を分けて出力
-        Statement thenStmt = elseIfStmt.getThenStmt();
+        // then 節が単一の return を含む場合は if 行と return 行を分けて出力する
+        Statement thenStmt = ifStmt.getThenStmt();
         if (isSingleReturn(thenStmt)) {
             com.github.javaparser.ast.stmt.ReturnStmt returnStmt;
             if (thenStmt instanceof BlockStmt) {
@@ -106,45 +43,115 @@ public class IfStatementConverter {
                 returnStmt = (com.github.javaparser.ast.stmt.ReturnStmt) thenStmt;
             }
 
-            // else-if の if 行
-            items.add(new Item(elseLine, outerIndent + "違えば、もし、(" + elseIfCondition + ")ならば", 5));
+            // 1) if 行
+            String ifText = outerIndent + "もし、(" + condition + ")ならば";
+            out.add(line, ifText, 5);
 
-            // return 行(インデントを付ける)
-            int returnLine = returnStmt.getBegin().map(p -> p.line).orElse(elseLine + 1);
+            // 2) indented return 行(return の行番号を使う)
+            int returnLine = returnStmt.getBegin().map(p -> p.line).orElse(line + 1);
             String returnValue = returnStmt.getExpression()
                     .map(e -> ConditionConverter.convertExpressionToString(e))
                     .orElse("");
-            String returnIndent = outerIndent + "　";
+            String returnIndent = IndentManager.indentOf(depth + 1);
             if (!returnValue.isEmpty()) {
-                items.add(new Item(returnLine, returnIndent + returnValue + "を戻す。", 35));
+                out.add(returnLine, returnIndent + returnValue + "を戻す。", 35);
             } else {
-                items.add(new Item(returnLine, returnIndent + "戻す。", 35));
+                out.add(returnLine, returnIndent + "戻す。", 35);
             }
         } else {
-            items.add(new Item(elseLine, outerIndent + "違えば、もし、(" + elseIfCondition + ")ならば", 5));
-            // else-ifのthen節がブロック文の場合はMethodConverterが処理する。
+            String ifText = outerIndent + "もし、(" + condition + ")ならば";
+            out.add(line, ifText, 5);
+            // then節がブロック文の場合はMethodConverterが処理する。
             // そうでない単一文の場合は、ここでインデントを記録する。
-            if (thenStmt instanceof BlockStmt) {
-                MethodConverter.MethodVisitor.processBlock((BlockStmt) thenStmt, outerIndent + "　");
-            }
             if (!(thenStmt instanceof BlockStmt)) {
-                thenStmt.getBegin().ifPresent(p -> IndentManager.recordIndentForLine(p.line, outerIndent + "　"));
+                thenStmt.getBegin().ifPresent(p -> context.recordDepthForLine(p.line, depth + 1));
+            }
+        }
+
+        // else節の処理
+        int endLine = ifStmt.getEnd().map(p -> p.line).orElse(-1);
+        if (ifStmt.getElseStmt().isPresent()) {
+            Statement elseStmt = ifStmt.getElseStmt().get();
+            if (elseStmt instanceof IfStmt) { // else if
+                IfStmt elseIfStmt = (IfStmt) elseStmt;
+                processElseIfChain(elseIfStmt, depth, out, context);
+            } else { // else
+                int elseLine = elseStmt.getBegin().map(p -> p.line).orElse(-1);
+                out.add(elseLine, outerIndent + "違えば", 5);
+                // else節がブロック文の場合はMethodConverterが処理する。
+                // そうでない単一文の場合は、ここでインデントを記録する。
+                if (!(elseStmt instanceof BlockStmt)) {
+                    elseStmt.getBegin().ifPresent(p -> context.recordDepthForLine(p.line, depth + 1));
+                }
             }
         }
+        
+        // if文全体の終了を示す「ここまで。」を追加
+        // priorityを999にして確実に最後に配置
+        out.add(endLine, outerIndent + "ここまで。", 999);
+    }
+
+    private static void processElseIfChain(IfStmt first, int depth, OutputBuffer out, ConversionContext context) {
+        IfStmt next = first;
+        while (next != null) {
+            IfStmt elseIfStmt = next;
+            next = null;
+            String outerIndent = IndentManager.indentOf(depth);
+            int elseLine = elseIfStmt.getBegin().map(p -> p.line).orElse(-1);
+            String elseIfCondition = ConditionConverter.convertCondition(elseIfStmt.getCondition());
+
+            // else-if の then 節も single-return の場合は if 行と return 行を分けて出力
+            Statement thenStmt = elseIfStmt.getThenStmt();
+            if (isSingleReturn(thenStmt)) {
+                com.github.javaparser.ast.stmt.ReturnStmt returnStmt;
+                if (thenStmt instanceof BlockStmt) {
+                    BlockStmt blk = (BlockStmt) thenStmt;
+                    returnStmt = (com.github.javaparser.ast.stmt.ReturnStmt) blk.getStatements().get(0);
+                } else {
+                    returnStmt = (com.github.javaparser.ast.stmt.ReturnStmt) thenStmt;
+                }
 
-        if (elseIfStmt.getElseStmt().isPresent()) {
-            Statement elseStmt = elseIfStmt.getElseStmt().get();
-            int nextElseLine = elseStmt.getBegin().map(p -> p.line).orElse(-1);
-            if (elseStmt instanceof IfStmt) {
-                processElseIfChain((IfStmt) elseStmt, outerIndent, items);
+                // else-if の if 行
+                out.add(elseLine, outerIndent + "違えば、もし、(" + elseIfCondition + ")ならば", 5);
+
+                // return 行(インデントを付ける)
+                int returnLine = returnStmt.getBegin().map(p -> p.line).orElse(elseLine + 1);
+                String returnValue = returnStmt.getExpression()
+                        .map(e -> ConditionConverter.convertExpressionToString(e))
+                        .orElse("");
+                String returnIndent = IndentManager.indentOf(depth + 1);
+                if (!returnValue.isEmpty()) {
+                    out.add(returnLine, returnIndent + returnValue + "を戻す。", 35);
+                } else {
+                    out.add(returnLine, returnIndent + "戻す。", 35);
+                }
             } else {
-                items.add(new Item(nextElseLine, outerIndent + "違えば", 5));
-                // 最後のelse節がブロック文の場合はMethodConverterが処理する。
-                if (elseStmt instanceof BlockStmt) {
-                    MethodConverter.MethodVisitor.processBlock((BlockStmt) elseStmt, outerIndent + "　");
+                out.add(elseLine, outerIndent + "違えば、もし、(" + elseIfCondition + ")ならば", 5);
+                // else-ifのthen節がブロック文の場合はMethodConverterが処理する。
+                // そうでない単一文の場合は、ここでインデントを記録する。
+                if (thenStmt instanceof BlockStmt) {
+                    MethodConverter.MethodVisitor.processBlock((BlockStmt) thenStmt, depth + 1, context);
                 }
-                if (!(elseStmt instanceof BlockStmt)) {
-                    elseStmt.getBegin().ifPresent(p -> IndentManager.recordIndentForLine(p.line, outerIndent + "　"));
+                if (!(thenStmt instanceof BlockStmt)) {
+                    thenStmt.getBegin().ifPresent(p -> context.recordDepthForLine(p.line, depth + 1));
+                }
+            }
+
+            if (elseIfStmt.getElseStmt().isPresent()) {
+                Statement elseStmt = elseIfStmt.getElseStmt().get();
+                int nextElseLine = elseStmt.getBegin().map(p -> p.line).orElse(-1);
+                if (elseStmt instanceof IfStmt) {
+                    // 次の else if も同じ深さで続ける (再帰しないので連鎖が長くてもスタックが溢れない)
+                    next = (IfStmt) elseStmt;
+                } else {
+                    out.add(nextElseLine, outerIndent + "違えば", 5);
+                    // 最後のelse節がブロック文の場合はMethodConverterが処理する。
+                    if (elseStmt instanceof BlockStmt) {
+                        MethodConverter.MethodVisitor.processBlock((BlockStmt) elseStmt, depth + 1, context);
+                    }
+                    if (!(elseStmt instanceof BlockStmt)) {
+                        elseStmt.getBegin().ifPresent(p -> context.recordDepthForLine(p.line, depth + 1));
+                    }
                 }
             }
         }
@@ -175,16 +182,4 @@ public class IfStatementConverter {
         }
         return false;
     }
-
-    public static class Item {
-        public final int line;
-        public final String content;
-        public final int priority;
-
-        public Item(int line, String content, int priority) {
-            this.line = line;
-            this.content = content;
-            this.priority = priority;
-        }
-    }
 }
\ No newline at end of file
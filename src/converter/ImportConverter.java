@@ -1,32 +1,17 @@
 package converter;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
 
 public class ImportConverter {
     
-    // JavaToNadeshikoConverter.javaが参照するItemクラス
-    public static class Item {
-        public final int line;
-        public final String content;
-        
-        public Item(int line, String content) {
-            this.line = line;
-            this.content = content;
-        }
-    }
 
     /**
      * コンパイルユニット(構文木)全体を走査し、import文を変換する
      * @param cu 構文木
      * @return 変換されたなでしこコードのリスト
      */
-    public static List<Item> convert(CompilationUnit cu) {
-        List<Item> items = new ArrayList<>();
-        
+    public static void convert(CompilationUnit cu, OutputBuffer out) {
         for (ImportDeclaration importDeclaration : cu.getImports()) {
             // 行番号を取得（行番号がない場合は-1）
             int line = importDeclaration.getBegin().map(p -> p.line).orElse(-1);
@@ -35,10 +20,9 @@ public class ImportConverter {
             String content = convertImport(importDeclaration); 
             
             // 優先度を50としてリストに追加 (JavaToNadeshikoConverter.javaのロジックに従う)
-            items.add(new Item(line, content));
+            out.add(line, content);
         }
         
-        return items;
     }
     
     /**
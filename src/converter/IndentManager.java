@@ -1,51 +1,87 @@
 package converter;
 
-import java.util.HashMap;
-import java.util.Map;
-
-import com.github.javaparser.ast.Node;
-import com.github.javaparser.ast.stmt.Statement;
+import java.util.Arrays;
 
 /**
- * 全てのインデント情報を一元管理するクラス
+ * 1つのファイルのインデント情報を管理するクラス
+ * 変換ごとに ConversionContext が1つ持つ
+ *
+ * インデントは全角空白の繰り返しなので、行ごとには深さ(段数)だけを int 配列に記録する。
+ * 文字列は深さごとに作り置きした表から返すため、行ごとに文字列を生成しない。
  */
 public class IndentManager {
 
-    private static Map<Integer, String> indentMap = new HashMap<>();
+    // 深さごとのインデント文字列。全ての変換で共有する(読み取り専用)
+    private static final String[] INDENTS = new String[32];
+    static {
+        INDENTS[0] = "";
+        for (int depth = 1; depth < INDENTS.length; depth++) {
+            INDENTS[depth] = INDENTS[depth - 1] + "　";
+        }
+    }
+
+    // 行番号(1始まり)ごとのインデントの深さ。記録のない行は0
+    private int[] depths;
 
     /**
-     * 変換処理の開始時にインデント情報をクリアする
+     * @param lineCount 元のコードの行数
      */
-    public static void clear() {
-        indentMap.clear();
+    public IndentManager(int lineCount) {
+        this.depths = new int[lineCount + 1];
     }
 
     /**
-     * 指定された文(またはブロック)内の各文に対してインデント情報を記録する
-     * @param stmt 記録対象の文
-     * @param indent インデント文字列
+     * 指定された深さのインデント文字列を返す
      */
-    public static void recordIndent(Statement stmt, String indent) {
-        // このメソッドはもう使用しない
+    public static String indentOf(int depth) {
+        if (depth < INDENTS.length) {
+            return INDENTS[depth];
+        }
+        return "　".repeat(depth); // 表にないほど深いインデントはその都度作る
     }
 
     /**
-     * 指定された行番号にインデント情報を記録する
+     * 指定された行番号にインデントの深さを記録する
      * @param line 行番号
-     * @param indent インデント文字列
+     * @param depth インデントの深さ
      */
-    public static void recordIndentForLine(int line, String indent) {
-        if (line != -1) {
-            indentMap.put(line, indent);
+    public void recordDepthForLine(int line, int depth) {
+        if (line < 0) {
+            return;
+        }
+        if (line >= depths.length) {
+            // 行数より後ろの行(通常は起こらない)に備えて広げる
+            depths = Arrays.copyOf(depths, Math.max(line + 1, depths.length * 2));
         }
+        depths[line] = depth;
     }
 
-    public static String getIndentForLine(int line) {
-        return indentMap.getOrDefault(line, "");
+    /**
+     * 指定された範囲の行にまとめて同じインデントの深さを記録する
+     * ブロックの中のコメント行や空行のように、続いた行を同じ深さにするときに使う
+     * @param fromLine 最初の行番号
+     * @param toLine 最後の行番号の次 (この行は含まない)
+     * @param depth インデントの深さ
+     */
+    public void recordDepthForLines(int fromLine, int toLine, int depth) {
+        fromLine = Math.max(fromLine, 0);
+        if (fromLine >= toLine) {
+            return;
+        }
+        if (toLine > depths.length) {
+            depths = Arrays.copyOf(depths, Math.max(toLine, depths.length * 2));
+        }
+        Arrays.fill(depths, fromLine, toLine, depth);
+    }
+
+    public int getDepthForLine(int line) {
+        if (line < 0 || line >= depths.length) {
+            return 0;
+        }
+        return depths[line];
     }
 
-    public static String calculateIndent(Node node) {
-        // このメソッドはもう使用しない
-        return "";
+    public String getIndentForLine(int line) {
+        return indentOf(getDepthForLine(line));
     }
-}
\ No newline at end of file
+}
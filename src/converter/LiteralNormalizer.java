@@ -0,0 +1,148 @@
+package converter;
+
+/**
+ * 数値リテラルの接尾辞や型引数を、正規表現を使わずに1回の走査で取り除くクラス
+ *
+ * String.replaceAll は呼ぶたびに正規表現をコンパイルし直すので、
+ * 全ての式の文字列化で呼ぶと変換時間の大半を占める。
+ * ここでは文字を先頭から1回だけ見て、以前の replaceAll と同じ結果を返す。
+ * 取り除く文字がなければ、引数の文字列をそのまま返す。
+ */
+public final class LiteralNormalizer {
+
+    private LiteralNormalizer() {
+    }
+
+    /**
+     * 末尾の long 接尾辞(L/l)を1つ取り除く ({@code replaceAll("[Ll]$", "")} と同じ)
+     * 正規表現の $ と同じく、最後の改行の直前にある接尾辞も取り除く
+     */
+    public static String stripLongSuffix(String value) {
+        int end = contentEnd(value);
+        if (end > 0 && isLongSuffix(value.charAt(end - 1))) {
+            return value.substring(0, end - 1) + value.substring(end);
+        }
+        return value;
+    }
+
+    /**
+     * 数字の直後にある数値の接尾辞を取り除く (100L → 100, 1.5f → 1.5)
+     *
+     * {@code replaceAll("([0-9]+)[Ll]", "$1")} の後に
+     * {@code replaceAll("([0-9]*\\.?[0-9]+)[FfDd]", "$1")} を行った場合と同じ結果になる。
+     * つまり、数字の直後の L/l を消し、その結果の中で数字の直後にある F/f/D/d を消す。
+     */
+    public static String stripNumericSuffixes(String value) {
+        StringBuilder sb = null;
+        char previous = 0;          // 元の文字列で1つ前の文字
+        char previousKept = 0;      // L/l を消した後の文字列で1つ前の文字
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean removed;
+            if (isLongSuffix(c) && isDigit(previous)) {
+                removed = true;
+            } else {
+                removed = isFloatingSuffix(c) && isDigit(previousKept);
+                previousKept = c;
+            }
+            previous = c;
+
+            if (removed) {
+                if (sb == null) {
+                    sb = new StringBuilder(value.length()).append(value, 0, i);
+                }
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? value : sb.toString();
+    }
+
+    /**
+     * 型引数を取り除く (ArrayList<String> → ArrayList)
+     *
+     * {@code replaceAll("<.*?>", "")} と同じく、'<' から同じ行の次の '>' までを消す。
+     * 入れ子の型引数は数えない (Map<String, List<Integer>> → Map>)。
+     */
+    public static String stripTypeArguments(String type) {
+        int open = type.indexOf('<');
+        if (open < 0) {
+            return type;
+        }
+        StringBuilder sb = new StringBuilder(type.length());
+        int copied = 0;
+        while (open >= 0) {
+            int close = closingBracket(type, open + 1);
+            if (close < 0) {
+                // この '<' には対応する '>' がないので残し、次の '<' を探す
+                open = type.indexOf('<', open + 1);
+                continue;
+            }
+            sb.append(type, copied, open);
+            copied = close + 1;
+            open = type.indexOf('<', copied);
+        }
+        return sb.append(type, copied, type.length()).toString();
+    }
+
+    /**
+     * 行末の空白(半角・全角・タブ)を取り除く ({@code replaceAll("[ 　\t]+$", "")} と同じ)
+     */
+    public static String stripTrailingBlanks(String line) {
+        int end = contentEnd(line);
+        int start = end;
+        while (start > 0 && isBlank(line.charAt(start - 1))) {
+            start--;
+        }
+        if (start == end) {
+            return line;
+        }
+        return line.substring(0, start) + line.substring(end);
+    }
+
+    // 最後の改行(\r\n は1つと数える)を除いた長さ。正規表現の $ はこの位置にも一致する
+    private static int contentEnd(String s) {
+        int end = s.length();
+        if (end > 0 && isLineTerminator(s.charAt(end - 1))) {
+            end--;
+            if (end > 0 && s.charAt(end) == '\n' && s.charAt(end - 1) == '\r') {
+                end--;
+            }
+        }
+        return end;
+    }
+
+    // from 以降で最初の '>' の位置。間に改行があれば(正規表現の . に一致しないので) -1
+    private static int closingBracket(String type, int from) {
+        for (int i = from; i < type.length(); i++) {
+            char c = type.charAt(i);
+            if (c == '>') {
+                return i;
+            }
+            if (isLineTerminator(c)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLongSuffix(char c) {
+        return c == 'L' || c == 'l';
+    }
+
+    private static boolean isFloatingSuffix(char c) {
+        return c == 'F' || c == 'f' || c == 'D' || c == 'd';
+    }
+
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '　' || c == '\t';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -0,0 +1,177 @@
+package converter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.javaparser.ast.expr.MethodCallExpr;
+
+/**
+ * メソッド呼び出しの変換規則を (スコープ, メソッド名, 引数の数) で引く表
+ *
+ * 規則は登録した順に試し、最初に null 以外を返した規則の結果を使う(if を並べた場合と同じ優先順位)。
+ * 候補はメソッド名と引数の数でハッシュ表から直接取り出し、スコープはそれぞれの候補で比べるだけなので、
+ * 規則を増やしても関係のないメソッド呼び出しの変換は遅くならない。
+ *
+ * 登録はクラスの初期化中に済ませ、その後は読むだけにする(複数のスレッドから使ってよい)。
+ */
+final class MethodCallRules {
+
+    /** スコープを問わない (スコープがなくてもよい) */
+    static final String ANY_SCOPE = null;
+    /** 何かのスコープがある (a.size() の a など) */
+    static final String SOME_SCOPE = "*";
+    /** 引数の数を問わない */
+    static final int ANY_ARITY = -1;
+
+    // 引数の数ごとに候補を分けるのはこの数まで。これより多い呼び出しは ANY_ARITY の規則だけが候補になる
+    private static final int MAX_ARITY = 8;
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    /**
+     * 1つの変換規則
+     */
+    interface Rule {
+        /**
+         * 変換結果を返す。この規則で変換しない場合は null (次の規則を試す)
+         */
+        String convert(MethodCallExpr mc);
+    }
+
+    // メソッド名 → 引数の数 → 候補(登録順)
+    private final Map<String, Entry[][]> byName = new HashMap<>();
+    // 名前の先頭で登録した規則(登録順)。byName にない名前はこれだけを試す
+    private final List<Entry> prefixEntries = new ArrayList<>();
+
+    /**
+     * メソッド名が一致する呼び出しの規則を登録する
+     *
+     * @param scope スコープの名前("Math" や "System.out")、ANY_SCOPE または SOME_SCOPE
+     * @param name メソッド名
+     * @param arity 引数の数、または ANY_ARITY
+     */
+    MethodCallRules add(String scope, String name, int arity, Rule rule) {
+        Entry entry = new Entry(scope, name, false, checkArity(arity), rule);
+        Entry[][] candidates = byName.get(name);
+        if (candidates == null) {
+            // 先に登録した、名前の先頭が一致する規則を優先順位を保って引き継ぐ
+            candidates = emptySlots();
+            for (Entry prefixEntry : prefixEntries) {
+                if (prefixEntry.matchesName(name)) {
+                    append(candidates, prefixEntry);
+                }
+            }
+            byName.put(name, candidates);
+        }
+        append(candidates, entry);
+        return this;
+    }
+
+    /**
+     * メソッド名が prefix で始まる呼び出しの規則を登録する (getYear などのゲッターをまとめて扱う場合)
+     */
+    MethodCallRules addPrefix(String scope, String prefix, int arity, Rule rule) {
+        Entry entry = new Entry(scope, prefix, true, checkArity(arity), rule);
+        prefixEntries.add(entry);
+        for (Map.Entry<String, Entry[][]> named : byName.entrySet()) {
+            if (entry.matchesName(named.getKey())) {
+                append(named.getValue(), entry);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 一致する規則で変換する。どの規則も変換しなければ null
+     */
+    String convert(MethodCallExpr mc) {
+        String name = mc.getNameAsString();
+        int arity = mc.getArguments().size();
+        Entry[][] candidates = byName.get(name);
+        if (candidates != null) {
+            for (Entry entry : candidates[slot(arity)]) {
+                if (entry.matchesScope(mc)) {
+                    String converted = entry.rule.convert(mc);
+                    if (converted != null) {
+                        return converted;
+                    }
+                }
+            }
+            return null;
+        }
+        for (Entry entry : prefixEntries) {
+            if (entry.matchesName(name) && entry.matchesArity(arity) && entry.matchesScope(mc)) {
+                String converted = entry.rule.convert(mc);
+                if (converted != null) {
+                    return converted;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int checkArity(int arity) {
+        if (arity != ANY_ARITY && (arity < 0 || arity > MAX_ARITY)) {
+            throw new IllegalArgumentException("引数の数は0から" + MAX_ARITY + "まで: " + arity);
+        }
+        return arity;
+    }
+
+    private static int slot(int arity) {
+        return Math.min(arity, MAX_ARITY + 1);
+    }
+
+    private static Entry[][] emptySlots() {
+        Entry[][] slots = new Entry[MAX_ARITY + 2][];
+        Arrays.fill(slots, NO_ENTRIES);
+        return slots;
+    }
+
+    // 規則が受け付ける引数の数の欄すべての末尾に追加する
+    private static void append(Entry[][] slots, Entry entry) {
+        for (int arity = 0; arity < slots.length; arity++) {
+            if (entry.matchesArity(arity)) {
+                Entry[] entries = Arrays.copyOf(slots[arity], slots[arity].length + 1);
+                entries[entries.length - 1] = entry;
+                slots[arity] = entries;
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String scope;
+        private final String name;
+        private final boolean prefix;
+        private final int arity;
+        private final Rule rule;
+
+        Entry(String scope, String name, boolean prefix, int arity, Rule rule) {
+            this.scope = scope;
+            this.name = name;
+            this.prefix = prefix;
+            this.arity = arity;
+            this.rule = rule;
+        }
+
+        boolean matchesName(String methodName) {
+            return prefix ? methodName.startsWith(name) : methodName.equals(name);
+        }
+
+        // MAX_ARITY + 1 の欄は MAX_ARITY より多い引数をまとめたもの
+        boolean matchesArity(int methodArity) {
+            return arity == ANY_ARITY || arity == methodArity;
+        }
+
+        boolean matchesScope(MethodCallExpr mc) {
+            if (scope == null) {
+                return true;
+            }
+            if (SOME_SCOPE.equals(scope)) {
+                return mc.getScope().isPresent();
+            }
+            return NameResolver.hasScope(mc, scope);
+        }
+    }
+}
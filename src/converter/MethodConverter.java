@@ -1,6 +1,8 @@
 package converter;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -29,7 +31,10 @@ import com.github.javaparser.ast.stmt.TryStmt;
 import com.github.javaparser.ast.stmt.WhileStmt;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
-import converter.IfStatementConverter.Item;
+import static converter.MethodCallRules.ANY_ARITY;
+import static converter.MethodCallRules.ANY_SCOPE;
+import static converter.MethodCallRules.SOME_SCOPE;
+
 import converter.MethodConverter.MethodVisitor;
 
 /**
@@ -37,81 +42,106 @@ import converter.MethodConverter.MethodVisitor;
  */
 public class MethodConverter {
 
-    public static List<Item> convert(CompilationUnit cu) {
-        List<Item> items = new ArrayList<>();
-        cu.accept(new MethodVisitor(items), null);
-        return items;
+    private static final MethodCallRules EXPRESSION_RULES = expressionRules();
+
+    public static void convert(CompilationUnit cu, ConversionContext context, OutputBuffer out) {
+        cu.accept(new MethodVisitor(out, context), null);
     }
 
     /**
      * メソッドとコンストラクタを訪問するVisitor
      */
     public static class MethodVisitor extends VoidVisitorAdapter<Void> {
-        private final List<Item> items;
+        private static final MethodCallRules STATEMENT_RULES = statementRules();
+
+        private final OutputBuffer out;
+        private final ConversionContext context;
+        private final TraversalContext traversal;
 
-        public MethodVisitor(List<Item> items) {
-            this.items = items;
+        public MethodVisitor(OutputBuffer out, ConversionContext context) {
+            this(out, context, new TraversalContext());
+        }
+
+        /**
+         * @param traversal 走査する側が入った文を記録しているスタック (ConversionEngine から使う)
+         */
+        MethodVisitor(OutputBuffer out, ConversionContext context, TraversalContext traversal) {
+            this.out = out;
+            this.context = context;
+            this.traversal = traversal;
         }
 
         @Override
         public void visit(MethodDeclaration method, Void arg) {
+            convert(method);
+            super.visit(method, arg);
+        }
+
+        /**
+         * メソッド宣言を変換し、本体のインデントを記録する (ConversionEngine から呼び出される)
+         */
+        void convert(MethodDeclaration method) {
             // アノテーションの処理
             for (AnnotationExpr annotation : method.getAnnotations()) {
                 int annotationLine = annotation.getBegin().map(p -> p.line).orElse(-1);
                 String annotationName = annotation.getNameAsString();
-                String indent = IndentManager.getIndentForLine(annotationLine);
+                String indent = context.getIndentForLine(annotationLine);
 
                 if ("GetMapping".equals(annotationName)) {
                     if (annotation.isSingleMemberAnnotationExpr()) {
                         SingleMemberAnnotationExpr sma = annotation.asSingleMemberAnnotationExpr();
                         String path = ExpressionConverter.convertExpression(sma.getMemberValue());
                         // メソッド宣言(priority=10)より先に表示するためpriorityを9に設定
-                        items.add(new Item(annotationLine, indent + path + "実行時", 9));
+                        out.add(annotationLine, indent + path + "実行時", 9);
                     }
                 }
             }
 
             int line = method.getBegin().map(p -> p.line).orElse(-1);
-            String outerIndent = IndentManager.getIndentForLine(line);
+            int depth = context.getDepthForLine(line);
+            String outerIndent = IndentManager.indentOf(depth);
             String methodName = method.getNameAsString();
             String params = formatParameters(method.getParameters());
 
             // メソッド宣言前のコメント行のインデントを記録
             int bodyStartLine = method.getBody().map(b -> b.getBegin().map(p -> p.line).orElse(line)).orElse(line);
-            String bodyIndent = outerIndent + "　";
-            for (int i = line; i < bodyStartLine; i++) {
-                // メソッド宣言自体の行は除外
-                IndentManager.recordIndentForLine(i, outerIndent);
-            }
+            context.recordDepthForLines(line, bodyStartLine, depth);
 
             // メソッド開始
             if (methodName.equals("main")) {
-                items.add(new Item(line, outerIndent + "関数　メイン関数とは", 20));
+                out.add(line, outerIndent + "関数　メイン関数とは", 20);
             } else {
                 String declaration = params.isEmpty()
                         ? "関数 " + methodName + "とは"
                         : "関数 " + methodName + "(" + params + ")とは";
-                items.add(new Item(line, outerIndent + declaration, 10));
+                out.add(line, outerIndent + declaration, 10);
             }
 
             // メソッド本体を再帰的に処理
             if (method.getBody().isPresent()) {
                 // 本体があるメソッド
-                processBlock(method.getBody().get(), bodyIndent);
+                processBlock(method.getBody().get(), depth + 1, context);
                 // メソッド終了
                 addMethodEnd(method.getBody().get(), method.getEnd().map(p -> p.line).orElse(-1), outerIndent);
             } else {
                 // 本体がないメソッド (abstract や interface)
-                items.add(new Item(line, outerIndent + "ここまで。", 50));
+                out.add(line, outerIndent + "ここまで。", 50);
             }
-
-            super.visit(method, arg);
         }
 
         @Override
         public void visit(ConstructorDeclaration constructor, Void arg) {
+            convert(constructor);
+            super.visit(constructor, arg);
+        }
+
+        /**
+         * コンストラクタ宣言を変換し、本体のインデントを記録する (ConversionEngine から呼び出される)
+         */
+        void convert(ConstructorDeclaration constructor) {
             int line = constructor.getBegin().map(p -> p.line).orElse(-1);
-            String outerIndent = IndentManager.getIndentForLine(line);
+            int depth = context.getDepthForLine(line);
+            String outerIndent = IndentManager.indentOf(depth);
             String className = constructor.getNameAsString();
             String params = formatParameters(constructor.getParameters());
 
@@ -119,22 +149,28 @@ public class MethodConverter {
             String declaration = params.isEmpty()
                     ? className + "生成時"
                     : className + "(" + params + ")生成時";
-            items.add(new Item(line, outerIndent + declaration, 20));
+            out.add(line, outerIndent + declaration, 20);
 
             // コンストラクタ本体を再帰的に処理
-            processBlock(constructor.getBody(), outerIndent + "　");
+            processBlock(constructor.getBody(), depth + 1, context);
 
             // コンストラクタ終了
             addMethodEnd(constructor.getBody(), constructor.getBody().getEnd().map(p -> p.line).orElse(-1),
                     outerIndent);
-
-            super.visit(constructor, arg);
         }
 
         @Override
         public void visit(ExplicitConstructorInvocationStmt stmt, Void arg) {
+            convert(stmt);
+            super.visit(stmt, arg);
+        }
+
+        /**
+         * this(...) / super(...) の呼び出しを変換する (ConversionEngine から呼び出される)
+         */
+        void convert(ExplicitConstructorInvocationStmt stmt) {
             int line = stmt.getBegin().map(p -> p.line).orElse(-1);
-            String outerIndent = IndentManager.getIndentForLine(line); // 外側のインデントを取得
+            String outerIndent = context.getIndentForLine(line); // 外側のインデントを取得
             String args = formatArguments(stmt.getArguments());
 
             String invocation;
@@ -148,14 +184,49 @@ public class MethodConverter {
                 invocation = args.isEmpty() ? superCall + "生成。" : superCall + "(" + args + ")生成。";
             }
 
-            items.add(new Item(line, outerIndent + invocation, 30));
+            out.add(line, outerIndent + invocation, 30);
+        }
+
+        @Override
+        public void visit(BlockStmt stmt, Void arg) {
+            traversal.enter(stmt);
+            super.visit(stmt, arg);
+            traversal.exit();
+        }
+
+        @Override
+        public void visit(IfStmt stmt, Void arg) {
+            traversal.enter(stmt);
+            super.visit(stmt, arg);
+            traversal.exit();
+        }
+
+        @Override
+        public void visit(ForStmt stmt, Void arg) {
+            traversal.enter(stmt);
+            super.visit(stmt, arg);
+            traversal.exit();
+        }
+
+        @Override
+        public void visit(WhileStmt stmt, Void arg) {
+            traversal.enter(stmt);
             super.visit(stmt, arg);
+            traversal.exit();
         }
 
         @Override
         public void visit(ReturnStmt stmt, Void arg) {
-            if (isInsideIfThen(stmt)) {
-                super.visit(stmt, arg);
+            convert(stmt);
+            super.visit(stmt, arg);
+        }
+
+        /**
+         * return文を変換する (ConversionEngine から、走査中に呼び出される)
+         * if の then 節の中の return は if文の変換が出力するので、ここでは出力しない
+         */
+        void convert(ReturnStmt stmt) {
+            if (traversal.isInsideIfThen(stmt)) {
                 return;
             }
 
@@ -164,15 +235,26 @@ public class MethodConverter {
             if (stmt.getExpression().isPresent()) {
                 Expression returnExpr = stmt.getExpression().get();
                 String returnValue = convertReturnExpression(returnExpr);
-                String indent = IndentManager.getIndentForLine(line);
-                items.add(new Item(line, indent + returnValue + "を戻す。", 35));
+                String indent = context.getIndentForLine(line);
+                out.add(line, indent + returnValue + "を戻す。", 35);
             }
-
-            super.visit(stmt, arg);
         }
 
         @Override
         public void visit(ExpressionStmt stmt, Void arg) {
+            if (convert(stmt)) {
+                // MethodCallExprを処理したので、子ノードの訪問はスキップする
+                return;
+            }
+            // MethodCallExpr以外の場合は、通常通り子ノードを訪問する
+            super.visit(stmt, arg);
+        }
+
+        /**
+         * 文として書かれたメソッド呼び出しを変換する (ConversionEngine から呼び出される)
+         * @return 変換した場合は true。このとき子ノードは訪問しない
+         */
+        boolean convert(ExpressionStmt stmt) {
             Expression expr = stmt.getExpression();
             if (expr.isMethodCallExpr()) {
                 MethodCallExpr methodCall = expr.asMethodCallExpr();
@@ -180,76 +262,133 @@ public class MethodConverter {
                     int line = methodCall.getBegin().map(p -> p.line).orElse(-1);
                     String converted = convertMethodCallToJapanese(methodCall, line);
                     if (converted != null) {
-                        String indent = IndentManager.getIndentForLine(line);
-                        items.add(new Item(line, indent + converted, 30));
+                        String indent = context.getIndentForLine(line);
+                        out.add(line, indent + converted, 30);
                     }
-                    // MethodCallExprを処理したので、子ノードの訪問はスキップする
-                    return;
+                    return true;
                 }
             }
-            // MethodCallExpr以外の場合は、通常通り子ノードを訪問する
-            super.visit(stmt, arg);
+            return false;
         }
         // ヘルパーメソッド群
 
         /**
-         * ブロック内の各文を処理し、インデントを記録する
+         * ブロック内の各文を処理し、インデントの深さを記録する
+         *
+         * 入れ子のブロックは再帰せず、作業スタックに積んで処理する(入れ子がいくら深くてもスタックが溢れない)。
+         * 同じ行に後から記録した深さが勝つので、記録する順番は再帰で処理していた頃と同じにしている。
+         * @param depth ブロック内の文のインデントの深さ
          */
-        public static void processBlock(BlockStmt block, String indent) {
+        public static void processBlock(BlockStmt block, int depth, ConversionContext context) {
             if (block == null) return;
-            int lastLine = block.getBegin().map(p -> p.line).orElse(0);
-
-            for (Statement stmt : block.getStatements()) {
-                int startLine = stmt.getBegin().map(p -> p.line).orElse(-1);
-                if (startLine != -1) {
-                    // 前の文の終わりから今の文の始まりまで(コメント行や空行)をインデント
-                    for (int i = lastLine + 1; i < startLine; i++) {
-                        IndentManager.recordIndentForLine(i, indent);
-                    }
-                    IndentManager.recordIndentForLine(startLine, indent);
-                    lastLine = stmt.getEnd().map(p -> p.line).orElse(startLine);
+            Deque<BlockWork> work = new ArrayDeque<>();
+            work.push(new BlockWork(block, depth));
+            List<BlockWork> nested = new ArrayList<>();
+
+            while (!work.isEmpty()) {
+                BlockWork current = work.pop();
+                boolean suspended = false;
+                if (current.block == null) {
+                    // ブロックでない単一文の行
+                    context.recordDepthForLine(current.line, current.depth);
+                    continue;
                 }
-
-                // 制御構文の場合は、さらにその中身を再帰的に処理
-                if (stmt instanceof IfStmt) {
-                    IfStmt ifStmt = (IfStmt) stmt;
-                    // then ブロック
-                    if (ifStmt.getThenStmt() instanceof BlockStmt) {
-                        processBlock(ifStmt.getThenStmt().asBlockStmt(), indent + "　");
-                    } else {
-                        ifStmt.getThenStmt().getBegin().ifPresent(p -> IndentManager.recordIndentForLine(p.line, indent + "　"));
+                NodeList<Statement> statements = current.block.getStatements();
+                while (current.next < statements.size()) {
+                    Statement stmt = statements.get(current.next++);
+                    int startLine = stmt.getBegin().map(p -> p.line).orElse(-1);
+                    if (startLine != -1) {
+                        // 前の文の終わりから今の文の始まりまで(コメント行や空行)をインデント
+                        context.recordDepthForLines(current.lastLine + 1, startLine, current.depth);
+                        context.recordDepthForLine(startLine, current.depth);
+                        current.lastLine = stmt.getEnd().map(p -> p.line).orElse(startLine);
                     }
-                    // else ブロック
-                    ifStmt.getElseStmt().ifPresent(elseStmt -> {
-                        if (elseStmt instanceof IfStmt) { // else-if
-                            // IfStatementConverterが処理するので何もしない
-                        } else { // else
-                            if (elseStmt instanceof BlockStmt) {
-                                processBlock(elseStmt.asBlockStmt(), indent + "　");
-                            } else {
-                                elseStmt.getBegin().ifPresent(p -> IndentManager.recordIndentForLine(p.line, indent + "　"));
-                            }
+
+                    // 制御構文の場合は、その中身を先に処理してからこのブロックの続きに戻る
+                    collectNested(stmt, current.depth + 1, nested);
+                    if (!nested.isEmpty()) {
+                        work.push(current);
+                        for (int i = nested.size() - 1; i >= 0; i--) {
+                            work.push(nested.get(i));
                         }
-                    });
-                } else if (stmt instanceof ForStmt) {
-                    ForStmt forStmt = (ForStmt) stmt;
-                    processBlock(forStmt.getBody().asBlockStmt(), indent + "　");
-                } else if (stmt instanceof com.github.javaparser.ast.stmt.ForEachStmt) {
-                    com.github.javaparser.ast.stmt.ForEachStmt forEachStmt = (com.github.javaparser.ast.stmt.ForEachStmt) stmt;
-                    processBlock(forEachStmt.getBody().asBlockStmt(), indent + "　");
-                } else if (stmt instanceof WhileStmt) {
-                    WhileStmt whileStmt = (WhileStmt) stmt;
-                    processBlock(whileStmt.getBody().asBlockStmt(), indent + "　");
-                } else if (stmt instanceof TryStmt) {
-                    TryStmt tryStmt = (TryStmt) stmt;
-                    TryCatchConverter.recordBlockIndents(tryStmt, indent);
+                        nested.clear();
+                        suspended = true;
+                        break;
+                    }
+                }
+
+                if (!suspended) {
+                    // ブロックの最後の文から閉じ括弧までの間のコメント/空行をインデント
+                    int blockEndLine = current.block.getEnd().map(p -> p.line).orElse(0);
+                    context.recordDepthForLines(current.lastLine + 1, blockEndLine, current.depth);
                 }
             }
+        }
+
+        /**
+         * 制御構文の中身(ブロックまたは単一文)を、処理する順に nested へ追加する
+         * @param depth 中身のインデントの深さ
+         */
+        private static void collectNested(Statement stmt, int depth, List<BlockWork> nested) {
+            if (stmt instanceof IfStmt) {
+                IfStmt ifStmt = (IfStmt) stmt;
+                // then ブロック
+                addBlockOrLine(ifStmt.getThenStmt(), depth, nested);
+                // else ブロック
+                ifStmt.getElseStmt().ifPresent(elseStmt -> {
+                    if (elseStmt instanceof IfStmt) { // else-if
+                        // IfStatementConverterが処理するので何もしない
+                    } else { // else
+                        addBlockOrLine(elseStmt, depth, nested);
+                    }
+                });
+            } else if (stmt instanceof ForStmt) {
+                ForStmt forStmt = (ForStmt) stmt;
+                nested.add(new BlockWork(forStmt.getBody().asBlockStmt(), depth));
+            } else if (stmt instanceof com.github.javaparser.ast.stmt.ForEachStmt) {
+                com.github.javaparser.ast.stmt.ForEachStmt forEachStmt = (com.github.javaparser.ast.stmt.ForEachStmt) stmt;
+                nested.add(new BlockWork(forEachStmt.getBody().asBlockStmt(), depth));
+            } else if (stmt instanceof WhileStmt) {
+                WhileStmt whileStmt = (WhileStmt) stmt;
+                nested.add(new BlockWork(whileStmt.getBody().asBlockStmt(), depth));
+            } else if (stmt instanceof TryStmt) {
+                TryStmt tryStmt = (TryStmt) stmt;
+                // try 本体、catch 節、finally 節
+                nested.add(new BlockWork(tryStmt.getTryBlock(), depth));
+                tryStmt.getCatchClauses().forEach(cc -> nested.add(new BlockWork(cc.getBody(), depth)));
+                tryStmt.getFinallyBlock().ifPresent(fb -> nested.add(new BlockWork(fb, depth)));
+            }
+        }
+
+        private static void addBlockOrLine(Statement stmt, int depth, List<BlockWork> nested) {
+            if (stmt instanceof BlockStmt) {
+                nested.add(new BlockWork(stmt.asBlockStmt(), depth));
+            } else {
+                stmt.getBegin().ifPresent(p -> nested.add(new BlockWork(p.line, depth)));
+            }
+        }
+
+        /**
+         * processBlock の作業スタックに積む1件 (処理途中のブロック、またはブロックでない単一文の行)
+         */
+        private static final class BlockWork {
+            final BlockStmt block;
+            final int line;
+            final int depth;
+            int next;       // 次に処理する文の番号
+            int lastLine;   // 処理済みの最後の文の終わりの行
+
+            BlockWork(BlockStmt block, int depth) {
+                this.block = block;
+                this.line = -1;
+                this.depth = depth;
+                this.lastLine = block.getBegin().map(p -> p.line).orElse(0);
+            }
 
-            // ブロックの最後の文から閉じ括弧までの間のコメント/空行をインデント
-            int blockEndLine = block.getEnd().map(p -> p.line).orElse(0);
-            for (int i = lastLine + 1; i < blockEndLine; i++) {
-                IndentManager.recordIndentForLine(i, indent);
+            BlockWork(int line, int depth) {
+                this.block = null;
+                this.line = line;
+                this.depth = depth;
             }
         }
 
@@ -259,7 +398,7 @@ public class MethodConverter {
                     .collect(Collectors.joining(", "));
         }
 
-        private String formatArguments(NodeList<Expression> arguments) {
+        private static String formatArguments(NodeList<Expression> arguments) {
             return arguments.stream()
                     .map(expr -> MethodConverter.convertArgument(expr))
                     .collect(Collectors.joining(", "));
@@ -267,7 +406,7 @@ public class MethodConverter {
 
         private void addMethodEnd(BlockStmt body, int endLine, String indent) {
             if (body != null && endLine != -1) {
-                items.add(new Item(endLine, indent + "ここまで。", 50));
+                out.add(endLine, indent + "ここまで。", 50);
             }
         }
 
@@ -360,11 +499,8 @@ public class MethodConverter {
         }
 
         private String convertMethodCallToJapanese(MethodCallExpr methodCall, int line) {
-            String methodName = methodCall.getNameAsString();
-            String scope = methodCall.getScope().map(Expression::toString).orElse("");
-
             // 特殊なメソッドの処理
-            String specialConversion = convertSpecialMethods(methodCall, methodName, scope);
+            String specialConversion = STATEMENT_RULES.convert(methodCall);
             if (specialConversion != null) {
                 return specialConversion;
             }
@@ -376,260 +512,193 @@ public class MethodConverter {
             }
 
             // デフォルトの変換
-            return convertDefaultMethodCall(methodCall, methodName);
+            return convertDefaultMethodCall(methodCall, methodCall.getNameAsString());
         }
 
-        private String convertSpecialMethods(MethodCallExpr methodCall, String methodName, String scope) {
+        /**
+         * 文として書かれたメソッド呼び出しだけに使う変換規則 (式の中の規則より先に試す)
+         */
+        private static MethodCallRules statementRules() {
+            MethodCallRules rules = new MethodCallRules();
+
             // Class.forName
-            if ("forName".equals(methodName) && "Class".equals(scope) &&
-                    methodCall.getArguments().size() == 1) {
-                String arg = convertArgument(methodCall.getArgument(0));
-                return arg + "を登録。";
-            }
+            rules.add("Class", "forName", 1, mc -> convertArgument(mc.getArgument(0)) + "を登録。");
 
             // executeUpdate
-            if ("executeUpdate".equals(methodName) &&
-                    methodCall.getScope().isPresent() &&
-                    methodCall.getScope().get().isMethodCallExpr()) {
-                MethodCallExpr createStatementCall = methodCall.getScope().get().asMethodCallExpr();
+            rules.add(SOME_SCOPE, "executeUpdate", ANY_ARITY, mc -> {
+                if (!mc.getScope().get().isMethodCallExpr()) {
+                    return null;
+                }
+                MethodCallExpr createStatementCall = mc.getScope().get().asMethodCallExpr();
                 if ("createStatement".equals(createStatementCall.getNameAsString()) && createStatementCall.getScope().isPresent()) {
-                    String connVar = createStatementCall.getScope().get().toString();
-                    String sqlVar = methodCall.getArgument(0).toString();
+                    String connVar = NameResolver.text(createStatementCall.getScope().get());
+                    String sqlVar = NameResolver.text(mc.getArgument(0));
                     return connVar + "を使用して " + sqlVar + " を実行。";
                 }
-            }
+                return null;
+            });
 
             // Arrays.sort(array)
-            if ("sort".equals(methodName) && scope.endsWith("Arrays") && methodCall.getArguments().size() == 1) {
-                String arrayName = convertArgument(methodCall.getArgument(0));
-                return arrayName + "を配列ソート。";
-            }
+            rules.add(SOME_SCOPE, "sort", 1, mc -> NameResolver.text(mc.getScope().get()).endsWith("Arrays")
+                    ? convertArgument(mc.getArgument(0)) + "を配列ソート。"
+                    : null);
 
             // Calendar.getInstance
-            if ("getInstance".equals(methodName) && scope.contains("Calendar")) {
-                return "カレンダー生成。";
-            }
+            rules.add(SOME_SCOPE, "getInstance", ANY_ARITY, mc -> NameResolver.text(mc.getScope().get()).contains("Calendar")
+                    ? "カレンダー生成。"
+                    : null);
 
             // Calendar関連のメソッド
-            String calendarConversion = convertCalendarMethods(methodCall, methodName);
-            if (calendarConversion != null) {
-                return calendarConversion;
-            }
-
-            // コレクション関連のメソッド
-            String collectionConversion = convertCollectionMethods(methodCall, methodName);
-            if (collectionConversion != null) {
-                return collectionConversion;
-            }
-
-            // GUI関連のメソッド
-            String guiConversion = convertGuiMethods(methodCall, methodName);
-            if (guiConversion != null) {
-                return guiConversion;
-            }
-
-            // IO関連のメソッド
-            String ioConversion = convertIoMethods(methodCall, methodName);
-            if (ioConversion != null) {
-                return ioConversion;
-            }
-
-            return null;
-        }
-
-        private String convertCalendarMethods(MethodCallExpr methodCall, String methodName) {
-            if (!methodCall.getScope().isPresent()) {
-                return null;
-            }
-
-            String scopeVar = methodCall.getScope().get().toString();
 
             // set(year, month, day, hour, min, sec)
-            if ("set".equals(methodName) && methodCall.getArguments().size() == 6) {
-                List<String> args = methodCall.getArguments().stream()
+            rules.add(SOME_SCOPE, "set", 6, mc -> {
+                List<String> args = mc.getArguments().stream()
                         .map(MethodConverter::convertExpressionToString)
                         .collect(Collectors.toList());
                 String dateStr = String.format("%s年%s月%s日%s時%s分%s秒",
                         args.get(0), args.get(1), args.get(2), args.get(3), args.get(4), args.get(5));
-                return scopeVar + "に " + dateStr + " を設定";
-            }
+                return scopeText(mc) + "に " + dateStr + " を設定";
+            });
 
             // set(field, value)
-            if ("set".equals(methodName) && methodCall.getArguments().size() == 2) {
-                Expression field = methodCall.getArgument(0);
-                String value = convertExpressionToString(methodCall.getArgument(1));
+            rules.add(SOME_SCOPE, "set", 2, mc -> {
+                Expression field = mc.getArgument(0);
+                String value = convertExpressionToString(mc.getArgument(1));
 
                 if (field instanceof FieldAccessExpr) {
-                    String fieldName = ((FieldAccessExpr) field).getNameAsString();
-                    String fieldJp = getCalendarFieldName(fieldName);
-                    return scopeVar + "の" + fieldJp + "を" + value + "に設定。";
+                    String fieldJp = getCalendarFieldName(((FieldAccessExpr) field).getNameAsString());
+                    return scopeText(mc) + "の" + fieldJp + "を" + value + "に設定。";
                 }
-            }
+                return null;
+            });
 
             // get(field)
-            if ("get".equals(methodName) && methodCall.getArguments().size() == 1) {
-                Expression field = methodCall.getArgument(0);
+            rules.add(SOME_SCOPE, "get", 1, mc -> {
+                Expression field = mc.getArgument(0);
 
                 if (field instanceof FieldAccessExpr) {
-                    String fieldName = ((FieldAccessExpr) field).getNameAsString();
-                    String fieldJp = getCalendarFieldName(fieldName);
-                    return scopeVar + "の" + fieldJp;
+                    String fieldJp = getCalendarFieldName(((FieldAccessExpr) field).getNameAsString());
+                    return scopeText(mc) + "の" + fieldJp;
                 }
-            }
-
-            // setTime(date)
-            if ("setTime".equals(methodName) && methodCall.getArguments().size() == 1) {
-                String value = convertExpressionToString(methodCall.getArgument(0));
-                return scopeVar + "の日時を " + value + " に設定。";
-            }
-
-            return null;
-        }
-
-        private String getCalendarFieldName(String fieldName) {
-            switch (fieldName) {
-                case "YEAR":
-                    return "年";
-                case "MONTH":
-                    return "月";
-                case "DAY_OF_MONTH":
-                    return "日";
-                default:
-                    return fieldName;
-            }
-        }
-
-        private String convertCollectionMethods(MethodCallExpr methodCall, String methodName) {
-            if (!methodCall.getScope().isPresent()) {
                 return null;
-            }
+            });
 
-            String scopeVar = methodCall.getScope().get().toString();
+            // setTime(date)
+            rules.add(SOME_SCOPE, "setTime", 1, mc -> scopeText(mc) + "の日時を " + convertExpressionToString(mc.getArgument(0)) + " に設定。");
 
+            // コレクション関連のメソッド
 
             // put(key, value)
-            if ("put".equals(methodName) && methodCall.getArguments().size() == 2) {
-                String key = convertArgument(methodCall.getArgument(0));
-                String value = convertArgument(methodCall.getArgument(1));
-                return scopeVar + "に(" + key + ", " + value + ")格納。";
-            }
+            rules.add(SOME_SCOPE, "put", 2, mc -> {
+                String key = convertArgument(mc.getArgument(0));
+                String value = convertArgument(mc.getArgument(1));
+                return scopeText(mc) + "に(" + key + ", " + value + ")格納。";
+            });
 
             // remove(key)
-            if ("remove".equals(methodName) && methodCall.getArguments().size() == 1) {
-                String key = convertArgument(methodCall.getArgument(0));
-                return scopeVar + "の" + key + "削除。";
-            }
+            rules.add(SOME_SCOPE, "remove", 1, mc -> scopeText(mc) + "の" + convertArgument(mc.getArgument(0)) + "削除。");
 
             // frame.getContentPane().add(label) -> frameにlabel追加
-            if ("add".equals(methodName) && methodCall.getArguments().size() == 1) {
-                if (methodCall.getScope().isPresent()) {
-                    Expression scopeExpr = methodCall.getScope().get();
-                    if (scopeExpr instanceof MethodCallExpr &&
-                            "getContentPane".equals(((MethodCallExpr) scopeExpr).getNameAsString())) {
-                        String frameVar = ((MethodCallExpr) scopeExpr).getScope()
-                                .map(Object::toString).orElse("");
-                        String arg = convertArgument(methodCall.getArgument(0));
-                        if (!frameVar.isEmpty()) {
-                            return frameVar + "に" + arg + "追加。";
-                        }
+            rules.add(SOME_SCOPE, "add", 1, mc -> {
+                Expression scopeExpr = mc.getScope().get();
+                if (scopeExpr instanceof MethodCallExpr &&
+                        "getContentPane".equals(((MethodCallExpr) scopeExpr).getNameAsString())) {
+                    String frameVar = ((MethodCallExpr) scopeExpr).getScope()
+                            .map(NameResolver::text).orElse("");
+                    String arg = convertArgument(mc.getArgument(0));
+                    if (!frameVar.isEmpty()) {
+                        return frameVar + "に" + arg + "追加。";
                     }
                 }
                 // 上記に一致しない汎用的な add(element)
-                String arg = convertArgument(methodCall.getArgument(0));
-                return scopeVar + "に" + arg + "追加。";
-            }
+                String arg = convertArgument(mc.getArgument(0));
+                return scopeText(mc) + "に" + arg + "追加。";
+            });
 
             // clear() -> 要素を消去
-            if ("clear".equals(methodName) && methodCall.getArguments().isEmpty()) {
-                return scopeVar + "の要素を消去";
-            }
+            rules.add(SOME_SCOPE, "clear", 0, mc -> scopeText(mc) + "の要素を消去");
 
             // add(index, element) -> index番目にelementを挿入
-            if ("add".equals(methodName) && methodCall.getArguments().size() == 2) {
-                String index = convertArgument(methodCall.getArgument(0));
-                String element = convertArgument(methodCall.getArgument(1));
-                return scopeVar + "の" + index + "番目に" + element + "を追加。";
-            }
-
-            return null;
-        }
-
-        private String convertGuiMethods(MethodCallExpr methodCall, String methodName) {
-            if (!methodCall.getScope().isPresent()) {
-                return null;
-            }
+            rules.add(SOME_SCOPE, "add", 2, mc -> {
+                String index = convertArgument(mc.getArgument(0));
+                String element = convertArgument(mc.getArgument(1));
+                return scopeText(mc) + "の" + index + "番目に" + element + "を追加。";
+            });
 
-            String scopeVar = methodCall.getScope().get().toString();
+            // GUI関連のメソッド
 
             // setLayout
-            if ("setLayout".equals(methodName) && methodCall.getArguments().size() == 1) {
-                Expression scopeExpr = methodCall.getScope().get();
+            rules.add(SOME_SCOPE, "setLayout", 1, mc -> {
+                Expression scopeExpr = mc.getScope().get();
 
                 if (scopeExpr instanceof MethodCallExpr &&
                         "getContentPane".equals(((MethodCallExpr) scopeExpr).getNameAsString())) {
                     String frameVar = ((MethodCallExpr) scopeExpr).getScope()
-                            .map(Object::toString).orElse("");
-                    Expression layoutArg = methodCall.getArgument(0);
+                            .map(NameResolver::text).orElse("");
+                    Expression layoutArg = mc.getArgument(0);
 
                     if (layoutArg instanceof ObjectCreationExpr) {
                         String layoutClass = ((ObjectCreationExpr) layoutArg).getType().getNameAsString();
                         return frameVar + "のレイアウトを " + layoutClass + " に設定。";
                     }
                 }
-            }
+                return null;
+            });
 
             // setDefaultCloseOperation
-            if ("setDefaultCloseOperation".equals(methodName) && methodCall.getArguments().size() == 1) {
-                String arg = methodCall.getArgument(0).toString();
+            rules.add(SOME_SCOPE, "setDefaultCloseOperation", 1, mc -> {
+                String arg = NameResolver.text(mc.getArgument(0));
                 if (arg.endsWith("EXIT_ON_CLOSE")) {
-                     return scopeVar + " を 閉じるボタンで終了するように設定。";
+                    return scopeText(mc) + " を 閉じるボタンで終了するように設定。";
                 } else {
                     arg = arg.replace("JLabel.", "JFrame.");
-                    return scopeVar + "の終了操作を (" + arg + ") に設定。";
+                    return scopeText(mc) + "の終了操作を (" + arg + ") に設定。";
                 }
-            }
+            });
 
             // setSize
-            if ("setSize".equals(methodName) && (methodCall.getArguments().size() == 2 || methodCall.getArguments().size() == 1)) {
-                String args = formatArguments(methodCall.getArguments());
-                return scopeVar + "のサイズを(" + args + ")に設定。";
-            }
+            MethodCallRules.Rule setSize = mc -> scopeText(mc) + "のサイズを(" + formatArguments(mc.getArguments()) + ")に設定。";
+            rules.add(SOME_SCOPE, "setSize", 2, setSize);
+            rules.add(SOME_SCOPE, "setSize", 1, setSize);
 
             // setVisible(true)
-            if ("setVisible".equals(methodName) && methodCall.getArguments().size() == 1 &&
-                    "true".equals(methodCall.getArgument(0).toString())) {
-                return scopeVar + "を表示。";
-            }
-
-            return null;
-        }
-
-        private String convertIoMethods(MethodCallExpr methodCall, String methodName) {
-            if (!methodCall.getScope().isPresent()) {
-                return null;
-            }
+            rules.add(SOME_SCOPE, "setVisible", 1, mc -> "true".equals(NameResolver.text(mc.getArgument(0)))
+                    ? scopeText(mc) + "を表示。"
+                    : null);
 
-            String scopeVar = methodCall.getScope().get().toString();
+            // IO関連のメソッド
 
             // write
-            if ("write".equals(methodName) && methodCall.getArguments().size() == 1) {
-                String content = ExpressionConverter.convertExpression(methodCall.getArgument(0));
-                return scopeVar + "に" + content + "書込。";
-            }
+            rules.add(SOME_SCOPE, "write", 1, mc -> scopeText(mc) + "に" + ExpressionConverter.convertExpression(mc.getArgument(0)) + "書込。");
 
             // close
-            if ("close".equals(methodName) && methodCall.getArguments().isEmpty()) {
-                return scopeVar + "を閉じる。";
-            }
+            rules.add(SOME_SCOPE, "close", 0, mc -> scopeText(mc) + "を閉じる。");
 
-            return null;
+            return rules;
+        }
+
+        private static String scopeText(MethodCallExpr mc) {
+            return NameResolver.text(mc.getScope().get());
+        }
+
+        private static String getCalendarFieldName(String fieldName) {
+            switch (fieldName) {
+                case "YEAR":
+                    return "年";
+                case "MONTH":
+                    return "月";
+                case "DAY_OF_MONTH":
+                    return "日";
+                default:
+                    return fieldName;
+            }
         }
 
         private String convertDefaultMethodCall(MethodCallExpr methodCall, String methodName) {
             String scopePrefix = "";
 
             if (methodCall.getScope().isPresent()) {
-                String scope = methodCall.getScope().get().toString();
+                String scope = NameResolver.text(methodCall.getScope().get());
                 scopePrefix = switch (scope) {
                     case "super" -> "親の";
                     case "this" -> "自身の";
@@ -656,66 +725,11 @@ public class MethodConverter {
             return converted;
         }
 
-        private boolean isInsideIfThen(ReturnStmt stmt) {
-            Node current = stmt;
-
-            while (current != null && current.getParentNode().isPresent()) {
-                Node parent = current.getParentNode().get();
-
-                if (parent instanceof IfStmt) {
-                    IfStmt ifs = (IfStmt) parent;
-                    Statement thenStmt = ifs.getThenStmt();
-
-                    if (containsStatement(thenStmt, stmt)) {
-                        return true;
-                    } 
-                }
-
-                current = parent;
-            }
-
-            return false;
-        }
-
-        private boolean containsStatement(Statement root, Statement target) {
-            if (root == null || root == target) {
-                return root == target;
-            }
-
-            if (root.isBlockStmt()) {
-                for (Statement s : root.asBlockStmt().getStatements()) {
-                    if (containsStatement(s, target)) {
-                        return true;
-                    }
-                }
-            } else if (root.isIfStmt()) {
-                IfStmt ifs = root.asIfStmt();
-                if (containsStatement(ifs.getThenStmt(), target)) {
-                    return true;
-                }
-                if (ifs.getElseStmt().isPresent() && containsStatement(ifs.getElseStmt().get(), target)) {
-                    return true;
-                }
-            } else if (root.isForStmt()) {
-                Statement body = root.asForStmt().getBody();
-                if (containsStatement(body, target)) {
-                    return true;
-                }
-            } else if (root.isWhileStmt()) {
-                Statement body = root.asWhileStmt().getBody();
-                if (containsStatement(body, target)) {
-                    return true;
-                }
-            }
-
-            return false;
-        }
-
-        private String convertArgument(Expression expr) {
+        private static String convertArgument(Expression expr) {
             return MethodConverter.convertArgument(expr);
         }
 
-        private String convertExpressionToString(Expression expr) {
+        private static String convertExpressionToString(Expression expr) {
             return MethodConverter.convertExpressionToString(expr);
         }
     }
@@ -726,7 +740,7 @@ public class MethodConverter {
         if (expr.isStringLiteralExpr()) {
             return "「" + expr.asStringLiteralExpr().getValue() + "」";
         } else if (expr.isIntegerLiteralExpr()) {
-            return expr.toString();
+            return NameResolver.text(expr);
         } else if (expr.isObjectCreationExpr()) {
             // new Hero("アリス") を Hero(「アリス」) のように変換する
             String converted = ExpressionConverter.convertObjectCreation(expr.asObjectCreationExpr());
@@ -735,7 +749,7 @@ public class MethodConverter {
         } else if (expr.isCharLiteralExpr()) {
             return "「" + expr.asCharLiteralExpr().getValue() + "」";
         }
-        return expr.toString();
+        return NameResolver.text(expr);
     }
 
     private static String convertExpressionToString(Expression expr) {
@@ -744,185 +758,94 @@ public class MethodConverter {
         } else if (expr.isStringLiteralExpr()) {
             return "「" + expr.asStringLiteralExpr().asString() + "」";
         } else if (expr.isIntegerLiteralExpr()) {
-            return expr.toString();
+            return NameResolver.text(expr);
         } else if (expr.isNameExpr()) {
             return expr.asNameExpr().getNameAsString();
         } else if (expr.isMethodCallExpr()) {
             return convertMethodCallExpression(expr.asMethodCallExpr());
         }
-        return expr.toString();
+        return NameResolver.text(expr);
     }
 
     public static String convertMethodCallExpression(MethodCallExpr mc) {
-        String methodName = mc.getNameAsString();
-
-        // System.currentTimeMillis()
-        if ("currentTimeMillis".equals(methodName) && mc.getArguments().isEmpty()) {
-            if (mc.getScope().isPresent() && "System".equals(mc.getScope().get().toString())) {
-                return "システム時間";
-            }
-        }
-
-        // ZonedDateTime.now()
-        if ("now".equals(methodName) && mc.getArguments().isEmpty()) {
-            if (mc.getScope().isPresent()) {
-                String scope = mc.getScope().get().toString();
-                if ("ZonedDateTime".equals(scope) || "LocalDateTime".equals(scope) || "LocalDate".equals(scope)) {
-                    return "現在日時";
-                }
-            }
-        }
-
-        // e.getMessage() -> e のエラーメッセージ
-        if ("getMessage".equals(methodName) && mc.getArguments().isEmpty() && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
-            return scope + " のエラーメッセージ";
-        }
+        // ConversionMemo が有効なら、同じ呼び出しを何度も変換しないよう結果を覚えておく
+        return ConversionMemo.methodCall(mc, MethodConverter::convertMethodCallExpressionUncached);
+    }
 
-        // DriverManager.getConnection(dburl) -> DriverManager から dburl で接続取得
-        if ("getConnection".equals(methodName) && mc.getArguments().size() == 1) {
-            if (mc.getScope().isPresent() && "DriverManager".equals(mc.getScope().get().toString())) {
-                String scope = mc.getScope().get().toString();
-                String arg = convertExpressionToString(mc.getArgument(0));
-                return arg + " と接続開始";
-            }
-        }
+    private static String convertMethodCallExpressionUncached(MethodCallExpr mc) {
+        String converted = EXPRESSION_RULES.convert(mc);
+        return converted != null ? converted : convertDefaultMethodCallExpression(mc);
+    }
 
-        // u.openStream() -> u からの通り道
-        if ("openStream".equals(methodName) && mc.getArguments().isEmpty() && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get()); // u
-            return scope + "と接続開始";
-        }
+    /**
+     * 式の中のメソッド呼び出しの変換規則 (上から順に試す)
+     */
+    private static MethodCallRules expressionRules() {
+        MethodCallRules rules = new MethodCallRules();
 
-        // res.getWriter() -> res の 書き込み設定
-        if ("getWriter".equals(methodName) && mc.getArguments().isEmpty() && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
-            return scope + " の 書き込み設定";
-        }
+        // ライブラリ呼び出しの決まった言い換えは対応表(api-mappings.tsv)に書き、ここより先に試す
+        ApiMappings.load(rules, MethodConverter::convertExpressionToString);
 
         // res.setContentType("text/html") -> res の 形式を 「text/html」に設定
-        if ("setContentType".equals(methodName) && mc.getArguments().size() == 1 && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
-            String arg = convertArgument(mc.getArgument(0));
-            return scope + " の 形式を " + arg + "に設定";
-        }
-
+        rules.add(SOME_SCOPE, "setContentType", 1, mc -> convertScope(mc) + " の 形式を " + convertArgument(mc.getArgument(0)) + "に設定");
 
         // ZonedDateTime.of(y, m, d, h, min, s, n, zone)
-        if ("of".equals(methodName) && mc.getArguments().size() == 8) {
-            if (mc.getScope().isPresent() && "ZonedDateTime".equals(mc.getScope().get().toString())) {
-                String zoneIdStr = getZoneIdString(mc.getArgument(7));
-                String zoneJp = convertZoneIdToJapanese(zoneIdStr);
-                String y = convertExpressionToString(mc.getArgument(0));
-                String m = convertExpressionToString(mc.getArgument(1));
-                String d = convertExpressionToString(mc.getArgument(2));
-                String h = convertExpressionToString(mc.getArgument(3));
-                String min = convertExpressionToString(mc.getArgument(4));
-                String s = convertExpressionToString(mc.getArgument(5));
-                String n = convertExpressionToString(mc.getArgument(6));
-                return String.format("%s時間%s年%s月%s日%s時%s分%s秒%sナノ秒", zoneJp, y, m, d, h, min, s, n);
-            }
-        }
+        rules.add("ZonedDateTime", "of", 8, mc -> {
+            String zoneIdStr = getZoneIdString(mc.getArgument(7));
+            String zoneJp = convertZoneIdToJapanese(zoneIdStr);
+            String y = convertExpressionToString(mc.getArgument(0));
+            String m = convertExpressionToString(mc.getArgument(1));
+            String d = convertExpressionToString(mc.getArgument(2));
+            String h = convertExpressionToString(mc.getArgument(3));
+            String min = convertExpressionToString(mc.getArgument(4));
+            String s = convertExpressionToString(mc.getArgument(5));
+            String n = convertExpressionToString(mc.getArgument(6));
+            return String.format("%s時間%s年%s月%s日%s時%s分%s秒%sナノ秒", zoneJp, y, m, d, h, min, s, n);
+        });
 
         // LocalDateTime.of(...)
-        if ("of".equals(methodName) && mc.getScope().isPresent() && "LocalDateTime".equals(mc.getScope().get().toString())) {
-            List<String> args = mc.getArguments().stream()
-                    .map(MethodConverter::convertExpressionToString)
-                    .collect(Collectors.toList());
-            if (args.size() >= 5) { // year, month, day, hour, minute
-                String datePart = String.format("%s年%s月%s日", args.get(0), args.get(1), args.get(2));
-                String timePart = "";
-                if (args.size() == 5) {
-                    timePart = String.format("%s時%s分", args.get(3), args.get(4));
-                } else if (args.size() == 6) {
-                    timePart = String.format("%s時%s分%s秒", args.get(3), args.get(4), args.get(5));
-                } else if (args.size() >= 7) {
-                    timePart = String.format("%s時%s分%s秒", args.get(3), args.get(4), args.get(5));
-                    // ナノ秒は出力に含めない
-                }
-                return datePart + timePart;
+        rules.add("LocalDateTime", "of", ANY_ARITY, mc -> {
+            if (mc.getArguments().size() < 5) { // year, month, day, hour, minute
+                return null;
             }
-        }
-
-        // LocalDate.of(y, m, d)
-        if ("of".equals(methodName) && mc.getScope().isPresent() && "LocalDate".equals(mc.getScope().get().toString())) {
             List<String> args = mc.getArguments().stream()
                     .map(MethodConverter::convertExpressionToString)
                     .collect(Collectors.toList());
-            if (args.size() == 3) { // year, month, day
-                return String.format("%s年%s月%s日", args.get(0), args.get(1), args.get(2));
+            String datePart = String.format("%s年%s月%s日", args.get(0), args.get(1), args.get(2));
+            String timePart;
+            if (args.size() == 5) {
+                timePart = String.format("%s時%s分", args.get(3), args.get(4));
+            } else {
+                // ナノ秒は出力に含めない
+                timePart = String.format("%s時%s分%s秒", args.get(3), args.get(4), args.get(5));
             }
-        }
-
-
-        // zonedDateTime.toInstant()
-        if ("toInstant".equals(methodName) && mc.getArguments().isEmpty() && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
-            return scope + "の時間";
-        }
-
-        // instant.atZone(zone)
-        if ("toLocalDateTime".equals(methodName) && mc.getArguments().isEmpty() && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
-            return scope + "の日時";
-        }
+            return datePart + timePart;
+        });
 
         // instant.atZone(zone)
-        if ("atZone".equals(methodName) && mc.getArguments().size() == 1 && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
+        rules.add(SOME_SCOPE, "atZone", 1, mc -> {
             String zoneJp = convertZoneIdToJapanese(getZoneIdString(mc.getArgument(0)));
-            return scope + "を「" + zoneJp + "」に地域変換";
-        }
+            return convertScope(mc) + "を「" + zoneJp + "」に地域変換";
+        });
 
         // ZonedDateTime.getYear(), getMonthValue(), etc.
-        if (methodName.startsWith("get") && mc.getArguments().isEmpty() && mc.getScope().isPresent()) {
-            String property = getZonedDateTimePropertyName(methodName);
-            if (property != null) {
-                String scope = convertExpressionToString(mc.getScope().get());
-                return scope + "の" + property;
-            }
-        }
-
-        // Instant.now()
-        if ("now".equals(methodName) && mc.getArguments().isEmpty()) {
-            if (mc.getScope().isPresent() && "Instant".equals(mc.getScope().get().toString())) {
-                return "現在日時";
-            }
-        }
+        rules.addPrefix(SOME_SCOPE, "get", 0, mc -> {
+            String property = getZonedDateTimePropertyName(mc.getNameAsString());
+            return property != null ? convertScope(mc) + "の" + property : null;
+        });
 
         // Instant.ofEpochMilli(long)
-        if ("ofEpochMilli".equals(methodName) && mc.getArguments().size() == 1) {
-            if (mc.getScope().isPresent() && "Instant".equals(mc.getScope().get().toString())) {
-                String arg = ExpressionConverter.getValueString(mc.getArgument(0));
-                return (arg != null ? arg : mc.getArgument(0).toString()) + "のシステム時間";
-            }
-        }
-
-        // instant.toEpochMilli()
-        if ("toEpochMilli".equals(methodName) && mc.getArguments().isEmpty() && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
-            return scope + "の日時";
-        }
+        rules.add("Instant", "ofEpochMilli", 1, mc -> {
+            String arg = ExpressionConverter.getValueString(mc.getArgument(0));
+            return (arg != null ? arg : NameResolver.text(mc.getArgument(0))) + "のシステム時間";
+        });
 
         // Date.getTime() or Calendar.getTime()
-        if ("getTime".equals(methodName) && mc.getArguments().isEmpty()) {
-            if (mc.getScope().isPresent()) {
-                String scope = convertExpressionToString(mc.getScope().get());
-                return scope + "のシステム時間";
-            }
-            return "システム時間";
-        }
-
-        // Calendar.getInstance()
-        if ("getInstance".equals(methodName) && mc.getArguments().isEmpty()) {
-            if (mc.getScope().isPresent() && "Calendar".equals(mc.getScope().get().toString())) {
-                return "カレンダー生成";
-            }
-        }
+        rules.add(ANY_SCOPE, "getTime", 0, mc -> mc.getScope().isPresent() ? convertScope(mc) + "のシステム時間" : "システム時間");
 
         // Collection.get(key) or List.get(index)
-        if ("get".equals(methodName) && mc.getArguments().size() == 1 && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
+        rules.add(SOME_SCOPE, "get", 1, mc -> {
+            String scope = convertScope(mc);
             Expression argument = mc.getArgument(0);
             String key = convertExpressionToString(argument);
 
@@ -933,261 +856,83 @@ public class MethodConverter {
                 // 引数が文字列リテラルなどであればMap.get(key)とみなし、「keyのペア」と変換
                 return scope + "の" + key + "のペア";
             }
-        }
+        });
 
         // Calendar.get(field)
-        if ("get".equals(methodName) && mc.getArguments().size() == 1) {
-            if (mc.getScope().isPresent()) {
-                Expression field = mc.getArgument(0);
-                if (field instanceof FieldAccessExpr) {
-                    String fieldName = ((FieldAccessExpr) field).getNameAsString();
-                    String fieldJp = getCalendarFieldName(fieldName);
-                    if (fieldJp != null) {
-                        String scope = convertExpressionToString(mc.getScope().get());
-                        return scope + "の" + fieldJp;
-                    }
+        rules.add(SOME_SCOPE, "get", 1, mc -> {
+            Expression field = mc.getArgument(0);
+            if (field instanceof FieldAccessExpr) {
+                String fieldJp = getCalendarFieldName(((FieldAccessExpr) field).getNameAsString());
+                if (fieldJp != null) {
+                    return convertScope(mc) + "の" + fieldJp;
                 }
             }
-        }
-
-        // Period.ofDays(3) -> 3日の期間
-        if (("ofDays".equals(methodName) || "ofMonths".equals(methodName) || "ofYears".equals(methodName)) && mc.getArguments().size() == 1) {
-            if (mc.getScope().isPresent() && "Period".equals(mc.getScope().get().toString())) {
-                String value = convertExpressionToString(mc.getArgument(0));
-                String unit = "";
-                if ("ofDays".equals(methodName)) unit = "日";
-                if ("ofMonths".equals(methodName)) unit = "ヶ月";
-                if ("ofYears".equals(methodName)) unit = "年";
-                return value + unit + "の期間";
-            }
-        }
-
-        // Period.between(d1, d2) -> d1からd2までの期間
-        if ("between".equals(methodName) && mc.getArguments().size() == 2) {
-            if (mc.getScope().isPresent() && "Period".equals(mc.getScope().get().toString())) {
-                String start = convertExpressionToString(mc.getArgument(0));
-                String end = convertExpressionToString(mc.getArgument(1));
-                return start + "から" + end + "までの期間";
-            }
-        }
-
-
-        // DateTimeFormatter.ofPattern("...")
-        if ("ofPattern".equals(methodName) && mc.getArguments().size() == 1) {
-            if (mc.getScope().isPresent() && "DateTimeFormatter".equals(mc.getScope().get().toString())) {
-                String pattern = convertExpressionToString(mc.getArgument(0));
-                return "日時フォーマット(" + pattern + ")作成";
-            }
-        }
-
-        // LocalDate.parse(text, formatter)
-        if ("parse".equals(methodName) && mc.getArguments().size() == 2) {
-            if (mc.getScope().isPresent() && "LocalDate".equals(mc.getScope().get().toString())) {
-                String dateString = convertExpressionToString(mc.getArgument(0));
-                String formatter = convertExpressionToString(mc.getArgument(1));
-                return dateString + "を" + formatter + "の形式逆変換";
-            }
-        }
+            return null;
+        });
 
         // ldate.plusDays(1000) -> ldateに1000日加算
-        if ((methodName.startsWith("plus") || methodName.startsWith("minus")) && mc.getArguments().size() == 1 && mc.getScope().isPresent()) {
-            String dateTimeConversion = convertDateTimePlusMinus(mc);
-            if (dateTimeConversion != null) {
-                return dateTimeConversion;
-            }
-        }
-
-        // ldatep.format(fmt) -> ldatepをfmtの形式変換
-        if ("format".equals(methodName) && mc.getArguments().size() == 1 && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
-            String formatter = convertExpressionToString(mc.getArgument(0));
-            return scope + "を" + formatter + "の形式変換";
-        }
-
-        // names.iterator() -> namesのイテレータ
-        if ("iterator".equals(methodName) && mc.getArguments().isEmpty() && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
-            return scope + " の順番生成";
-        }
-
-        // it.next() -> itの次の要素
-        if ("next".equals(methodName) && mc.getArguments().isEmpty() && mc.getScope().isPresent()) {
-            // To avoid conflict with Scanner's next(), we can check the scope type if needed.
-            // For now, this general rule should work for iterators.
-            String scope = convertExpressionToString(mc.getScope().get());
-            return scope + "の次の要素";
-        }
-
-        // collection.size() -> collectionの要素数
-        if ("size".equals(methodName) && mc.getArguments().isEmpty() && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
-            return scope + "の要素数";
-        }
-
-        // map.keySet() -> mapのキー一覧
-        if ("keySet".equals(methodName) && mc.getArguments().isEmpty() && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
-            return scope + "のキー一覧";
-        }
+        rules.addPrefix(SOME_SCOPE, "plus", 1, MethodConverter::convertDateTimePlusMinus);
+        rules.addPrefix(SOME_SCOPE, "minus", 1, MethodConverter::convertDateTimePlusMinus);
 
         // Setter: p.setAge(-128) -> pの年齢に-128を設定
-        if (methodName.startsWith("set") && methodName.length() > 3 && Character.isUpperCase(methodName.charAt(3)) && mc.getArguments().size() == 1 && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
+        rules.addPrefix(SOME_SCOPE, "set", 1, mc -> {
+            String methodName = mc.getNameAsString();
+            if (methodName.length() <= 3 || !Character.isUpperCase(methodName.charAt(3))) {
+                return null;
+            }
+            String scope = convertScope(mc);
             String propertyName = methodName.substring(3);
             // 簡単な英和辞書でプロパティ名を変換
             String propertyNameJp = propertyName; // 変換できない場合はそのまま
             String value = convertExpressionToString(mc.getArgument(0));
             return scope + "の" + propertyNameJp + "に" + value + "を設定";
-        }
-
-        // DateFormat.parse(String)
-        if ("parse".equals(methodName) && mc.getArguments().size() == 1) {
-            if (mc.getScope().isPresent()) {
-                String scope = convertExpressionToString(mc.getScope().get());
-                String dateString = convertExpressionToString(mc.getArgument(0));
-                return dateString + "を" + scope + "の形式逆変換";
-            }
-        }
-
-        // DateFormat.format(Date)
-        if ("format".equals(methodName) && mc.getArguments().size() == 1 && mc.getScope().isPresent()) {
-            // このブロックは新しい `format` の実装に置き換えられたため、
-            // String.format との衝突を避けるための古いロジックは不要になります。
-            // ただし、古い DateFormat のためのロジックがまだ必要であれば、
-            // スコープの型をチェックして分岐させることができます。
-            // if (mc.getScope().get().calculateResolvedType().asReferenceType().getQualifiedName().endsWith("DateFormat")) { ... }
-            String scope = convertExpressionToString(mc.getScope().get());
-            String dateObject = convertExpressionToString(mc.getArgument(0));
-            return dateObject + "を" + scope + "の形式変換";
-        }
-
-        // Math.max, Math.min の特別処理
-        if (mc.getScope().isPresent() && "Math".equals(mc.getScope().get().toString())) {
-            if (("max".equals(methodName) || "min".equals(methodName)) && mc.getArguments().size() == 2) {
-                String arg1 = convertExpressionToString(mc.getArgument(0));
-                String arg2 = convertExpressionToString(mc.getArgument(1));
-                String operation = "max".equals(methodName) ? "最大値" : "最小値";
-                return arg1 + "と" + arg2 + "の" + operation;
-            }
-        }
-
-        // Integer.parseInt の特別処理
-        if (mc.getScope().isPresent() && "Integer".equals(mc.getScope().get().toString())) {
-            if ("parseInt".equals(methodName) && mc.getArguments().size() == 1) {
-                String arg = convertExpressionToString(mc.getArgument(0));
-                return arg + "を整数変換";
-            }
-        }
+        });
 
         // Random().nextInt(n) の特別処理
-        if ("nextInt".equals(methodName) && mc.getArguments().size() == 1) {
-            if (mc.getScope().isPresent()) {
-                Expression scope = mc.getScope().get();
-                // new Random().nextInt(n) のような形式を検出
-                if (scope.isObjectCreationExpr() && scope.asObjectCreationExpr().getType().getNameAsString().contains("Random")) {
-                    String arg = convertExpressionToString(mc.getArgument(0));
-                    return arg + "の乱数";
-                }
+        rules.add(SOME_SCOPE, "nextInt", 1, mc -> {
+            Expression scope = mc.getScope().get();
+            // new Random().nextInt(n) のような形式を検出
+            if (scope.isObjectCreationExpr() && scope.asObjectCreationExpr().getType().getNameAsString().contains("Random")) {
+                return convertExpressionToString(mc.getArgument(0)) + "の乱数";
             }
-        }
+            return null;
+        });
 
         // new Scanner(System.in).next...() の特別処理
-        if (("nextLine".equals(methodName) || "nextInt".equals(methodName) || "nextDouble".equals(methodName)) && mc.getArguments().isEmpty()) {
-            if (mc.getScope().isPresent()) {
-                Expression scope = mc.getScope().get();
-                // new Scanner(System.in) のような形式を検出
-                if (scope.isObjectCreationExpr()) {
-                    ObjectCreationExpr oce = scope.asObjectCreationExpr();
-                    if (oce.getType().getNameAsString().contains("Scanner") &&
-                        oce.getArguments().size() == 1 &&
-                        "System.in".equals(oce.getArgument(0).toString())) {
-                        
-                        if ("nextLine".equals(methodName)) return "文字列読み込み";
-                        if ("nextInt".equals(methodName)) return "整数読み込み";
-                        if ("nextDouble".equals(methodName)) return "小数読み込み";
-                    }
-                }
-            }
-        }
+        rules.add(SOME_SCOPE, "nextLine", 0, mc -> isStandardInputScanner(mc.getScope().get()) ? "文字列読み込み" : null);
+        rules.add(SOME_SCOPE, "nextInt", 0, mc -> isStandardInputScanner(mc.getScope().get()) ? "整数読み込み" : null);
+        rules.add(SOME_SCOPE, "nextDouble", 0, mc -> isStandardInputScanner(mc.getScope().get()) ? "小数読み込み" : null);
 
         // String.length()
-        if ("length".equals(methodName) && mc.getArguments().isEmpty()) {
-            if (mc.getScope().isPresent()) {
-                String scope = convertExpressionToString(mc.getScope().get());
-                return scope + "の長さ";
-            }
-            return "長さ"; // スコープがない場合は稀だが念のため
-        }
+        // スコープがない場合は稀だが念のため
+        rules.add(ANY_SCOPE, "length", 0, mc -> mc.getScope().isPresent() ? convertScope(mc) + "の長さ" : "長さ");
 
         // toString()
-        if ("toString".equals(methodName) && mc.getArguments().isEmpty()) {
-            if (mc.getScope().isPresent()) {
-                String scope = convertExpressionToString(mc.getScope().get());
-                return scope + "の文字列変換";
-            }
-            return "文字列変換"; // スコープがない場合は稀だが念のため
-        }
-
-        // e.printStackTrace() -> エラー詳細出力
-        if ("printStackTrace".equals(methodName) && mc.getArguments().isEmpty() && mc.getScope().isPresent()) {
-            String scope = convertExpressionToString(mc.getScope().get());
-            // スコープ(e)を出力に含めるように変更
-            // eのエラー詳細出力
-            return scope + "のエラー詳細出力";
-        }
-
-        // fr.read() -> frから1文字読込
-        if ("read".equals(methodName) && mc.getArguments().isEmpty() && mc.getScope().isPresent()) {
-            // To be more precise, we could check if the scope is a type of Reader.
-            // For now, we assume `read()` without arguments is for reading a single character.
-            String scope = convertExpressionToString(mc.getScope().get());
-            return scope + "から1文字読込";
-        }
-
+        rules.add(ANY_SCOPE, "toString", 0, mc -> mc.getScope().isPresent() ? convertScope(mc) + "の文字列変換" : "文字列変換");
 
         // matches
-        if ("matches".equals(methodName) && mc.getArguments().size() == 1) {
+        rules.add(ANY_SCOPE, "matches", 1, mc -> {
             String left = mc.getScope()
                     .map(MethodConverter::convertExpressionToString)
                     .orElse("");
             String pattern = mc.getArgument(0).isStringLiteralExpr()
                     ? "「" + mc.getArgument(0).asStringLiteralExpr().asString() + "」"
-                    : mc.getArgument(0).toString();
+                    : NameResolver.text(mc.getArgument(0));
             return left + "を" + pattern + "で正規表現マッチ";
-        }
-
-        // equals
-        if ("equals".equals(methodName) && mc.getArguments().size() == 1) {
-            String left = mc.getScope()
-                    .map(MethodConverter::convertExpressionToString)
-                    .orElse("");
-            String right = convertExpressionToString(mc.getArgument(0));
-            return left + "が" + right + "と等しい";
-        }
+        });
 
         // StringBuilder.append()
-        if ("append".equals(methodName) && mc.getArguments().size() == 1) {
+        rules.add(ANY_SCOPE, "append", 1, mc -> {
             String scope = mc.getScope()
                     .map(MethodConverter::convertExpressionToString)
                     .orElse("");
             String arg = convertArgument(mc.getArgument(0));
             // スコープが空でない場合のみ「に」を追加
             return scope + (scope.isEmpty() ? "" : "に") + arg + "追加";
-        }
-
-        // String.replaceAll(regex, replacement)
-        if ("replaceAll".equals(methodName) && mc.getArguments().size() == 2) {
-            String scope = mc.getScope()
-                    .map(MethodConverter::convertExpressionToString)
-                    .orElse("");
-            String regex = convertExpressionToString(mc.getArgument(0));
-            String replacement = convertExpressionToString(mc.getArgument(1));
-
-            return scope + "の" + regex + "を" + replacement + "へ正規表現置換";
-        }
+        });
 
         // String.split(regex)
-        if ("split".equals(methodName) && mc.getArguments().size() == 1) {
+        rules.add(ANY_SCOPE, "split", 1, mc -> {
             String scope = mc.getScope()
                     .map(MethodConverter::convertExpressionToString)
                     .orElse("");
@@ -1195,84 +940,53 @@ public class MethodConverter {
                     ? "「" + mc.getArgument(0).asStringLiteralExpr().getValue() + "」"
                     : convertExpressionToString(mc.getArgument(0));
             return scope + "を" + delimiter + "で正規表現区切る";
-        }
+        });
 
         // String.format(format, args...)
-        if ("format".equals(methodName) && mc.getScope().isPresent() && "String".equals(mc.getScope().get().toString())) {
-            if (mc.getArguments().size() >= 1) {
-                String formatString = convertExpressionToString(mc.getArgument(0));
-                String args = mc.getArguments().stream()
-                        .skip(1) // Skip the format string argument
-                        .map(arg -> {
-                            // Here we use toString() to get a more literal representation of the arguments
-                            return arg.toString();
-                        })
-                        .collect(Collectors.joining(", "));
-                return formatString + "を「" + args + "」で形式指定";
+        rules.add("String", "format", ANY_ARITY, mc -> {
+            if (mc.getArguments().isEmpty()) {
+                return null;
             }
-        }
-
+            String formatString = convertExpressionToString(mc.getArgument(0));
+            String args = mc.getArguments().stream()
+                    .skip(1) // Skip the format string argument
+                    // 引数はソースの書き方のまま出力する
+                    .map(NameResolver::text)
+                    .collect(Collectors.joining(", "));
+            return formatString + "を「" + args + "」で形式指定";
+        });
 
         // substring
-        if ("substring".equals(methodName)) {
+        rules.add(ANY_SCOPE, "substring", ANY_ARITY, mc -> {
             String scope = mc.getScope()
                     .map(MethodConverter::convertExpressionToString)
                     .orElse("");
-            
-            Expression startIndexExpr = mc.getArgument(0);
-            String startIndexConverted;
-            if (startIndexExpr.isIntegerLiteralExpr()) {
-                try {
-                    int startIndexValue = Integer.parseInt(startIndexExpr.asIntegerLiteralExpr().getValue());
-                    startIndexConverted = String.valueOf(startIndexValue + 1);
-                } catch (NumberFormatException e) {
-                    startIndexConverted = convertExpressionToString(startIndexExpr) + "+1";
-                }
-            } else {
-                startIndexConverted = convertExpressionToString(startIndexExpr) + "+1";
-            }
+            String startIndexConverted = convertOneBasedIndex(mc.getArgument(0));
 
             if (mc.getArguments().size() == 1) {
                 // s1.substring(startIndex) -> s1の(startIndex+1)文字目以降の文字列
                 return scope + "の" + startIndexConverted + "文字目以降の文字列";
             } else if (mc.getArguments().size() == 2) {
                 // s1.substring(startIndex, endIndex) -> s1の(startIndex+1)~endIndex文字目の文字列
-                Expression endIndexExpr = mc.getArgument(1);
-                String endIndexConverted = convertExpressionToString(endIndexExpr);
+                String endIndexConverted = convertExpressionToString(mc.getArgument(1));
                 return scope + "の" + startIndexConverted + "~" + endIndexConverted + "文字目の文字列";
             }
-        }
-
-        // indexOf / lastIndexOf
-        if (("indexOf".equals(methodName) || "lastIndexOf".equals(methodName)) && mc.getArguments().size() == 1) {
-            String scope = mc.getScope().map(MethodConverter::convertExpressionToString).orElse("");
-            String arg = convertExpressionToString(mc.getArgument(0));
-            // tasks.indexOf("...") -> tasksの「...」の場所
-            return scope + "の" + arg + "の場所";
-        }
+            return null;
+        });
 
         // charAt(index)
-        if ("charAt".equals(methodName) && mc.getArguments().size() == 1) {
+        rules.add(ANY_SCOPE, "charAt", 1, mc -> {
             String scope = mc.getScope()
                     .map(MethodConverter::convertExpressionToString)
                     .orElse("");
-            
-            Expression indexExpr = mc.getArgument(0);
-            String indexConverted;
-            if (indexExpr.isIntegerLiteralExpr()) {
-                try {
-                    int indexValue = Integer.parseInt(indexExpr.asIntegerLiteralExpr().getValue());
-                    indexConverted = String.valueOf(indexValue + 1);
-                } catch (NumberFormatException e) {
-                    indexConverted = convertExpressionToString(indexExpr) + "+1";
-                }
-            } else {
-                indexConverted = convertExpressionToString(indexExpr) + "+1";
-            }
-            return scope + "の" + indexConverted + "文字目";
-        }
+            return scope + "の" + convertOneBasedIndex(mc.getArgument(0)) + "文字目";
+        });
+
+        return rules;
+    }
 
-        // デフォルト
+    // どの規則にも当てはまらない呼び出し
+    private static String convertDefaultMethodCallExpression(MethodCallExpr mc) {
         String scopePrefix = "";
         if (mc.getScope().isPresent()) {
             Expression scopeExpr = mc.getScope().get();
@@ -1289,8 +1003,36 @@ public class MethodConverter {
                 .collect(Collectors.joining(", "));
 
         return args.isEmpty()
-                ? scopePrefix + methodName // 引数がない場合は()を付けない
-                : scopePrefix + methodName + "(" + args + ")";
+                ? scopePrefix + mc.getNameAsString() // 引数がない場合は()を付けない
+                : scopePrefix + mc.getNameAsString() + "(" + args + ")";
+    }
+
+    private static String convertScope(MethodCallExpr mc) {
+        return convertExpressionToString(mc.getScope().get());
+    }
+
+    // 0始まりの添字を1始まりにする (リテラルなら計算し、それ以外は「+1」を付ける)
+    private static String convertOneBasedIndex(Expression indexExpr) {
+        if (indexExpr.isIntegerLiteralExpr()) {
+            try {
+                int indexValue = Integer.parseInt(indexExpr.asIntegerLiteralExpr().getValue());
+                return String.valueOf(indexValue + 1);
+            } catch (NumberFormatException e) {
+                return convertExpressionToString(indexExpr) + "+1";
+            }
+        }
+        return convertExpressionToString(indexExpr) + "+1";
+    }
+
+    // new Scanner(System.in) のような形式かどうか
+    private static boolean isStandardInputScanner(Expression scope) {
+        if (!scope.isObjectCreationExpr()) {
+            return false;
+        }
+        ObjectCreationExpr oce = scope.asObjectCreationExpr();
+        return oce.getType().getNameAsString().contains("Scanner")
+                && oce.getArguments().size() == 1
+                && NameResolver.isName(oce.getArgument(0), "System.in");
     }
 
     private static String convertDateTimePlusMinus(MethodCallExpr mc) {
@@ -1339,14 +1081,14 @@ public class MethodConverter {
     private static String getZoneIdString(Expression expr) {
         if (expr instanceof MethodCallExpr) {
             MethodCallExpr call = (MethodCallExpr) expr;
-            if ("of".equals(call.getNameAsString()) && call.getArguments().size() == 1 && call.getScope().isPresent() && "ZoneId".equals(call.getScope().get().toString())) {
+            if ("of".equals(call.getNameAsString()) && call.getArguments().size() == 1 && NameResolver.hasScope(call, "ZoneId")) {
                 Expression arg = call.getArgument(0);
                 if (arg.isStringLiteralExpr()) {
                     return arg.asStringLiteralExpr().getValue();
                 }
             }
         }
-        return expr.toString(); // フォールバック
+        return NameResolver.text(expr); // フォールバック
     }
 
     /**
@@ -1397,15 +1139,4 @@ public class MethodConverter {
     /**
      * 変換結果を格納するデータクラス
      */
-    public static class Item {
-        public final int line;
-        public final String content;
-        public final int priority;
-
-        public Item(int line, String content, int priority) {
-            this.line = line;
-            this.content = content;
-            this.priority = priority;
-        }
-    }
 }
@@ -0,0 +1,113 @@
+package converter;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.BooleanLiteralExpr;
+import com.github.javaparser.ast.expr.CharLiteralExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LiteralStringValueExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.NullLiteralExpr;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
+
+/**
+ * 名前やリテラルのソース上の文字列を、JavaParser のプリティプリンターを通さずに求めるクラス
+ *
+ * Node.toString() は呼ぶたびに DefaultPrettyPrinter で部分木を出力し直すので、
+ * スコープ名(System, Math など)を比べるだけの処理には重い。
+ * ここでは NameExpr・FieldAccessExpr・リテラルをノードが持っている文字列から直接組み立て、
+ * 比べるだけなら文字列も作らない。結果は toString() と同じになる。
+ */
+public final class NameResolver {
+
+    private NameResolver() {
+    }
+
+    /**
+     * ノードのソース上の文字列を返す (toString() と同じ結果)
+     * 名前・フィールドアクセス・リテラル以外は toString() を使う
+     */
+    public static String text(Node node) {
+        if (hasComments(node)) {
+            return node.toString();
+        }
+        if (node instanceof NameExpr) {
+            return ((NameExpr) node).getNameAsString();
+        }
+        if (node instanceof FieldAccessExpr) {
+            FieldAccessExpr fieldAccess = (FieldAccessExpr) node;
+            if (fieldAccess.getTypeArguments().isEmpty()) {
+                return text(fieldAccess.getScope()) + "." + fieldAccess.getNameAsString();
+            }
+        } else if (node instanceof StringLiteralExpr) {
+            return "\"" + ((StringLiteralExpr) node).getValue() + "\"";
+        } else if (node instanceof CharLiteralExpr) {
+            return "'" + ((CharLiteralExpr) node).getValue() + "'";
+        } else if (node instanceof LiteralStringValueExpr) {
+            // 整数・long・小数のリテラル (テキストブロックは toString() に任せる)
+            if (!((LiteralStringValueExpr) node).isTextBlockLiteralExpr()) {
+                return ((LiteralStringValueExpr) node).getValue();
+            }
+        } else if (node instanceof BooleanLiteralExpr) {
+            return ((BooleanLiteralExpr) node).getValue() ? "true" : "false";
+        } else if (node instanceof NullLiteralExpr) {
+            return "null";
+        } else if (node instanceof ThisExpr) {
+            if (((ThisExpr) node).getTypeName().isEmpty()) {
+                return "this";
+            }
+        }
+        return node.toString();
+    }
+
+    /**
+     * 式が指定した名前("System" や "System.out" など)と同じ文字列になるかを、文字列を作らずに調べる
+     */
+    public static boolean isName(Expression expr, String name) {
+        return matches(expr, name, name.length());
+    }
+
+    /**
+     * メソッド呼び出しのスコープが指定した名前かどうか (例: Math.max(...) のスコープは "Math")
+     */
+    public static boolean hasScope(MethodCallExpr methodCall, String name) {
+        return methodCall.getScope().isPresent() && isName(methodCall.getScope().get(), name);
+    }
+
+    /**
+     * toString() がノード自身のコメントや、直前にある親の孤立コメントも出力する場合
+     */
+    private static boolean hasComments(Node node) {
+        return node.getComment().isPresent()
+                || node.getParentNode().map(parent -> !parent.getOrphanComments().isEmpty()).orElse(false);
+    }
+
+    // name の先頭から end 文字目までが expr と一致するか
+    private static boolean matches(Expression expr, String name, int end) {
+        if (hasComments(expr)) {
+            return false;
+        }
+        if (expr instanceof NameExpr) {
+            String identifier = ((NameExpr) expr).getNameAsString();
+            return end == identifier.length() && name.startsWith(identifier);
+        }
+        if (expr instanceof FieldAccessExpr) {
+            FieldAccessExpr fieldAccess = (FieldAccessExpr) expr;
+            if (fieldAccess.getTypeArguments().isPresent()) {
+                return false;
+            }
+            String identifier = fieldAccess.getNameAsString();
+            int start = end - identifier.length();
+            return start > 0
+                    && name.charAt(start - 1) == '.'
+                    && name.startsWith(identifier, start)
+                    && matches(fieldAccess.getScope(), name, start - 1);
+        }
+        if (expr instanceof ThisExpr) {
+            return ((ThisExpr) expr).getTypeName().isEmpty() && end == 4 && name.startsWith("this");
+        }
+        return false;
+    }
+}
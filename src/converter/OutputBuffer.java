@@ -0,0 +1,229 @@
+package converter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 各変換クラスが変換結果を直接追記する出力バッファ
+ *
+ * 変換結果(行番号・優先度・内容)を1件ずつオブジェクトにせず、並列な配列に持つ。
+ * 出力するときは行番号で数え上げソート(counting sort)し、同じ行の中は優先度の小さい順に並べる。
+ * 同じ行・同じ優先度の内容は、グループの小さい順、同じグループ内では追加した順に並ぶ。
+ */
+public final class OutputBuffer {
+
+    /** 優先度を指定しない変換結果の優先度 */
+    public static final int DEFAULT_PRIORITY = 50;
+
+    // 1行の件数がこれ以下なら挿入ソートで並べる
+    private static final int INSERTION_SORT_MAX = 16;
+
+    private int[] lines;
+    private int[] priorities;
+    private int[] groups;
+    private String[] contents;
+    private int size;
+
+    // これから追加する内容のグループ
+    private int group;
+
+    // sortByLine の結果。sorted[lineStart[line] .. lineStart[line + 1]) がその行の内容の添字
+    private int[] sorted;
+    private int[] lineStart;
+
+    public OutputBuffer() {
+        this(256);
+    }
+
+    /**
+     * @param capacity 最初に確保する件数
+     */
+    public OutputBuffer(int capacity) {
+        capacity = Math.max(capacity, 16);
+        lines = new int[capacity];
+        priorities = new int[capacity];
+        groups = new int[capacity];
+        contents = new String[capacity];
+    }
+
+    /**
+     * これ以降に追加する内容のグループを設定する
+     * 同じ行・同じ優先度の内容の順番を、変換クラスを実行した順番とは別に決めるために使う
+     */
+    public void beginGroup(int group) {
+        this.group = group;
+    }
+
+    /**
+     * 既定の優先度で変換結果を追加する
+     */
+    public void add(int line, String content) {
+        add(line, content, DEFAULT_PRIORITY);
+    }
+
+    /**
+     * 変換結果を追加する
+     * @param line 元のコードの行番号
+     * @param content 出力する内容(インデントを含む)
+     * @param priority 同じ行の中での順番 (小さいほど先)
+     */
+    public void add(int line, String content, int priority) {
+        if (size == lines.length) {
+            int capacity = size * 2;
+            lines = Arrays.copyOf(lines, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            groups = Arrays.copyOf(groups, capacity);
+            contents = Arrays.copyOf(contents, capacity);
+        }
+        lines[size] = line;
+        priorities[size] = priority;
+        groups[size] = group;
+        contents[size] = content;
+        size++;
+        sorted = null;
+    }
+
+    /**
+     * other の内容を、other でのグループのまま末尾に追加する
+     * 別々のバッファに出力した変換結果を1つにまとめるときに使う
+     */
+    public void appendAll(OutputBuffer other) {
+        int required = size + other.size;
+        if (required > lines.length) {
+            int capacity = Math.max(required, size * 2);
+            lines = Arrays.copyOf(lines, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            groups = Arrays.copyOf(groups, capacity);
+            contents = Arrays.copyOf(contents, capacity);
+        }
+        System.arraycopy(other.lines, 0, lines, size, other.size);
+        System.arraycopy(other.priorities, 0, priorities, size, other.size);
+        System.arraycopy(other.groups, 0, groups, size, other.size);
+        System.arraycopy(other.contents, 0, contents, size, other.size);
+        size = required;
+        sorted = null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int lineAt(int index) {
+        return lines[index];
+    }
+
+    public int priorityAt(int index) {
+        return priorities[index];
+    }
+
+    public String contentAt(int index) {
+        return contents[index];
+    }
+
+    /**
+     * 1行目から lineCount 行目までの内容を行番号順に並べる
+     * 範囲外の行番号(位置情報がない -1 など)の内容は出力しない
+     */
+    public void sortByLine(int lineCount) {
+        int[] start = new int[lineCount + 2];
+        for (int i = 0; i < size; i++) {
+            int line = lines[i];
+            if (line >= 1 && line <= lineCount) {
+                start[line + 1]++;
+            }
+        }
+        for (int line = 1; line <= lineCount; line++) {
+            start[line + 1] += start[line];
+        }
+
+        int[] order = new int[start[lineCount + 1]];
+        int[] next = Arrays.copyOf(start, start.length);
+        for (int i = 0; i < size; i++) {
+            int line = lines[i];
+            if (line >= 1 && line <= lineCount) {
+                order[next[line]++] = i;
+            }
+        }
+
+        // 1行あたりの件数はふつう少ないので挿入ソート(安定)で優先度順にする。
+        // 1行に多くの文を書いたコードでは件数が多くなるので、その行はマージソート(安定)にする
+        int[] scratch = null;
+        for (int line = 1; line <= lineCount; line++) {
+            int from = start[line];
+            int to = start[line + 1];
+            if (to - from <= INSERTION_SORT_MAX) {
+                insertionSort(order, from, to);
+            } else {
+                if (scratch == null) {
+                    scratch = new int[order.length];
+                }
+                mergeSort(order, scratch, from, to);
+            }
+        }
+
+        this.sorted = order;
+        this.lineStart = start;
+    }
+
+    private void insertionSort(int[] order, int from, int to) {
+        for (int k = from + 1; k < to; k++) {
+            int index = order[k];
+            int j = k - 1;
+            while (j >= from && comesAfter(order[j], index)) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+    }
+
+    /**
+     * order[from .. to) を優先度順に並べる。同じ順番の内容は元の並び(追加した順)を保つ
+     */
+    private void mergeSort(int[] order, int[] scratch, int from, int to) {
+        if (to - from <= INSERTION_SORT_MAX) {
+            insertionSort(order, from, to);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(order, scratch, from, middle);
+        mergeSort(order, scratch, middle, to);
+        if (!comesAfter(order[middle - 1], order[middle])) {
+            return;
+        }
+        System.arraycopy(order, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int k = from; k < to; k++) {
+            // 右が先に来る場合だけ右から取るので、同じ順番なら左(先に追加した方)が先になる
+            if (right >= to || (left < middle && !comesAfter(scratch[left], scratch[right]))) {
+                order[k] = scratch[left++];
+            } else {
+                order[k] = scratch[right++];
+            }
+        }
+    }
+
+    private boolean comesAfter(int a, int b) {
+        if (priorities[a] != priorities[b]) {
+            return priorities[a] > priorities[b];
+        }
+        return groups[a] > groups[b];
+    }
+
+    /**
+     * sortByLine の後に、指定した行に内容があるかを返す
+     */
+    public boolean hasLine(int line) {
+        return lineStart[line] < lineStart[line + 1];
+    }
+
+    /**
+     * sortByLine の後に、指定した行の内容を順番に out に書き出す(1件ごとに改行する)
+     */
+    public void appendLine(int line, Appendable out) throws IOException {
+        for (int k = lineStart[line]; k < lineStart[line + 1]; k++) {
+            out.append(contents[sorted[k]]).append('\n');
+        }
+    }
+}
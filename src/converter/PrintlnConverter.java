@@ -1,8 +1,5 @@
 package converter;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.FieldAccessExpr;
@@ -12,36 +9,41 @@ import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 public class PrintlnConverter { // System.out.println文をなでしこ形式に変換するクラス
 
-    public static List<Item> convert(CompilationUnit cu) {
-        List<Item> items = new ArrayList<>(); // 変換結果を格納するリスト
+    public static void convert(CompilationUnit cu, ConversionContext context, OutputBuffer out) {
         cu.accept(new VoidVisitorAdapter<Void>() {
             @Override
             public void visit(MethodCallExpr methodCall, Void arg) { // メソッド呼び出しの場合
-                if (isPrintlnCall(methodCall)) { // System.out.printlnの場合
-                    int line = methodCall.getBegin().map(p -> p.line).orElse(-1); // 行番号取得
-                    String indent = IndentManager.getIndentForLine(line); // 行のインデントを取得
-                    if (!methodCall.getArguments().isEmpty()) { // 引数が存在する場合
-                        String content = convertPrintContent(methodCall.getArguments().get(0)); // 最初の引数を取得
-                        String text = indent + content + "と表示。"; // なでしこ形式のテキスト生成
-                        items.add(new Item(line, text)); // 変換結果をリストに追加
-                    } else { // 引数がない場合
-                        String text = indent + "改行。";
-                        items.add(new Item(line, text)); // 変換結果をリストに追加
-                    }
-                } else if (isPrintCall(methodCall)) { // System.out.printの場合
-                    int line = methodCall.getBegin().map(p -> p.line).orElse(-1); // 行番号取得
-                    if (!methodCall.getArguments().isEmpty()) { // 引数が存在する場合
-                        String content = convertPrintContent(methodCall.getArguments().get(0)); // 最初の引数を取得
-                        String indent = IndentManager.getIndentForLine(line); // 行のインデントを取得
-                        String text = indent + content + "と無改行表示。"; // なでしこ形式のテキスト生成
-                        items.add(new Item(line, text)); // 変換結果をリストに追加
-                    }
-                }
+                convert(methodCall, out, context);
                 super.visit(methodCall, arg); // 子ノードの訪問
             }
         }, null);
 
-        return items;
+    }
+
+    /**
+     * System.out.println / print の呼び出しを変換する (ConversionEngine から呼び出される)
+     */
+    static void convert(MethodCallExpr methodCall, OutputBuffer out, ConversionContext context) {
+        if (isPrintlnCall(methodCall)) { // System.out.printlnの場合
+            int line = methodCall.getBegin().map(p -> p.line).orElse(-1); // 行番号取得
+            String indent = context.getIndentForLine(line); // 行のインデントを取得
+            if (!methodCall.getArguments().isEmpty()) { // 引数が存在する場合
+                String content = convertPrintContent(methodCall.getArguments().get(0)); // 最初の引数を取得
+                String text = indent + content + "と表示。"; // なでしこ形式のテキスト生成
+                out.add(line, text); // 変換結果をリストに追加
+            } else { // 引数がない場合
+                String text = indent + "改行。";
+                out.add(line, text); // 変換結果をリストに追加
+            }
+        } else if (isPrintCall(methodCall)) { // System.out.printの場合
+            int line = methodCall.getBegin().map(p -> p.line).orElse(-1); // 行番号取得
+            if (!methodCall.getArguments().isEmpty()) { // 引数が存在する場合
+                String content = convertPrintContent(methodCall.getArguments().get(0)); // 最初の引数を取得
+                String indent = context.getIndentForLine(line); // 行のインデントを取得
+                String text = indent + content + "と無改行表示。"; // なでしこ形式のテキスト生成
+                out.add(line, text); // 変換結果をリストに追加
+            }
+        }
     }
 
     private static boolean isPrintlnCall(MethodCallExpr methodCall) { // System.out.printlnかどうか判定
@@ -89,16 +91,7 @@ public class PrintlnConverter { // System.out.println文をなでしこ形式に
         if (converted != null) { // 変換できた場合
             return converted;
         }
-        return "(" + ExpressionConverter.convertExpression(expr) + ")";
-    }
-
-    public static class Item { // 行番号と内容をまとめたクラス
-        public final int line;
-        public final String content;
-
-        public Item(int line, String content) {
-            this.line = line;
-            this.content = content;
-        }
+        // 変換できなかった式は、以前から "(null)" と出力している (もう一度変換しても結果は null のため)
+        return "(null)";
     }
 }
\ No newline at end of file
@@ -1,8 +1,5 @@
 package converter;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.stmt.BreakStmt;
@@ -12,79 +9,72 @@ import com.github.javaparser.ast.stmt.SwitchStmt;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 public class SwitchStatementConverter {
-    public static List<Item> convert(CompilationUnit cu) {
-        List<Item> items = new ArrayList<>();
+    public static void convert(CompilationUnit cu, ConversionContext context, OutputBuffer out) {
         cu.accept(new VoidVisitorAdapter<Void>() {
             @Override
             public void visit(SwitchStmt switchStmt, Void arg) {
-                int line = switchStmt.getBegin().map(p -> p.line).orElse(-1);
-                String outerIndent = IndentManager.getIndentForLine(line);
-                String switchVar = switchStmt.getSelector().toString();
-                items.add(new Item(line, outerIndent + switchVar + "で条件分岐："));
+                convert(switchStmt, out, context);
+                super.visit(switchStmt, arg);
+            }
 
-                String caseIndent = outerIndent + "　";
-                String statementIndent = caseIndent + "　";
+        }, null);
+    }
 
-                for (SwitchEntry entry : switchStmt.getEntries()) {
-                    int entryLine = entry.getBegin().map(p -> p.line).orElse(-1);
-                    if (entry.getLabels().isEmpty()) { // default
-                        items.add(new Item(entryLine, caseIndent + "それ以外ならば："));
-                    } else {
-                        for (Expression label : entry.getLabels()) {
-                            // ラベルごとに行を追加するのではなく、最初の一つのラベルの行にまとめる
-                            // ただし、JavaParserの仕様上、複数のラベルが1つのSwitchEntryにまとまるため、
-                            // ここでは各ラベルを別々の行として出力する
-                            items.add(new Item(entryLine, caseIndent + label.toString() + "ならば："));
-                        }
-                    }
+    /**
+     * 1つのswitch文を変換し、case内のインデントを記録する (ConversionEngine から呼び出される)
+     */
+    static void convert(SwitchStmt switchStmt, OutputBuffer out, ConversionContext context) {
+        int line = switchStmt.getBegin().map(p -> p.line).orElse(-1);
+        int depth = context.getDepthForLine(line);
+        String outerIndent = IndentManager.indentOf(depth);
+        String switchVar = switchStmt.getSelector().toString();
+        out.add(line, outerIndent + switchVar + "で条件分岐：");
 
-                    // caseブロック内のインデントを記録するロジックを統合
-                    int lastLine = entry.getBegin().map(p -> p.line).orElse(0);
-                    for (Statement stmt : entry.getStatements()) {
-                        int startLine = stmt.getBegin().map(p -> p.line).orElse(-1);
-                        if (startLine != -1) {
-                            // 前の文の終わりから今の文の始まりまで(コメント行や空行)をインデント
-                            for (int i = lastLine + 1; i < startLine; i++) {
-                                IndentManager.recordIndentForLine(i, statementIndent);
-                            }
+        String caseIndent = IndentManager.indentOf(depth + 1);
+        int statementDepth = depth + 2;
+        String statementIndent = IndentManager.indentOf(statementDepth);
 
-                            // break文は特別に変換し、それ以外の文はインデントを記録
-                            if (stmt instanceof BreakStmt) {
-                                items.add(new Item(startLine, statementIndent + "抜ける。"));
-                                lastLine = stmt.getEnd().map(p -> p.line).orElse(startLine);
-                            } else if (stmt.isBlockStmt()) {
-                                // case 0 -> { ... } のようなアロー構文のブロックを処理
-                                MethodConverter.MethodVisitor.processBlock(stmt.asBlockStmt(), statementIndent);
-                                // ブロック全体の行範囲を更新
-                                lastLine = stmt.getEnd().map(p -> p.line).orElse(startLine);
-                            } else {
-                                IndentManager.recordIndentForLine(startLine, statementIndent);
-                                lastLine = stmt.getEnd().map(p -> p.line).orElse(startLine);
-                            }
-                        }
-                    }
-                    // 最後の文からSwitchEntryの終わりまでのコメント/空行をインデント
-                    int entryEndLine = entry.getEnd().map(p -> p.line).orElse(0);
-                    for (int i = lastLine + 1; i < entryEndLine; i++) {
-                        IndentManager.recordIndentForLine(i, statementIndent);
-                    }
+        for (SwitchEntry entry : switchStmt.getEntries()) {
+            int entryLine = entry.getBegin().map(p -> p.line).orElse(-1);
+            if (entry.getLabels().isEmpty()) { // default
+                out.add(entryLine, caseIndent + "それ以外ならば：");
+            } else {
+                for (Expression label : entry.getLabels()) {
+                    // ラベルごとに行を追加するのではなく、最初の一つのラベルの行にまとめる
+                    // ただし、JavaParserの仕様上、複数のラベルが1つのSwitchEntryにまとまるため、
+                    // ここでは各ラベルを別々の行として出力する
+                    out.add(entryLine, caseIndent + label.toString() + "ならば：");
                 }
-                int endLine = switchStmt.getEnd().map(p -> p.line).orElse(-1);
-                items.add(new Item(endLine, outerIndent + "ここまで。"));
-                super.visit(switchStmt, arg);
             }
 
-        }, null);
-        return items;
-    }
-
-    public static class Item {
-        public final int line;
-        public final String content;
+            // caseブロック内のインデントを記録するロジックを統合
+            int lastLine = entry.getBegin().map(p -> p.line).orElse(0);
+            for (Statement stmt : entry.getStatements()) {
+                int startLine = stmt.getBegin().map(p -> p.line).orElse(-1);
+                if (startLine != -1) {
+                    // 前の文の終わりから今の文の始まりまで(コメント行や空行)をインデント
+                    context.recordDepthForLines(lastLine + 1, startLine, statementDepth);
 
-        public Item(int line, String content) {
-            this.line = line;
-            this.content = content;
+                    // break文は特別に変換し、それ以外の文はインデントを記録
+                    if (stmt instanceof BreakStmt) {
+                        out.add(startLine, statementIndent + "抜ける。");
+                        lastLine = stmt.getEnd().map(p -> p.line).orElse(startLine);
+                    } else if (stmt.isBlockStmt()) {
+                        // case 0 -> { ... } のようなアロー構文のブロックを処理
+                        MethodConverter.MethodVisitor.processBlock(stmt.asBlockStmt(), statementDepth, context);
+                        // ブロック全体の行範囲を更新
+                        lastLine = stmt.getEnd().map(p -> p.line).orElse(startLine);
+                    } else {
+                        context.recordDepthForLine(startLine, statementDepth);
+                        lastLine = stmt.getEnd().map(p -> p.line).orElse(startLine);
+                    }
+                }
+            }
+            // 最後の文からSwitchEntryの終わりまでのコメント/空行をインデント
+            int entryEndLine = entry.getEnd().map(p -> p.line).orElse(0);
+            context.recordDepthForLines(lastLine + 1, entryEndLine, statementDepth);
         }
+        int endLine = switchStmt.getEnd().map(p -> p.line).orElse(-1);
+        out.add(endLine, outerIndent + "ここまで。");
     }
 }
\ No newline at end of file
@@ -1,8 +1,5 @@
 package converter;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.ObjectCreationExpr;
@@ -15,51 +12,44 @@ import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
  */
 public class ThrowStatementConverter {
     
-    public static List<Item> convert(CompilationUnit cu) {
-        List<Item> items = new ArrayList<>();
-        
+    public static void convert(CompilationUnit cu, ConversionContext context, OutputBuffer out) {
         cu.accept(new VoidVisitorAdapter<Void>() {
             @Override
             public void visit(ThrowStmt stmt, Void arg) {
-                int line = stmt.getBegin().map(p -> p.line).orElse(-1);
-                Expression throwExpr = stmt.getExpression();
-                
-                String errorMessage = "";
-                
-                // 例外オブジェクトの生成式から引数を取得
-                if (throwExpr instanceof ObjectCreationExpr) {
-                    ObjectCreationExpr objCreation = (ObjectCreationExpr) throwExpr;
-                    if (!objCreation.getArguments().isEmpty()) {
-                        // ExpressionConverterを使って文字列連結を含む式を変換する
-                        Expression argument = objCreation.getArguments().get(0);
-                        errorMessage = ExpressionConverter.convertExpression(argument);
-                    }
-                }
-                
-                // インデントを取得
-                String indent = IndentManager.getIndentForLine(line);
-                
-                // なでしこ形式で出力
-                if (errorMessage == null || errorMessage.isEmpty()) {
-                    items.add(new Item(line, indent + "エラー発生。"));
-                } else {
-                    items.add(new Item(line, indent + errorMessage + "とエラー発生。"));
-                }
-                
+                convert(stmt, out, context);
                 super.visit(stmt, arg);
             }
         }, null);
         
-        return items;
     }
     
-    public static class Item {
-        public final int line;
-        public final String content;
+    /**
+     * 1つのthrow文を変換する (ConversionEngine から呼び出される)
+     */
+    static void convert(ThrowStmt stmt, OutputBuffer out, ConversionContext context) {
+        int line = stmt.getBegin().map(p -> p.line).orElse(-1);
+        Expression throwExpr = stmt.getExpression();
+        
+        String errorMessage = "";
+        
+        // 例外オブジェクトの生成式から引数を取得
+        if (throwExpr instanceof ObjectCreationExpr) {
+            ObjectCreationExpr objCreation = (ObjectCreationExpr) throwExpr;
+            if (!objCreation.getArguments().isEmpty()) {
+                // ExpressionConverterを使って文字列連結を含む式を変換する
+                Expression argument = objCreation.getArguments().get(0);
+                errorMessage = ExpressionConverter.convertExpression(argument);
+            }
+        }
+        
+        // インデントを取得
+        String indent = context.getIndentForLine(line);
         
-        public Item(int line, String content) {
-            this.line = line;
-            this.content = content;
+        // なでしこ形式で出力
+        if (errorMessage == null || errorMessage.isEmpty()) {
+            out.add(line, indent + "エラー発生。");
+        } else {
+            out.add(line, indent + errorMessage + "とエラー発生。");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package converter;
+
+import java.util.Arrays;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.Statement;
+
+/**
+ * 構文木の走査中に、今いる文を囲む制御構文の情報を持っておくスタック
+ *
+ * return文が if の then 節の中にあるかを、祖先をたどって then 節を探し直す代わりに、
+ * 走査中に入ったブロック・if・for・while ごとに「if の then 節から、ブロック・if・for・while の
+ * 中身だけを通ってたどり着けるか」を積んでおき、直前の1件だけを見て答える。
+ * 走査する側(ConversionEngine や MethodVisitor)が、これらの文に入るときに enter、出るときに exit を呼ぶ。
+ */
+final class TraversalContext {
+
+    private Node[] statements = new Node[16];
+    private boolean[] insideIfThen = new boolean[16];
+    private int size;
+
+    /**
+     * ブロック・if・for・while のどれかの文に入る
+     */
+    void enter(Statement stmt) {
+        if (size == statements.length) {
+            statements = Arrays.copyOf(statements, size * 2);
+            insideIfThen = Arrays.copyOf(insideIfThen, size * 2);
+        }
+        boolean inside = isInsideIfThen(stmt);
+        statements[size] = stmt;
+        insideIfThen[size] = inside;
+        size++;
+    }
+
+    /**
+     * enter した文から出る
+     */
+    void exit() {
+        statements[--size] = null;
+    }
+
+    /**
+     * 今いる位置の文が、if の then 節の中にあるか
+     * (then 節からブロック・if の then/else・for の本体・while の本体だけをたどって届く場合)
+     */
+    boolean isInsideIfThen(Statement stmt) {
+        Node parent = stmt.getParentNode().orElse(null);
+        if (parent instanceof IfStmt && ((IfStmt) parent).getThenStmt() == stmt) {
+            return true;
+        }
+        // 親がこれらの文なら、子の文はその中身なので、親がたどり着けるなら子もたどり着ける
+        return size > 0 && statements[size - 1] == parent && insideIfThen[size - 1];
+    }
+}
@@ -0,0 +1,180 @@
+package converter;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 変換結果をUTF-8で書き出す出力先
+ *
+ * 文字を自前でUTF-8にして再利用するバッファにため、いっぱいになったときと flush のときだけ
+ * まとめてチャネルへ書く。1行ごとに PrintStream の同期・変換・フラッシュを行わずに済む。
+ * 書き込み先はファイル・ソケット・標準出力など、ブロッキングの WritableByteChannel なら何でもよい。
+ *
+ * スレッドセーフではない。1つの出力先は1つのスレッドから使う。
+ */
+public final class Utf8Writer implements Appendable, Flushable, Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] bytes;
+    private int position;
+
+    // サロゲートペアの前半 (append(char) で分かれて渡された場合)
+    private char highSurrogate;
+
+    public Utf8Writer(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param channel 書き込み先 (ブロッキングモード)
+     * @param bufferSize バッファの大きさ(バイト)
+     */
+    public Utf8Writer(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.bytes = new byte[Math.max(bufferSize, 16)];
+        this.buffer = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * 標準出力へ書き出す (System.out のバッファや文字コード変換は通らない)
+     */
+    public static Utf8Writer toStandardOutput() {
+        return new Utf8Writer(Channels.newChannel(new FileOutputStream(FileDescriptor.out)));
+    }
+
+    /**
+     * ファイルへ書き出す。ファイルがあれば上書きする
+     */
+    public static Utf8Writer open(Path file) throws IOException {
+        return new Utf8Writer(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    @Override
+    public Utf8Writer append(CharSequence csq) throws IOException {
+        if (csq == null) {
+            csq = "null";
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Utf8Writer append(CharSequence csq, int start, int end) throws IOException {
+        if (csq == null) {
+            csq = "null";
+        }
+        for (int i = start; i < end; i++) {
+            char c = csq.charAt(i);
+            if (c < 0x80 && highSurrogate == 0) {
+                // ASCII はそのまま1バイトになる
+                if (position == bytes.length) {
+                    drain();
+                }
+                bytes[position++] = (byte) c;
+            } else {
+                encode(c);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public Utf8Writer append(char c) throws IOException {
+        encode(c);
+        return this;
+    }
+
+    private void encode(char c) throws IOException {
+        if (bytes.length - position < 4) {
+            drain();
+        }
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+            bytes[position++] = '?'; // 対になっていないサロゲートは String.getBytes と同じく '?' にする
+            encode(c);
+            return;
+        }
+        if (c < 0x80) {
+            bytes[position++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[position++] = (byte) (0xC0 | (c >> 6));
+            bytes[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            bytes[position++] = '?';
+        } else {
+            bytes[position++] = (byte) (0xE0 | (c >> 12));
+            bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    /**
+     * バッファの内容をチャネルに書き出す
+     */
+    private void drain() throws IOException {
+        buffer.clear().limit(position);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        position = 0;
+    }
+
+    /**
+     * たまっている内容を全て書き出す
+     * 対になっていないサロゲートが残っていれば '?' として書く
+     */
+    @Override
+    public void flush() throws IOException {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            if (position == bytes.length) {
+                drain();
+            }
+            bytes[position++] = '?';
+        }
+        drain();
+    }
+
+    /**
+     * まだ書き出していない内容を捨てる (変換が途中で失敗した場合など)
+     */
+    public void discard() {
+        position = 0;
+        highSurrogate = 0;
+    }
+
+    /**
+     * 書き出してからチャネルを閉じる
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
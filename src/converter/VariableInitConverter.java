@@ -1,8 +1,5 @@
 package converter;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Modifier;
 import com.github.javaparser.ast.Node;
@@ -24,116 +21,126 @@ import com.github.javaparser.ast.stmt.TryStmt;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 public class VariableInitConverter {
-    public static List<Item> convert(CompilationUnit cu) {
-        List<Item> items = new ArrayList<>();
+    public static void convert(CompilationUnit cu, ConversionContext context, OutputBuffer out) {
         cu.accept(new VoidVisitorAdapter<Void>() {
             @Override
             public void visit(VariableDeclarator variable, Void arg) {
-                if (variable.getInitializer().isPresent()) {
-                    int line = variable.getBegin().map(p -> p.line).orElse(-1);
-                    // for文の初期化式の場合はスキップ
-                    if (isForInitialization(variable)) {
-                        super.visit(variable, arg);
-                        return;
-                    }
-
-                    // try-with-resources のリソース宣言は TryCatchConverter で処理するのでスキップ
-                    if (variable.getParentNode().flatMap(Node::getParentNode).map(p -> p instanceof TryStmt).orElse(false)) {
-                        super.visit(variable, arg);
-                        return;
-                    }
-
-                    Expression initializer = variable.getInitializer().get();
-                    if (initializer instanceof ArrayCreationExpr || initializer instanceof ArrayInitializerExpr) {
-                        super.visit(variable, arg);
-                        return;
-                    }
-
-                    String variableName = variable.getNameAsString();
-                    boolean isFinal = checkIsFinal(variable);
-                    String text = convertInitializer(variableName, initializer, isFinal);
-                    if (text != null) {
-                        String indent = IndentManager.getIndentForLine(line);
-                        items.add(new Item(line, indent + text));
-                    }
-                }
+                convert(variable, out, context);
                 super.visit(variable, arg);
             }
 
             @Override
             public void visit(AssignExpr assignExpr, Void arg) {
-                int line = assignExpr.getBegin().map(p -> p.line).orElse(-1);
+                convert(assignExpr, out, context);
+                super.visit(assignExpr, arg);
+            }
 
-                // 変数宣言の一部である代入式は、VariableDeclaratorのvisitで処理されるため、ここではスキップ
-                if (assignExpr.getParentNode().isPresent() &&
-                    (assignExpr.getParentNode().get() instanceof VariableDeclarator ||
-                     assignExpr.getParentNode().get() instanceof EnclosedExpr)) {
-                    super.visit(assignExpr, arg);
-                    return;
-                }                
-                // for文の更新式の場合はスキップ
-                if (isForUpdate(assignExpr)) {
-                    super.visit(assignExpr, arg);
-                    return;
-                }
+            @Override
+            public void visit(UnaryExpr unaryExpr, Void arg) {
+                convert(unaryExpr, out, context);
+                super.visit(unaryExpr, arg);
+            }
+        }, null);
+    }
 
-                String variableName = convertTargetExpression(assignExpr.getTarget());
-                Expression value = assignExpr.getValue();
-                String text = null;
+    /**
+     * 初期化式のある変数宣言を変換する (ConversionEngine から呼び出される)
+     */
+    static void convert(VariableDeclarator variable, OutputBuffer out, ConversionContext context) {
+        if (variable.getInitializer().isPresent()) {
+            int line = variable.getBegin().map(p -> p.line).orElse(-1);
+            // for文の初期化式の場合はスキップ
+            if (isForInitialization(variable)) {
+                return;
+            }
 
-                if (assignExpr.getOperator() == AssignExpr.Operator.ASSIGN) {
-                    // for文の初期化式の場合はスキップ
-                    if (isForInitialization(assignExpr)) {
-                        super.visit(assignExpr, arg);
-                        return;
-                    }
-                    if (value instanceof ArrayCreationExpr || value instanceof ArrayInitializerExpr) {
-                        super.visit(assignExpr, arg);
-                        return;
-                    }
-                    text = convertInitializer(variableName, value, false);
-                } else { // 複合代入演算子の場合
-                    text = convertInitializer(variableName, assignExpr, false);
-                }
+            // try-with-resources のリソース宣言は TryCatchConverter で処理するのでスキップ
+            if (variable.getParentNode().flatMap(Node::getParentNode).map(p -> p instanceof TryStmt).orElse(false)) {
+                return;
+            }
 
-                if (text != null) {
-                    String indent = IndentManager.getIndentForLine(line);
-                    items.add(new Item(line, indent + text));
-                }
-                super.visit(assignExpr, arg);
+            Expression initializer = variable.getInitializer().get();
+            if (initializer instanceof ArrayCreationExpr || initializer instanceof ArrayInitializerExpr) {
+                return;
             }
 
-            @Override
-            public void visit(UnaryExpr unaryExpr, Void arg) {
-                int line = unaryExpr.getBegin().map(p -> p.line).orElse(-1);
+            String variableName = variable.getNameAsString();
+            boolean isFinal = checkIsFinal(variable);
+            String text = convertInitializer(variableName, initializer, isFinal);
+            if (text != null) {
+                String indent = context.getIndentForLine(line);
+                out.add(line, indent + text);
+            }
+        }
+    }
 
-                // for文の更新式の場合はスキップ
-                if (isForUpdate(unaryExpr)) {
-                    super.visit(unaryExpr, arg);
-                    return;
-                }
+    /**
+     * 代入式を変換する (ConversionEngine から呼び出される)
+     */
+    static void convert(AssignExpr assignExpr, OutputBuffer out, ConversionContext context) {
+        int line = assignExpr.getBegin().map(p -> p.line).orElse(-1);
 
-                if (unaryExpr.getParentNode().isPresent()) {
-                    var parent = unaryExpr.getParentNode().get();
-                    // 式の一部である場合は、その式のコンバータで処理されるためスキップ
-                    if (parent instanceof BinaryExpr || parent instanceof MethodCallExpr || parent instanceof AssignExpr
-                            || parent instanceof IfStmt) {
-                        super.visit(unaryExpr, arg);
-                        return;
-                    }
-                }
+        // 変数宣言の一部である代入式は、VariableDeclaratorのvisitで処理されるため、ここではスキップ
+        if (assignExpr.getParentNode().isPresent() &&
+            (assignExpr.getParentNode().get() instanceof VariableDeclarator ||
+             assignExpr.getParentNode().get() instanceof EnclosedExpr)) {
+            return;
+        }                
+        // for文の更新式の場合はスキップ
+        if (isForUpdate(assignExpr)) {
+            return;
+        }
 
-                // ExpressionConverterから "a + 1" のような式部分を取得
-                String expressionPart = ExpressionConverter.convertExpression(unaryExpr);
-                String text = unaryExpr.getExpression().toString() + " は " + expressionPart;
-                if (text != null) {
-                    String indent = IndentManager.getIndentForLine(line);
-                    items.add(new Item(line, indent + text + "。"));
-                }
-                super.visit(unaryExpr, arg);
+        String variableName = convertTargetExpression(assignExpr.getTarget());
+        Expression value = assignExpr.getValue();
+        String text = null;
+
+        if (assignExpr.getOperator() == AssignExpr.Operator.ASSIGN) {
+            // for文の初期化式の場合はスキップ
+            if (isForInitialization(assignExpr)) {
+                return;
             }
-        }, null);
-        return items;
+            if (value instanceof ArrayCreationExpr || value instanceof ArrayInitializerExpr) {
+                return;
+            }
+            text = convertInitializer(variableName, value, false);
+        } else { // 複合代入演算子の場合
+            text = convertInitializer(variableName, assignExpr, false);
+        }
+
+        if (text != null) {
+            String indent = context.getIndentForLine(line);
+            out.add(line, indent + text);
+        }
+    }
+
+    /**
+     * 単独の文として書かれた単項演算(i++ など)を変換する (ConversionEngine から呼び出される)
+     */
+    static void convert(UnaryExpr unaryExpr, OutputBuffer out, ConversionContext context) {
+        int line = unaryExpr.getBegin().map(p -> p.line).orElse(-1);
+
+        // for文の更新式の場合はスキップ
+        if (isForUpdate(unaryExpr)) {
+            return;
+        }
+
+        if (unaryExpr.getParentNode().isPresent()) {
+            var parent = unaryExpr.getParentNode().get();
+            // 式の一部である場合は、その式のコンバータで処理されるためスキップ
+            if (parent instanceof BinaryExpr || parent instanceof MethodCallExpr || parent instanceof AssignExpr
+                    || parent instanceof IfStmt) {
+                return;
+            }
+        }
+
+        // ExpressionConverterから "a + 1" のような式部分を取得
+        String expressionPart = ExpressionConverter.convertExpression(unaryExpr);
+        String text = unaryExpr.getExpression().toString() + " は " + expressionPart;
+        if (text != null) {
+            String indent = context.getIndentForLine(line);
+            out.add(line, indent + text + "。");
+        }
     }
 
     private static String convertTargetExpression(Expression target) {
@@ -251,14 +258,4 @@ public class VariableInitConverter {
         }
         return null;
     }
-
-    public static class Item {
-        public final int line;
-        public final String content;
-
-        public Item(int line, String content) {
-            this.line = line;
-            this.content = content;
-        }
-    }
 }
\ No newline at end of file
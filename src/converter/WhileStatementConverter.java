@@ -1,7 +1,5 @@
 package converter;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 import com.github.javaparser.ast.CompilationUnit;
@@ -13,59 +11,52 @@ import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 public class WhileStatementConverter {
 
-    public static List<Item> convert(CompilationUnit cu) {
-        List<Item> items = new ArrayList<>();
-        
+    public static void convert(CompilationUnit cu, ConversionContext context, OutputBuffer out) {
         cu.accept(new VoidVisitorAdapter<Void>() {
             @Override
             public void visit(WhileStmt whileStmt, Void arg) {
-                int line = whileStmt.getBegin().map(p -> p.line).orElse(-1);
-                Expression condition = whileStmt.getCondition();
-                String conditionText = ConditionConverter.convertCondition(condition);
-                
-                // 親をたどってインデントレベルを計算する
-                String whileIndent = IndentManager.getIndentForLine(line);
-                
-                String suffix;
-                if (condition instanceof com.github.javaparser.ast.expr.MethodCallExpr) {
-                    suffix = "間";
-                } else {
-                    suffix = "の間";
-                }
-                String whileText = whileIndent + "(" + conditionText + ")" + suffix;
-                items.add(new Item(line, whileText));
-                
-                // while文本体のインデントを記録
-                Statement bodyStmt = whileStmt.getBody();
-                
-                // ブロックの最後の文の次の行に「ここまで。」を配置する
-                int endLine;
-                if (bodyStmt instanceof BlockStmt) {
-                    Optional<Statement> lastStmt = ((BlockStmt) bodyStmt).getStatements().getLast();
-                    if (lastStmt.isPresent()) {
-                        endLine = lastStmt.get().getEnd().map(p -> p.line + 1).orElse(line + 1);
-                    } else {
-                        endLine = line + 1;
-                    }
-                } else {
-                    endLine = bodyStmt.getEnd().map(p -> p.line + 1).orElse(line + 1);
-                }
-                items.add(new Item(endLine, whileIndent + "ここまで。"));
-                
+                convert(whileStmt, out, context);
                 super.visit(whileStmt, arg);
             }
         }, null);
         
-        return items;
     }
 
-    public static class Item {
-        public final int line;
-        public final String content;
+    /**
+     * 1つのwhile文を変換する (ConversionEngine から呼び出される)
+     */
+    static void convert(WhileStmt whileStmt, OutputBuffer out, ConversionContext context) {
+        int line = whileStmt.getBegin().map(p -> p.line).orElse(-1);
+        Expression condition = whileStmt.getCondition();
+        String conditionText = ConditionConverter.convertCondition(condition);
+        
+        // 親をたどってインデントレベルを計算する
+        String whileIndent = context.getIndentForLine(line);
+        
+        String suffix;
+        if (condition instanceof com.github.javaparser.ast.expr.MethodCallExpr) {
+            suffix = "間";
+        } else {
+            suffix = "の間";
+        }
+        String whileText = whileIndent + "(" + conditionText + ")" + suffix;
+        out.add(line, whileText);
+        
+        // while文本体のインデントを記録
+        Statement bodyStmt = whileStmt.getBody();
         
-        public Item(int line, String content) {
-            this.line = line;
-            this.content = content;
+        // ブロックの最後の文の次の行に「ここまで。」を配置する
+        int endLine;
+        if (bodyStmt instanceof BlockStmt) {
+            Optional<Statement> lastStmt = ((BlockStmt) bodyStmt).getStatements().getLast();
+            if (lastStmt.isPresent()) {
+                endLine = lastStmt.get().getEnd().map(p -> p.line + 1).orElse(line + 1);
+            } else {
+                endLine = line + 1;
+            }
+        } else {
+            endLine = bodyStmt.getEnd().map(p -> p.line + 1).orElse(line + 1);
         }
+        out.add(endLine, whileIndent + "ここまで。");
     }
 }
\ No newline at end of file
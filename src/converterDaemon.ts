@@ -0,0 +1,281 @@
+import { ChildProcessWithoutNullStreams, spawn } from 'child_process';
+import * as fs from 'fs';
+import * as path from 'path';
+
+interface PendingRequest {
+    body: Buffer;
+    cancelled: boolean;
+    resolve: (output: string) => void;
+    reject: (err: Error) => void;
+}
+
+/**
+ * 新しい要求に置き換えられて取り消された変換
+ */
+export class ConversionCancelledError extends Error {
+    constructor() {
+        super('変換は取り消されました');
+    }
+}
+
+/**
+ * 常駐させた Java の変換デーモン(JavaToNadeshikoConverter --daemon)とのやり取りを行うクラス
+ *
+ * 一度起動したプロセスを使い回し、要求ごとの JVM 起動を省く。
+ * デーモンへ送る要求は常に1件だけで、残りは送信待ちに並べる。
+ * 取り消された要求は、送信前なら送らずに捨て、送信済みなら応答を無視する。
+ * 送信済みの要求が取り消され、その後ろに新しい要求が待っている場合、デーモンは古い変換を最後まで続けるので、
+ * 送ってから RESTART_AFTER_MS 経っても応答がなければデーモンを終了して起動し直す
+ * (すぐに終わる変換まで打ち切ると、打ち込むたびに JVM の起動を待つことになるため)。
+ * フレーム形式は ConverterDaemon.java を参照。
+ *
+ * 起動時間を縮めるため、AppCDSアーカイブがあれば読み込ませる。JDK 17 のアーカイブは
+ * 作成時のjarのパスに結び付くので、インストール先ごとに archiveDir へ作り直す
+ * (ConverterTraining.java を参照)。アーカイブが使えなくても変換は通常どおり動く。
+ */
+export class ConverterDaemon {
+    // 取り消された変換がこれより長くかかっていれば、終わるのを待たずにデーモンを起動し直す (ミリ秒)
+    private static readonly RESTART_AFTER_MS = 300;
+
+    private _process?: ChildProcessWithoutNullStreams;
+    private _buffer: Buffer = Buffer.alloc(0);
+    private _nextId: number = 1;
+    private _queue: PendingRequest[] = []; // 送信待ちの要求
+    private _inFlight?: { id: number; request: PendingRequest; sentAt: number }; // 送信済みで応答待ちの要求
+    private _restartTimer?: ReturnType<typeof setTimeout>; // 取り消された変換を打ち切るまでのタイマー
+    private _disposed: boolean = false;
+    private _training?: ChildProcessWithoutNullStreams; // アーカイブ作成中のプロセス
+
+    // jarPath: 拡張機能に同梱した変換器のjar (mvn package で dist に出力される)
+    // archiveDir: AppCDSアーカイブを置くディレクトリ (省略時はアーカイブを作らない)
+    constructor(private readonly _jarPath: string, private readonly _archiveDir?: string) {}
+
+    convert(javaCode: string, signal?: AbortSignal): Promise<string> {
+        return new Promise<string>((resolve, reject) => {
+            if (signal?.aborted) {
+                reject(new ConversionCancelledError());
+                return;
+            }
+            const request: PendingRequest = { body: Buffer.from(javaCode, 'utf8'), cancelled: false, resolve, reject };
+            signal?.addEventListener('abort', () => this.cancel(request), { once: true });
+            this._queue.push(request);
+            this.sendNext();
+        });
+    }
+
+    dispose() {
+        this._disposed = true;
+        clearTimeout(this._restartTimer);
+        this._restartTimer = undefined;
+        for (const request of this._queue.splice(0)) {
+            this.cancel(request);
+        }
+        if (this._inFlight) {
+            this.cancel(this._inFlight.request);
+            this._inFlight = undefined;
+        }
+        const proc = this._process;
+        this._process = undefined;
+        proc?.kill();
+        this._training?.kill();
+        this._training = undefined;
+    }
+
+    private cancel(request: PendingRequest) {
+        request.cancelled = true;
+        const index = this._queue.indexOf(request);
+        if (index >= 0) {
+            this._queue.splice(index, 1);
+        }
+        request.reject(new ConversionCancelledError());
+        this.restartIfStale();
+    }
+
+    // 応答待ちの要求がなければ、送信待ちの先頭をデーモンへ送る
+    private sendNext() {
+        if (this._inFlight) {
+            this.restartIfStale();
+            return;
+        }
+        const request = this._queue.shift();
+        if (!request) {
+            return;
+        }
+
+        let proc: ChildProcessWithoutNullStreams;
+        try {
+            proc = this.start();
+        } catch (err: any) {
+            request.reject(err);
+            return;
+        }
+        const id = this._nextId++;
+        this._inFlight = { id, request, sentAt: Date.now() };
+        proc.stdin.write(`${id} ${request.body.length}\n`);
+        proc.stdin.write(request.body);
+    }
+
+    // 応答待ちの要求が取り消され、送信待ちの要求があれば、送ってから RESTART_AFTER_MS 経った時点で
+    // まだ応答がなければデーモンを起動し直す
+    private restartIfStale() {
+        const inFlight = this._inFlight;
+        if (!inFlight || !inFlight.request.cancelled || this._queue.length === 0
+            || this._restartTimer || this._disposed) {
+            return;
+        }
+        const wait = Math.max(inFlight.sentAt + ConverterDaemon.RESTART_AFTER_MS - Date.now(), 0);
+        this._restartTimer = setTimeout(() => {
+            this._restartTimer = undefined;
+            if (this._inFlight === inFlight && this._queue.length > 0) {
+                this.restart();
+            } else {
+                this.restartIfStale(); // 待つ間に応答が届き、次の要求が送られていた
+            }
+        }, wait);
+    }
+
+    // 応答待ちの変換を打ち切ってデーモンを終了し、送信待ちの要求を新しいデーモンへ送る
+    private restart() {
+        const proc = this._process;
+        // 先に外しておくので、古いプロセスの exit は onExit で無視される
+        this._process = undefined;
+        this._buffer = Buffer.alloc(0);
+        this._inFlight = undefined;
+        proc?.kill();
+        this.sendNext();
+    }
+
+    // デーモンが起動していなければ起動する
+    private start(): ChildProcessWithoutNullStreams {
+        if (!this._process) {
+            this._process = this.spawnDaemon();
+        }
+        return this._process;
+    }
+
+    private spawnDaemon(): ChildProcessWithoutNullStreams {
+        if (this._disposed) {
+            throw new ConversionCancelledError();
+        }
+        // JVM の警告が標準出力に出ると応答フレームが壊れるので、ログは標準エラーへ回す
+        const args = ['-Xshare:auto', '-Xlog:disable', '-Xlog:all=warning:stderr'];
+        const archive = this.findArchive();
+        if (archive) {
+            args.push(`-XX:SharedArchiveFile=${archive}`);
+        }
+        const proc = spawn('java', [...args, '-jar', this._jarPath, '--daemon']);
+
+        proc.stdout.on('data', (chunk: Buffer) => {
+            if (this._process !== proc) {
+                return; // 起動し直す前のプロセスが打ち切られる直前に書いた応答
+            }
+            this._buffer = Buffer.concat([this._buffer, chunk]);
+            this.readResponses();
+        });
+        proc.stderr.on('data', (chunk: Buffer) => console.error(chunk.toString('utf8')));
+        proc.stdin.on('error', () => { /* 終了は exit / error イベントで扱う */ });
+        proc.on('exit', (code) => this.onExit(proc, code));
+        proc.on('error', (err) => this.onExit(proc, null, err));
+
+        return proc;
+    }
+
+    // インストール先で作ったアーカイブ、なければビルド時に dist に作ったアーカイブを返す。
+    // インストール先のアーカイブがなければ、次回の起動に備えて裏で作り始める
+    private findArchive(): string | undefined {
+        const archive = this.archivePath();
+        if (archive && fs.existsSync(archive)) {
+            return archive;
+        }
+        if (archive) {
+            this.createArchive(archive);
+        }
+        const bundled = this._jarPath.replace(/\.jar$/, '.jsa');
+        return fs.existsSync(bundled) ? bundled : undefined;
+    }
+
+    // jarを差し替えたら別のアーカイブになるよう、サイズと更新時刻を名前に含める
+    private archivePath(): string | undefined {
+        if (!this._archiveDir) {
+            return undefined;
+        }
+        try {
+            const stat = fs.statSync(this._jarPath);
+            return path.join(this._archiveDir, `converter-${stat.size}-${Math.floor(stat.mtimeMs)}.jsa`);
+        } catch {
+            return undefined;
+        }
+    }
+
+    private createArchive(archive: string) {
+        if (this._training || this._disposed) {
+            return;
+        }
+        const temporary = `${archive}.${process.pid}.tmp`;
+        try {
+            fs.mkdirSync(path.dirname(archive), { recursive: true });
+        } catch {
+            return;
+        }
+        const proc = spawn('java', [`-XX:ArchiveClassesAtExit=${temporary}`, '-Xlog:disable', '-cp', this._jarPath, 'ConverterTraining']);
+        this._training = proc;
+        proc.stdin.end();
+        proc.stderr.on('data', (chunk: Buffer) => console.error(chunk.toString('utf8')));
+        proc.on('error', () => { this._training = undefined; });
+        proc.on('exit', (code) => {
+            this._training = undefined;
+            // 書きかけのアーカイブを読ませないよう、完成してから名前を付け替える
+            try {
+                if (code === 0 && fs.existsSync(temporary)) {
+                    fs.renameSync(temporary, archive);
+                } else {
+                    fs.rmSync(temporary, { force: true });
+                }
+            } catch (err) {
+                console.error(err);
+            }
+        });
+    }
+
+    // 受信バッファから揃っている応答フレームをすべて取り出す
+    private readResponses() {
+        while (true) {
+            const newline = this._buffer.indexOf(0x0a);
+            if (newline < 0) {
+                return;
+            }
+            const [id, status, length] = this._buffer.subarray(0, newline).toString('ascii').split(' ');
+            const bodyEnd = newline + 1 + Number(length);
+            if (this._buffer.length < bodyEnd) {
+                return; // 本体がまだ届いていない
+            }
+            const body = this._buffer.subarray(newline + 1, bodyEnd).toString('utf8');
+            this._buffer = this._buffer.subarray(bodyEnd);
+
+            const inFlight = this._inFlight;
+            if (!inFlight || inFlight.id !== Number(id)) {
+                continue;
+            }
+            // 取り消し済みの要求は既に reject されているので、ここでの確定は無視される
+            const request = inFlight.request;
+            this._inFlight = undefined;
+            if (status === 'OK') {
+                request.resolve(body);
+            } else {
+                request.reject(new Error(body));
+            }
+            this.sendNext();
+        }
+    }
+
+    private onExit(proc: ChildProcessWithoutNullStreams, code: number | null, err?: Error) {
+        if (this._process !== proc) {
+            return;
+        }
+        this._process = undefined;
+        this._buffer = Buffer.alloc(0);
+        this._inFlight?.request.reject(err ?? new Error(`変換デーモンが終了しました (code ${code})`));
+        this._inFlight = undefined;
+        this.sendNext(); // 残りの要求はデーモンを起動し直して処理する
+    }
+}
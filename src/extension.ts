@@ -1,13 +1,17 @@
-import { execSync } from 'child_process';
-import * as fs from 'fs';
 import * as path from 'path';
 import * as vscode from 'vscode';
+import { ConversionCancelledError, ConverterDaemon } from './converterDaemon';
 
 export function activate(context: vscode.ExtensionContext) {
-    const provider = new JavaToNadeshikoViewProvider();
+    // 変換器は拡張機能に同梱したjarを使う。起動を速めるAppCDSアーカイブは拡張機能の保存領域に作る
+    const provider = new JavaToNadeshikoViewProvider(
+        context.asAbsolutePath(path.join('dist', 'java-to-nadeshiko-converter.jar')),
+        context.globalStorageUri.fsPath
+    );
 
     context.subscriptions.push(
-        vscode.window.registerWebviewViewProvider('javaToNadeshikoView', provider)
+        vscode.window.registerWebviewViewProvider('javaToNadeshikoView', provider),
+        provider
     );
 
     context.subscriptions.push(
@@ -25,11 +29,17 @@ export function activate(context: vscode.ExtensionContext) {
     );
 }
 
-class JavaToNadeshikoViewProvider implements vscode.WebviewViewProvider {
+class JavaToNadeshikoViewProvider implements vscode.WebviewViewProvider, vscode.Disposable {
     private _view?: vscode.WebviewView;
+    private _daemon: ConverterDaemon;
     private _updateTimeout?: NodeJS.Timeout; // デバウンス用タイマー
     private _debounceDelay: number = 1000; // 1秒待機（調整可能）
     private _autoUpdate: boolean = true; // 自動更新のON/OFF
+    private _request?: { uri: string; version: number; controller: AbortController }; // 実行中の変換
+
+    constructor(converterJarPath: string, archiveDir: string) {
+        this._daemon = new ConverterDaemon(converterJarPath, archiveDir);
+    }
 
     resolveWebviewView(webviewView: vscode.WebviewView) {
         this._view = webviewView;
@@ -59,17 +69,32 @@ class JavaToNadeshikoViewProvider implements vscode.WebviewViewProvider {
             clearTimeout(this._updateTimeout);
         }
 
+        // 新しい版の変換が予定されたので、実行中の古い変換は不要
+        this.cancelRequest();
+
         // 新しいタイマーを設定
         this._updateTimeout = setTimeout(() => {
             this.updateContent();
         }, this._debounceDelay);
     }
 
-    updateContent() {
+    dispose() {
+        this.cancelRequest();
+        this._daemon.dispose();
+    }
+
+    private cancelRequest() {
+        this._request?.controller.abort();
+        this._request = undefined;
+    }
+
+    async updateContent() {
         if (!this._view) {
             return;
         }
 
+        this.cancelRequest();
+
         const activeEditor = vscode.window.activeTextEditor;
         if (!activeEditor || activeEditor.document.languageId !== 'java') {
             this._view.webview.postMessage({
@@ -85,54 +110,36 @@ class JavaToNadeshikoViewProvider implements vscode.WebviewViewProvider {
             content: '変換中...'
         });
 
-        const javaCode = activeEditor.document.getText();
-        const nadeshikoCode = this.convertJavaToNadeshiko(javaCode);
+        // 変換要求にドキュメントの版を付けておき、より新しい版の要求が来たら結果を捨てる
+        const document = activeEditor.document;
+        const request = {
+            uri: document.uri.toString(),
+            version: document.version,
+            controller: new AbortController()
+        };
+        this._request = request;
+
+        const nadeshikoCode = await this.convertJavaToNadeshiko(document.getText(), request.controller.signal);
+        if (nadeshikoCode === undefined || this._request !== request) {
+            return; // 取り消された、または新しい要求に置き換えられた
+        }
+        this._request = undefined;
         this._view.webview.postMessage({
             type: 'update',
-            content: nadeshikoCode
+            content: nadeshikoCode,
+            version: request.version
         });
     }
 
-    private convertJavaToNadeshiko(javaCode: string): string {
-        const baseDir = '/Users/yuha-kut/java-to-nadeshiko-converter/src';
-        const jarFile = 'javaparser-core-3.26.2.jar';
-        const tempFilePath = path.join(baseDir, 'temp_java_code.txt');
-
+    // 取り消された場合は undefined を返す
+    private async convertJavaToNadeshiko(javaCode: string, signal: AbortSignal): Promise<string | undefined> {
         try {
-            fs.writeFileSync(tempFilePath, javaCode, 'utf8');
-
-            // すべてのJavaファイルを再帰的に検索
-            const javaFiles: string[] = [];
-            const findJavaFiles = (dir: string) => {
-                const entries = fs.readdirSync(dir, { withFileTypes: true });
-                for (const entry of entries) {
-                    const fullPath = path.join(dir, entry.name);
-                    if (entry.isDirectory()) {
-                        findJavaFiles(fullPath);
-                    } else if (entry.isFile() && entry.name.endsWith('.java')) {
-                        // 相対パスを取得（baseDirからの相対パス）
-                        const relativePath = path.relative(baseDir, fullPath);
-                        javaFiles.push(relativePath);
-                    }
-                }
-            };
-            findJavaFiles(baseDir);
-
-            // すべてのJavaファイルをコンパイル（パスにスペースが含まれる場合に備えてクォート）
-            const javaFilesQuoted = javaFiles.map(f => `"${f}"`).join(' ');
-            execSync(
-                `javac -cp ".:${jarFile}" ${javaFilesQuoted}`,
-                { cwd: baseDir, encoding: 'utf8' }
-            );
-
-            const output = execSync(
-                `java -cp ".:${jarFile}" JavaToNadeshikoConverter "${tempFilePath}"`,
-                { cwd: baseDir, encoding: 'utf8' }
-            );
-
-            fs.unlinkSync(tempFilePath);
+            const output = await this._daemon.convert(javaCode, signal);
             return output.trim() || ' ';
         } catch (err: any) {
+            if (err instanceof ConversionCancelledError || signal.aborted) {
+                return undefined;
+            }
             return `変換エラー: ${err.message || err}`;
         }
     }
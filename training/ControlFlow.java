@@ -0,0 +1,72 @@
+public class ControlFlow {
+    enum Color { RED, GREEN }
+
+    static int counter;
+
+    int calc(int a, int b) {
+        switch (a) {
+            case 1:
+                for (int i = 0; i < b; i++) {
+                    if (i > 2) {
+                        System.out.println(i);
+                    }
+                }
+                break;
+            case 2:
+                while (b > 0) {
+                    b--;
+                }
+                // comment in case
+                break;
+            default:
+                if (b == 0) System.out.println("zero");
+                else System.out.println("nz");
+        }
+        if (a > 0)
+            a = 1;
+        else if (a < 0)
+            a = -1;
+        else if (a == 0) {
+            a = 0;
+            if (b > 1) {
+                b = 1;
+            }
+        } else {
+            a = 2;
+        }
+        if (a == 1) {
+            return a;
+        } else if (b == 2) {
+            return b;
+        }
+        do {
+            a++;
+        } while (a < 10);
+        for (int j = 10; j > 0; j -= 2) {
+            System.out.println(j);
+        }
+        for (String s : new String[]{"x"}) {
+            System.out.println(s);
+        }
+        String msg = "a" + "b" + a + "c" + (a + b) + counter + Math.max(a, b) + this.counter + (a > b ? "big" : "small");
+        System.out.println("long " + msg + " end" + 'c' + 1.5 + 2L);
+        int neg = -5;
+        long ln = -10L;
+        double dn = -2.5;
+        Object o = (Object) "x";
+        a = (int) 3.7;
+        Color c = Color.RED;
+        throw new RuntimeException();
+    }
+
+    static class Nested {
+        void g() {
+            try {
+                int[] arr = new int[3];
+                arr[0] = 1;
+            } finally {
+                counter = 0;
+            }
+        }
+    }
+}
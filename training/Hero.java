@@ -0,0 +1,124 @@
+package sample.app;
+
+import java.util.*;
+import java.time.LocalDate;
+import static java.lang.Math.max;
+
+/**
+ * サンプルクラス
+ * 複数行コメント
+ */
+@RestController
+public class Hero extends Person implements Comparable {
+    private String name;
+    private int hp;
+    int[] scores;
+    final int MAX = 100;
+    static String label = "hero";
+    long big = 123L;
+    double rate = 1.5f;
+
+    // コンストラクタ
+    public Hero(String name) {
+        super(name);
+        this.name = name;
+        this.hp = 100;
+    }
+
+    public Hero() {
+        this("アリス");
+    }
+
+    @GetMapping("/hello")
+    public String hello() {
+        return "hello " + name + "!";
+    }
+
+    public int attack(int power, Hero target) {
+        int damage = power * 2 + 1;
+        if (damage > 10) {
+            damage = 10;
+        } else if (damage < 0) {
+            damage = 0;
+        } else {
+            damage += 1;
+        }
+        if (target == null) return 0;
+        if (target.hp <= 0 && hp > 0 || name.isEmpty()) {
+            System.out.println("倒れている");
+        }
+        target.hp -= damage;
+        return damage;
+    }
+
+    public static void main(String[] args) {
+        Hero h = new Hero("ボブ");
+        Hero h2;
+        int x = 5, y;
+        y = x + 3;
+        x++;
+        --y;
+        String s = "値は" + x + "と" + (y * 2) + "です\n";
+        System.out.println(s);
+        System.out.print("no newline");
+        System.out.println();
+        System.out.println(x + y);
+        System.out.println(h.hello().length());
+        for (int i = 0; i < 10; i++) {
+            System.out.println(i);
+            if (i % 2 == 0) {
+                continue;
+            }
+        }
+        List<String> names = new ArrayList<>();
+        names.add("a");
+        names.add(0, "b");
+        for (String n : names) {
+            System.out.println("名前:" + n);
+        }
+        while (x < 100) {
+            x = x * 2;
+        }
+        int[] arr = new int[5];
+        int[][] grid = new int[3][4];
+        int[] lits = {1, 2, 3};
+        String[][] nested = {{"a", "b"}, {"c"}};
+        arr = new int[]{4, 5};
+        boolean flag = !names.isEmpty() && names.contains("a");
+        String t = flag ? "yes" : "no";
+        double r = Math.random() * 10;
+        int m = Math.max(x, y);
+        int p = Integer.parseInt("42");
+        LocalDate d = LocalDate.of(2020, 1, 2);
+        Map<String, Integer> map = new HashMap<>();
+        map.put("k", 1);
+        map.remove("k");
+        if (map.containsKey("k")) {
+            System.out.println(map.get("k"));
+        }
+        switch (x) {
+            case 1:
+                System.out.println("one");
+                break;
+            case 2:
+            case 3:
+                y = 2;
+                break;
+            default:
+                System.out.println("other");
+        }
+        try {
+            throw new IllegalArgumentException("不正: " + x);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            System.out.println("done");
+        }
+        /* single block */
+        char c = 'a';
+        long l = 10L;
+        float f = 2.5F;
+    }
+}
@@ -0,0 +1,139 @@
+import java.io.*;
+import java.sql.*;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import javax.swing.*;
+
+interface Shape extends Comparable {
+    double area();
+    String name();
+}
+
+abstract class Base {
+    abstract void run();
+}
+
+public class LibraryCalls {
+    public void io() throws IOException {
+        try (FileWriter fw = new FileWriter("out.txt")) {
+            fw.write("hello");
+            fw.close();
+        } catch (IOException e) {
+            System.out.println("err");
+        }
+        FileReader fr = new FileReader("in.txt");
+        int ch = fr.read();
+        while ((ch = fr.read()) != -1) {
+            System.out.print((char) ch);
+        }
+    }
+
+    public void db() throws Exception {
+        Class.forName("org.sqlite.JDBC");
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:test.db");
+        String sql = "CREATE TABLE t(id int)";
+        conn.createStatement().executeUpdate(sql);
+    }
+
+    public void time() {
+        long start = System.currentTimeMillis();
+        ZonedDateTime z = ZonedDateTime.now();
+        ZonedDateTime z2 = ZonedDateTime.of(2020, 1, 2, 3, 4, 5, 6, ZoneId.of("Asia/Tokyo"));
+        LocalDateTime ldt = LocalDateTime.of(2021, 5, 6, 7, 8);
+        LocalDate ld = LocalDate.parse("2020/01/01", DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+        LocalDate later = ld.plusDays(1000);
+        Period p = Period.between(ld, later);
+        Period p2 = Period.ofDays(3);
+        String out = later.format(DateTimeFormatter.ofPattern("yyyy"));
+        int year = z.getYear();
+        Instant i = Instant.ofEpochMilli(1000L);
+        java.util.Calendar cal = java.util.Calendar.getInstance();
+        cal.set(2020, 1, 2, 3, 4, 5);
+        cal.set(java.util.Calendar.YEAR, 2021);
+        int yy = cal.get(java.util.Calendar.YEAR);
+        if (ld.isAfter(later)) {
+            System.out.println("after");
+        }
+    }
+
+    public void gui() {
+        JFrame frame = new JFrame("title");
+        JLabel label = new JLabel("hi");
+        frame.getContentPane().add(label);
+        frame.getContentPane().setLayout(new FlowLayout());
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setSize(300, 200);
+        frame.setVisible(true);
+    }
+
+    public int strings(String s) {
+        String a = s.substring(1);
+        String b = s.substring(0, 3);
+        int idx = s.indexOf("x");
+        char c = s.charAt(2);
+        String[] parts = s.split(",");
+        String r = s.replaceAll("a", "b");
+        String f = String.format("%d-%s", 1, "x");
+        StringBuilder sb = new StringBuilder();
+        sb.append("x");
+        boolean ok = s.matches("[a-z]+");
+        if (s.equals("abc") == true) {
+            return 1;
+        }
+        if (!s.endsWith("z")) {
+            return 2;
+        } else {
+            return 3;
+        }
+    }
+
+    void nested() {
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                if (i == j) {
+                    while (true) {
+                        break;
+                    }
+                } else {
+                    try {
+                        int q = i / j;
+                    } catch (ArithmeticException e) {
+                        // ゼロ除算
+                        System.out.println("zero");
+                    }
+                }
+            }
+        }
+        int k = 0;
+        k += (k = 3);
+        int z = (k = 4) + 1;
+        Object o = "str";
+        if (o instanceof String str) {
+            System.out.println(str);
+        }
+        String tb = """
+            hello
+              world
+            """;
+        int w = new java.util.Random().nextInt(6) + 1;
+        Scanner sc = new Scanner(System.in);
+        String line = new Scanner(System.in).nextLine();
+        Runnable rr = new Runnable() {
+            public void run() {
+                System.out.println("inner");
+            }
+        };
+    }
+
+    class Inner {
+        int v;
+        void f() {
+            switch (v) {
+                case 0 -> {
+                    System.out.println("zero");
+                }
+                default -> System.out.println("x");
+            }
+        }
+    }
+}